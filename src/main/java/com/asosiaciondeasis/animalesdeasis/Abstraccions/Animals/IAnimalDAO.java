@@ -1,13 +1,41 @@
 package com.asosiaciondeasis.animalesdeasis.Abstraccions.Animals;
 
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RowVersion;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalSummary;
+import com.asosiaciondeasis.animalesdeasis.Model.PageCursor;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface IAnimalDAO {
 
     boolean insertAnimal(Animal animal) throws Exception;
 
+    /**
+     * Bulk insert in a single transaction.
+     *
+     * @return per-row outcome: 1 inserted, 0 skipped (record already present)
+     */
+    int[] insertAnimals(List<Animal> animals) throws Exception;
+
+    /**
+     * Bulk last-writer-wins upsert in a single transaction.
+     *
+     * @return per-row outcome: 1 inserted/updated, 0 skipped (local copy is as new or newer)
+     */
+    int[] upsertAnimals(List<Animal> animals) throws Exception;
+
+    /**
+     * Set-based "mark as synced" after a push; rows modified since they were read are left unsynced.
+     *
+     * @param expectedVersions record number -> hlc that was pushed
+     * @return number of rows flagged
+     */
+    int markSynced(Map<String, Long> expectedVersions) throws Exception;
+
     List<Animal> getAllAnimals() throws Exception;
 
     Animal findByRecordNumber(String recordNumber) throws Exception;
@@ -20,6 +48,19 @@ public interface IAnimalDAO {
 
     List<Animal> findByFilters(String species, String startDate, String endDate, String chipNumber ,Boolean showInactive) throws Exception;
 
+    /**
+     * Returns at most {@code limit} animals matching the filter that sort after the given key
+     * ({@code admission_date DESC, record_number DESC}). Both keys {@code null} means first page.
+     */
+    List<Animal> findPage(AnimalFilter filter, String afterAdmissionDate, String afterRecordNumber, int limit) throws Exception;
+
+    /** Same page as {@link #findPage}, projected to the columns the management table shows. */
+    List<AnimalSummary> findSummaryPage(AnimalFilter filter, String afterAdmissionDate, String afterRecordNumber, int limit) throws Exception;
+
+    int countByFilters(AnimalFilter filter) throws Exception;
+
+    PageCursor findCursorAt(AnimalFilter filter, int offset) throws Exception;
+
     boolean updateAnimal(Animal animal, boolean timestamp) throws Exception;
 
     void deleteAnimal(String recordNumber) throws Exception;
@@ -27,4 +68,22 @@ public interface IAnimalDAO {
     void reactivateAnimal(String recordNumber) throws Exception;
 
     List<Animal> getUnsyncedAnimals() throws Exception;
+
+    /** Up to {@code limit} synced animals after {@code afterRecordNumber} ({@code null}: from the start), by record number. */
+    List<Animal> getSyncedAnimalsAfter(String afterRecordNumber, int limit) throws Exception;
+
+    /** The animals among {@code recordNumbers} that are still unsynced, in a single query. */
+    List<Animal> getUnsyncedAnimals(Collection<String> recordNumbers) throws Exception;
+
+    /** {@code record_number -> last_modified} of every local animal, in a single query. */
+    Map<String, String> getLastModifiedIndex() throws Exception;
+
+    /** {@code record_number -> last_modified} of the local animals among {@code recordNumbers}. */
+    Map<String, String> getLastModifiedIndex(Collection<String> recordNumbers) throws Exception;
+
+    /** {@code record_number -> version info} of every local animal, in a single query. */
+    Map<String, RowVersion> getSyncIndex() throws Exception;
+
+    /** {@code record_number -> version info} of the local animals among {@code recordNumbers}. */
+    Map<String, RowVersion> getSyncIndex(Collection<String> recordNumbers) throws Exception;
 }
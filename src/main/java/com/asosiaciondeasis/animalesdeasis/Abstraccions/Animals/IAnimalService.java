@@ -1,6 +1,9 @@
 package com.asosiaciondeasis.animalesdeasis.Abstraccions.Animals;
 
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalSummary;
+import com.asosiaciondeasis.animalesdeasis.Model.PageCursor;
 
 import java.util.List;
 
@@ -13,6 +16,14 @@ public interface IAnimalService {
 
     List<Animal> findByFilters(String species, String startDate, String endDate, String chipNumber ,Boolean showInactive) throws Exception;
 
+    List<Animal> findPage(AnimalFilter filter, PageCursor after, int limit) throws Exception;
+
+    List<AnimalSummary> findSummaryPage(AnimalFilter filter, PageCursor after, int limit) throws Exception;
+
+    int countByFilters(AnimalFilter filter) throws Exception;
+
+    PageCursor findCursorAt(AnimalFilter filter, int offset) throws Exception;
+
     boolean updateAnimal(Animal animal, boolean timestamp) throws Exception;
 
     void deleteAnimal(String recordNumber) throws Exception;
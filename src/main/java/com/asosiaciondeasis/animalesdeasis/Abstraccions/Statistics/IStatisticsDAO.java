@@ -1,5 +1,10 @@
 package com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics;
 
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsRow;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 
 public interface IStatisticsDAO {
@@ -11,4 +16,19 @@ public interface IStatisticsDAO {
 
     double getAdoptionRate(int year) throws Exception;
 
+    /** All of the above for {@code year}, in one query. */
+    DashboardSnapshot getDashboard(int year) throws Exception;
+
+    /** Every animal, active or not, with the columns the in-memory statistics slice on. */
+    List<AnalyticsRow> getAnalyticsRows() throws Exception;
+
+    /** The animals among {@code recordNumbers} that still exist. */
+    List<AnalyticsRow> getAnalyticsRows(Collection<String> recordNumbers) throws Exception;
+
+    /** The animals stamped after {@code hlc}, which includes every local write since it. */
+    List<AnalyticsRow> getAnalyticsRowsChangedAfter(long hlc) throws Exception;
+
+    /** Province name of every place, by place id. */
+    Map<Integer, String> getProvinceNamesByPlace() throws Exception;
+
 }
@@ -1,5 +1,9 @@
 package com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics;
 
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsDimension;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
+
 import java.util.Map;
 
 public interface IStatisticsService {
@@ -10,4 +14,12 @@ public interface IStatisticsService {
     int getTotalAdmissions(int year) throws Exception;
 
     double getAdoptionRate(int year) throws Exception;
+
+    DashboardSnapshot getDashboard(int year) throws Exception;
+
+    /** Number of animals matching {@code filter}, counted in memory. */
+    int countAnimals(AnalyticsFilter filter) throws Exception;
+
+    /** Animals matching {@code filter} per group of {@code dimension}, counted in memory. */
+    Map<String, Integer> countAnimalsBy(AnalyticsDimension dimension, AnalyticsFilter filter) throws Exception;
 }
@@ -0,0 +1,37 @@
+package com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.ChangeEntry;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public interface IChangeLogDAO {
+
+    /** Up to {@code limit} pending changes with {@code seq > afterSeq}, oldest first. */
+    List<ChangeEntry> readAfter(long afterSeq, int limit) throws Exception;
+
+    /**
+     * Removes the acknowledged entries: for each one, every entry of the same entity with a
+     * sequence number up to (and including) its own. Later changes stay queued.
+     */
+    int acknowledge(Collection<ChangeEntry> entries) throws Exception;
+
+    /** Ids of the given entity type with a delete tombstone not yet pushed. */
+    Set<String> pendingDeletes(String entity) throws Exception;
+
+    /**
+     * Fields changed by the pending updates of each of {@code ids}, merged over every queued
+     * entry (not only one page of the log). Ids with an entry that needs the whole document
+     * (an insert, or a change logged before fields were tracked) are left out.
+     */
+    Map<String, Set<String>> pendingFields(String entity, Collection<String> ids) throws Exception;
+
+    /**
+     * While enabled, deletes made through this DAO's connection are not recorded as
+     * tombstones; deletes on any other connection still are. Set by the sync pull so applying
+     * a remote deletion is not echoed back to Firebase.
+     */
+    void setApplyRemote(boolean applyRemote) throws Exception;
+}
@@ -0,0 +1,94 @@
+package com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The remote side of the sync: everything {@code SyncService} needs from Firebase.
+ *
+ * <p>Keeping the engine behind this interface lets it run against an in-process store
+ * (tests, load tests, benchmarks) exactly as it runs against Firestore.</p>
+ */
+public interface IRemoteStore {
+
+    /** Whether a sync can run right now (backend configured and reachable). */
+    boolean isAvailable();
+
+    /**
+     * Streams animals (all of them when {@code since} is {@code null}, otherwise those with
+     * lastModified at or after it) to {@code handler} in pages of at most {@code pageSize}.
+     * Implementations may fetch the next page while the handler works on the current one,
+     * but never hold more than that: memory does not grow with the collection.
+     */
+    void fetchAnimals(String since, int pageSize, PageHandler<Animal> handler) throws Exception;
+
+    /**
+     * Streams vaccines (all of them when {@code since} is {@code null}, otherwise those with
+     * lastModified at or after it) to {@code handler} in pages of at most {@code pageSize},
+     * like {@link #fetchAnimals}.
+     */
+    void fetchVaccines(String since, int pageSize, PageHandler<Vaccine> handler) throws Exception;
+
+    /**
+     * Applies the writes atomically. At most {@link #MAX_WRITES_PER_COMMIT} writes per call.
+     *
+     * @return completes when the remote store acknowledged the commit, exceptionally if it failed
+     */
+    CompletableFuture<Void> commit(List<RemoteWrite> writes);
+
+    /**
+     * Stored digest of every bucket ({@link BucketDigest}); buckets never written are absent.
+     * One small document per bucket, so this reads kilobytes regardless of the data size.
+     */
+    Map<String, BucketDigest> fetchDigests() throws Exception;
+
+    /** Every animal of a bucket. */
+    List<Animal> fetchAnimalBucket(String bucket) throws Exception;
+
+    /** Every vaccine whose animal belongs to a bucket. */
+    List<Vaccine> fetchVaccineBucket(String bucket) throws Exception;
+
+    /** Atomically adds each delta to its bucket's stored digest (creating it if needed). */
+    CompletableFuture<Void> addToDigests(Map<String, BucketDigest> deltas);
+
+    /** Overwrites the stored digests of the given buckets. */
+    CompletableFuture<Void> putDigests(Map<String, BucketDigest> digests);
+
+    /**
+     * Listens for animals and vaccines written at or after the given marks (everything when a
+     * mark is {@code null}) and hands them to {@code handler} as they are written, on a thread
+     * of the store. The first delivery holds the matching documents already there; each one
+     * after that only the documents that changed. Deleted documents are not reported.
+     *
+     * @return handle that stops listening
+     */
+    Subscription watch(String animalsSince, String vaccinesSince, ChangeHandler handler) throws Exception;
+
+    /** Firestore's hard limit of operations per batch. */
+    int MAX_WRITES_PER_COMMIT = 500;
+
+    @FunctionalInterface
+    interface PageHandler<T> {
+        void accept(List<T> page) throws Exception;
+    }
+
+    /** Receives the deliveries of {@link #watch}. */
+    interface ChangeHandler {
+        void onChanges(List<Animal> animals, List<Vaccine> vaccines);
+
+        /** The listener failed and has stopped; nothing more will be delivered. */
+        void onError(Exception error);
+    }
+
+    /** A running {@link #watch}; closing it stops the deliveries. */
+    interface Subscription extends AutoCloseable {
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,53 @@
+package com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteVersion;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface IRemoteVersionDAO {
+
+    /** {@code entity_id -> version} of every known remote document of {@code entity}, in a single query. */
+    Map<String, String> getVersionIndex(String entity) throws Exception;
+
+    /** Known remote versions of the given documents of {@code entity}, in a single query. */
+    Map<String, String> getVersions(String entity, Collection<String> ids) throws Exception;
+
+    /** Every known remote document of a bucket. */
+    List<RemoteVersion> getBucket(String bucket) throws Exception;
+
+    /** Digest of every bucket, computed from the known remote versions. */
+    Map<String, BucketDigest> getDigests() throws Exception;
+
+    /** Inserts or replaces the given versions in a single transaction. */
+    void upsertVersions(Collection<RemoteVersion> versions) throws Exception;
+
+    /** Forgets the given documents of {@code entity} (deleted remotely). */
+    void deleteVersions(String entity, Collection<String> ids) throws Exception;
+
+    /** Replaces everything known about a bucket with {@code versions}, atomically. */
+    void replaceBucket(String bucket, Collection<RemoteVersion> versions) throws Exception;
+
+    /*
+     * Sweep of an exhaustive pull: the ids seen in Firebase are recorded page by page in a
+     * temporary table of this connection instead of in memory, and what was not seen is
+     * found with SQL at the end.
+     */
+
+    /** Starts a sweep with an empty set of seen documents. */
+    void beginSweep() throws Exception;
+
+    /** Records documents of {@code entity} as present in Firebase. */
+    void markSeen(String entity, Collection<String> ids) throws Exception;
+
+    /** Forgets the known remote documents of {@code entity} the sweep did not see; returns how many. */
+    int sweepUnseen(String entity) throws Exception;
+
+    /** Local synced vaccines of animals the sweep saw, which were not seen themselves (deleted in Firebase). */
+    List<String> getUnseenSyncedVaccines() throws Exception;
+
+    /** Ends the sweep and drops its temporary table. */
+    void endSweep() throws Exception;
+}
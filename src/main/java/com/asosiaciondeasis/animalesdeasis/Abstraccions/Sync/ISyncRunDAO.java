@@ -0,0 +1,20 @@
+package com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+
+import java.util.List;
+
+public interface ISyncRunDAO {
+
+    /** Stores a finished run and drops the oldest ones beyond {@code keep}. */
+    void insertRun(SyncRun run, int keep) throws Exception;
+
+    /** The latest {@code limit} runs, newest first. */
+    List<SyncRun> getRecentRuns(int limit) throws Exception;
+
+    /** Latest run that completed successfully, or {@code null} if none did. */
+    SyncRun getLastSuccessfulRun() throws Exception;
+
+    /** Latest successful run that included a reconcile, or {@code null} if none did. */
+    SyncRun getLastSuccessfulReconcile() throws Exception;
+}
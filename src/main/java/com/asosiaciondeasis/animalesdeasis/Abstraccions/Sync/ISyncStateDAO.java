@@ -0,0 +1,10 @@
+package com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync;
+
+public interface ISyncStateDAO {
+
+    /** Latest remote {@code lastModified} already applied for {@code collection}, or {@code null} if never pulled. */
+    String getHighWaterMark(String collection) throws Exception;
+
+    /** Stores the high-water mark of {@code collection}, replacing any previous value. */
+    void setHighWaterMark(String collection, String highWaterMark) throws Exception;
+}
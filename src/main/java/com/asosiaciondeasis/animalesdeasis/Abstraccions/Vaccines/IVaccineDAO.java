@@ -1,20 +1,56 @@
 package com.asosiaciondeasis.animalesdeasis.Abstraccions.Vaccines;
 
+import com.asosiaciondeasis.animalesdeasis.Model.RowVersion;
 import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface IVaccineDAO {
 
     void insertVaccine(Vaccine vaccine) throws Exception;
 
+    /**
+     * Bulk last-writer-wins upsert in a single transaction.
+     *
+     * @return per-row outcome: 1 inserted/updated, 0 skipped (local copy is as new or newer)
+     */
+    int[] upsertVaccines(List<Vaccine> vaccines) throws Exception;
+
+    /**
+     * Set-based "mark as synced" after a push; rows modified since they were read are left unsynced.
+     *
+     * @param expectedVersions vaccine id -> hlc that was pushed
+     * @return number of rows flagged
+     */
+    int markSynced(Map<String, Long> expectedVersions) throws Exception;
+
     List<Vaccine> getVaccinesByAnimal(String animalRecordNumber) throws Exception;
 
     void updateVaccine(Vaccine vaccine, boolean timestamp) throws Exception;
 
     void deleteVaccine(String id) throws Exception;
 
+    /** Deletes many vaccines in one transaction; returns how many rows were removed. */
+    int deleteVaccines(Collection<String> ids) throws Exception;
+
     List<Vaccine> getAllUnsyncedVaccines() throws Exception;
 
+    /**
+     * Up to {@code limit} synced vaccines of synced animals after {@code afterId}
+     * ({@code null}: from the start), by id.
+     */
+    List<Vaccine> getSyncedVaccinesAfter(String afterId, int limit) throws Exception;
+
+    /** The vaccines among {@code ids} that are still unsynced, in a single query. */
+    List<Vaccine> getUnsyncedVaccines(Collection<String> ids) throws Exception;
+
     Vaccine existsVaccine(String id) throws Exception;
+
+    /** {@code id -> version info} of every local vaccine, in a single query. */
+    Map<String, RowVersion> getSyncIndex() throws Exception;
+
+    /** {@code id -> version info} of the local vaccines among {@code ids}. */
+    Map<String, RowVersion> getSyncIndex(Collection<String> ids) throws Exception;
 }
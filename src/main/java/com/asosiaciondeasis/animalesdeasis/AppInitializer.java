@@ -3,21 +3,18 @@ package com.asosiaciondeasis.animalesdeasis;
 import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
 import com.asosiaciondeasis.animalesdeasis.Config.FirebaseConfig;
 import com.asosiaciondeasis.animalesdeasis.Config.SQLiteSetup;
-import com.asosiaciondeasis.animalesdeasis.Service.SyncService;
+import com.asosiaciondeasis.animalesdeasis.Config.ServiceFactory;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncCoordinator;
 import com.asosiaciondeasis.animalesdeasis.Util.NetworkUtils;
 
-import java.sql.Connection;
-import java.util.Timer;
-import java.util.TimerTask;
-
 public class AppInitializer {
 
-    /**
-     * 24 Hours in milliseconds, because we need the sync with Firebase everytime the app initializes
-     * or every 24 hours.
-     */
-    private static final long SYNC_INTERVAL_MS = 24 * 60 * 60 * 1000;
-    private static SyncService syncService;
+    /** Startup flag that forces a full (non-incremental) reconcile instead of the regular sync. */
+    private static final String FULL_RECONCILE_PROPERTY = "animalesdeasis.sync.fullReconcile";
+    /** Opt-in listener on Firebase so edits from other workstations show up within a second. */
+    private static final String LIVE_SYNC_PROPERTY = "animalesdeasis.sync.live";
+    /** Startup flag that recomputes the statistics rollups from the animals table. */
+    private static final String REBUILD_STATS_PROPERTY = "animalesdeasis.stats.rebuild";
     private static boolean firebaseEnabled = false;
 
     public static void initializeApp() {
@@ -29,19 +26,32 @@ public class AppInitializer {
             firebaseEnabled = FirebaseConfig.initialize();
 
             //SQLite Connection
-            Connection conn = DatabaseConnection.getConnection();
+            DatabaseConnection.getConnection();
+
+            if (Boolean.getBoolean(REBUILD_STATS_PROPERTY)) {
+                // Launched with -Danimalesdeasis.stats.rebuild=true to repair the rollups.
+                SQLiteSetup.rebuildStatistics(DatabaseConnection.getConnection());
+                System.out.println("✅ Estadísticas reconstruidas");
+            }
 
-            // Only initialize sync service if Firebase is available
+            // Only start syncing if Firebase is available
             if (firebaseEnabled) {
-                syncService = new SyncService(conn);
+                // Periodic pulls, debounced pushes after edits and retries all go through it.
+                SyncCoordinator coordinator = ServiceFactory.getSyncCoordinator();
+                coordinator.start();
 
-                if (NetworkUtils.isInternetAvailable()) {
-                    syncService.sync();
-                } else {
+                if (!NetworkUtils.isInternetAvailable()) {
                     System.out.println("No internet connection available");
+                } else if (Boolean.getBoolean(FULL_RECONCILE_PROPERTY)) {
+                    // Launched with -Danimalesdeasis.sync.fullReconcile=true to repair drift.
+                    coordinator.reconcileNow().join();
+                } else {
+                    coordinator.syncNow().join();
                 }
 
-                schedulePeriodicSync();
+                if (Boolean.getBoolean(LIVE_SYNC_PROPERTY)) {
+                    coordinator.startLive();
+                }
             } else {
                 System.out.println("📱 Running in offline-only mode - no sync available");
             }
@@ -52,22 +62,4 @@ public class AppInitializer {
             throw new RuntimeException(e);
         }
     }
-
-
-    private static void schedulePeriodicSync() {
-        if (!firebaseEnabled) return;
-        Timer timer = new Timer(true);
-        timer.scheduleAtFixedRate(new TimerTask() {
-            @Override
-            public void run() {
-                if (NetworkUtils.isInternetAvailable()) {
-                    syncService.sync();
-                } else {
-                    System.out.println("No internet connection available");
-                }
-            }
-            // First run after 24h, then every 24h
-        }, SYNC_INTERVAL_MS, SYNC_INTERVAL_MS);
-
-    }
 }
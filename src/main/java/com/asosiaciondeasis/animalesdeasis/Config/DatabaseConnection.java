@@ -1,12 +1,15 @@
 package com.asosiaciondeasis.animalesdeasis.Config;
 
+import org.sqlite.SQLiteConfig;
+
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 
 /**
- * Provides the shared SQLite connection for the application.
+ * Provides the SQLite connections for the application: one writer for the UI, one
+ * writer dedicated to the sync, plus a small pool of read-only connections.
  *
  * <p>Every connection is opened with a set of PRAGMAs that are <b>per-connection</b>
  * in SQLite and therefore easy to forget:</p>
@@ -19,20 +22,40 @@ import java.sql.Statement;
  *   <li>{@code busy_timeout = 5000} — waits up to 5s for a lock instead of failing
  *       immediately with "database is locked".</li>
  * </ul>
+ *
+ * <p><b>Why a separate reader pool?</b> WAL only lets reads run alongside a write
+ * when they happen on <i>different</i> connections. With a single shared handle a
+ * long sync pull serialised every table/statistics query behind it. Readers are
+ * opened with {@code SQLITE_OPEN_READONLY} so a DAO can never write through one by
+ * mistake, and are handed out round-robin so concurrent screens rarely share one.</p>
+ *
+ * <p><b>Why a separate sync writer?</b> A pull page is one transaction. On a shared
+ * handle, an edit made by the UI meanwhile would silently join it: invisible to the
+ * readers until the page commits, and lost if it rolls back. On its own connection the
+ * edit is its own transaction and simply waits (busy_timeout) for the page to commit.
+ * The sync writer begins its transactions {@code IMMEDIATE}, so a page that reads before
+ * writing cannot fail to upgrade its lock after a UI edit committed in between.</p>
  */
 public class DatabaseConnection {
 
     private static final String DB_PATH = System.getProperty("user.home") + "/.asociaciondeasis/AsociacionDeAsis.db";
     private static final String DB_URL = "jdbc:sqlite:" + DB_PATH;
+
+    /** Number of read-only connections; overridable with {@code -Danimalesdeasis.db.readers=N}. */
+    private static final int READ_POOL_SIZE = Math.max(1, Integer.getInteger("animalesdeasis.db.readers", 3));
+
     private static Connection connection;
+    private static Connection syncConnection;
+    private static final Connection[] readers = new Connection[READ_POOL_SIZE];
+    private static int nextReader = 0;
 
     private DatabaseConnection() {
         // Private constructor to prevent instantiation
     }
 
     /**
-     * Returns the shared SQLite connection, (re)opening it if needed and applying
-     * the required PRAGMAs.
+     * Returns the shared writer connection, (re)opening it if needed and applying
+     * the required PRAGMAs. Every INSERT/UPDATE/DELETE must go through this one.
      */
     public static synchronized Connection getConnection() throws SQLException {
         if (connection == null || connection.isClosed()) {
@@ -42,6 +65,100 @@ public class DatabaseConnection {
         return connection;
     }
 
+    /** Alias of {@link #getConnection()} that makes the intent explicit at call sites. */
+    public static Connection getWriteConnection() throws SQLException {
+        return getConnection();
+    }
+
+    /**
+     * Returns the writer reserved for the sync, (re)opening it if needed. Only the sync
+     * coordinator's thread may use it.
+     */
+    public static synchronized Connection getSyncConnection() throws SQLException {
+        getConnection();
+        if (syncConnection == null || syncConnection.isClosed()) {
+            syncConnection = openSyncWriter(DB_URL);
+        }
+        return syncConnection;
+    }
+
+    /**
+     * Opens a read-write connection whose transactions begin {@code IMMEDIATE}, with the
+     * same PRAGMAs as the writer.
+     */
+    public static Connection openSyncWriter(String url) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setTransactionMode(SQLiteConfig.TransactionMode.IMMEDIATE);
+        Connection conn = DriverManager.getConnection(url, config.toProperties());
+        applyPragmas(conn);
+        return conn;
+    }
+
+    /**
+     * Returns one of the read-only connections, opening it lazily. The writer is
+     * opened first so the database is already in WAL mode (a read-only handle
+     * cannot switch the journal mode itself).
+     */
+    public static synchronized Connection getReadConnection() throws SQLException {
+        getConnection();
+        int slot = nextReader;
+        nextReader = (nextReader + 1) % READ_POOL_SIZE;
+
+        Connection reader = readers[slot];
+        if (reader == null || reader.isClosed()) {
+            reader = openReadOnly(DB_URL);
+            readers[slot] = reader;
+        }
+        return reader;
+    }
+
+    /**
+     * Opens a read-only connection ({@code SQLITE_OPEN_READONLY}) to the given JDBC
+     * URL with the same PRAGMAs as the writer.
+     */
+    public static Connection openReadOnly(String url) throws SQLException {
+        SQLiteConfig config = new SQLiteConfig();
+        config.setReadOnly(true);
+        Connection conn = DriverManager.getConnection(url, config.toProperties());
+        applyPragmas(conn);
+        return conn;
+    }
+
+    /** Unit of database work run by {@link #inTransaction}. */
+    @FunctionalInterface
+    public interface SqlWork<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * Runs {@code work} inside a single transaction on {@code conn}: committed if it
+     * returns normally, rolled back if it throws. Bulk writes should always go
+     * through here — in autocommit mode every statement pays its own fsync.
+     *
+     * <p>If the connection is already inside a transaction the work simply joins
+     * it, so DAO bulk methods can be composed into a larger unit (e.g. a sync pull).
+     * The connection is locked for the duration so another thread sharing the
+     * writer cannot interleave its own transaction.</p>
+     */
+    public static <T> T inTransaction(Connection conn, SqlWork<T> work) throws Exception {
+        synchronized (conn) {
+            if (!conn.getAutoCommit()) {
+                return work.run();
+            }
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run();
+                conn.commit();
+                return result;
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
     /** Applies the per-connection PRAGMAs described in the class Javadoc. */
     public static void applyPragmas(Connection conn) throws SQLException {
         try (Statement stmt = conn.createStatement()) {
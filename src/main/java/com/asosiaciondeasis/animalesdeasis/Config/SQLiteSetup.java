@@ -1,6 +1,7 @@
 package com.asosiaciondeasis.animalesdeasis.Config;
 
 import com.asosiaciondeasis.animalesdeasis.DAO.DataImporter;
+import com.asosiaciondeasis.animalesdeasis.Util.HybridLogicalClock;
 
 import java.io.File;
 import java.sql.Connection;
@@ -132,20 +133,336 @@ public class SQLiteSetup {
                 );
                 """;
 
+        // One row per Firestore collection: the newest remote lastModified already pulled,
+        // so the next sync only asks Firestore for documents changed since then.
+        String createSyncState = """
+                CREATE TABLE IF NOT EXISTS sync_state (
+                    collection TEXT PRIMARY KEY,
+                    high_water_mark TEXT NOT NULL -- Format: yyyy-MM-dd HH:mm:ss (same as last_modified)
+                );
+                """;
+
+        // Outbox of local changes waiting to be pushed, filled only by the triggers below.
+        String createChangeLog = """
+                CREATE TABLE IF NOT EXISTS change_log (
+                    seq INTEGER PRIMARY KEY AUTOINCREMENT, -- push order
+                    entity TEXT NOT NULL CHECK (entity IN ('animal', 'vaccine')),
+                    entity_id TEXT NOT NULL, -- record_number / vaccine id
+                    parent_id TEXT, -- animal_record_number for vaccines (needed to address deleted ones)
+                    op TEXT NOT NULL CHECK (op IN ('upsert', 'delete')),
+                    fields TEXT, -- comma-separated document fields an update changed, NULL = whole document
+                    changed_at TEXT NOT NULL DEFAULT (datetime('now', 'utc'))
+                );
+                """;
+
+        // Version of every document known to be in Firebase, maintained by the sync only. Its
+        // per-bucket digests are compared with Firestore's sync_digests to find drifted buckets.
+        String createRemoteVersions = """
+                CREATE TABLE IF NOT EXISTS remote_versions (
+                    entity TEXT NOT NULL CHECK (entity IN ('animal', 'vaccine')),
+                    entity_id TEXT NOT NULL,
+                    bucket TEXT NOT NULL, -- record-number prefix of the animal (of the owner for vaccines)
+                    version TEXT, -- lastModified of the remote document
+                    PRIMARY KEY (entity, entity_id)
+                );
+                """;
+
+        // Statistics rollups, kept current by the trg_animals_stats_* triggers (see createStatisticsTriggers).
+        String createStatsMonthly = """
+                CREATE TABLE IF NOT EXISTS stats_monthly (
+                    year INTEGER NOT NULL,
+                    month INTEGER NOT NULL,
+                    species TEXT NOT NULL,
+                    admitted INTEGER NOT NULL,
+                    adopted INTEGER NOT NULL,
+                    PRIMARY KEY (year, month, species)
+                ) WITHOUT ROWID;
+                """;
+
+        String createStatsOrigin = """
+                CREATE TABLE IF NOT EXISTS stats_origin (
+                    year INTEGER NOT NULL,
+                    place_id INTEGER NOT NULL,
+                    count INTEGER NOT NULL,
+                    PRIMARY KEY (year, place_id)
+                ) WITHOUT ROWID;
+                """;
+
+        // One row per sync run (durations in ms, sizes in bytes), pruned by SyncService.
+        String createSyncRuns = """
+                CREATE TABLE IF NOT EXISTS sync_runs (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    started_at INTEGER NOT NULL, -- epoch milliseconds
+                    full_reconcile INTEGER NOT NULL,
+                    success INTEGER NOT NULL,
+                    error TEXT,
+                    probe_ms INTEGER NOT NULL,
+                    pull_animals_ms INTEGER NOT NULL,
+                    pull_vaccines_ms INTEGER NOT NULL,
+                    local_ms INTEGER NOT NULL,
+                    push_ms INTEGER NOT NULL,
+                    total_ms INTEGER NOT NULL,
+                    docs_read INTEGER NOT NULL,
+                    rows_written INTEGER NOT NULL,
+                    docs_pushed INTEGER NOT NULL,
+                    bytes_read INTEGER NOT NULL,
+                    bytes_pushed INTEGER NOT NULL,
+                    conflicts INTEGER NOT NULL,
+                    retries INTEGER NOT NULL
+                );
+                """;
+
         try (Statement stmt = conn.createStatement()) {
             stmt.execute(createProvinces);
             stmt.execute(createPlaces);
             stmt.execute(createAnimals);
             stmt.execute(createVaccines);
+            stmt.execute(createSyncState);
+            stmt.execute(createChangeLog);
+            stmt.execute(createSyncRuns);
+            stmt.execute(createRemoteVersions);
+            stmt.execute(createStatsMonthly);
+            stmt.execute(createStatsOrigin);
+            addColumnIfMissing(stmt, "change_log", "fields", "TEXT");
+            // HybridLogicalClock stamp of the last write; 0 for rows written before it existed.
+            addColumnIfMissing(stmt, "animals", "hlc", "INTEGER NOT NULL DEFAULT 0");
+            addColumnIfMissing(stmt, "vaccines", "hlc", "INTEGER NOT NULL DEFAULT 0");
+            // Calendar parts of admission_date, the keys of the statistics rollups.
+            // Generated columns added by ALTER TABLE must be VIRTUAL.
+            addColumnIfMissing(stmt, "animals", "admission_year",
+                    "INTEGER GENERATED ALWAYS AS (CAST(strftime('%Y', admission_date) AS INTEGER)) VIRTUAL");
+            addColumnIfMissing(stmt, "animals", "admission_month",
+                    "INTEGER GENERATED ALWAYS AS (CAST(strftime('%m', admission_date) AS INTEGER)) VIRTUAL");
 
             // --- Indexes for the hot query paths (sync filters, listings, joins) ---
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_animals_synced ON animals(synced)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_animals_active ON animals(active)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_animals_admission_date ON animals(admission_date)");
+            // Covers the management table's keyset pagination (filter on active, seek on the sort key).
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_animals_listing ON animals(active, admission_date DESC, record_number DESC)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_animals_place_id ON animals(place_id)");
+            // The in-memory statistics re-read only the rows stamped after a local edit.
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_animals_hlc ON animals(hlc)");
+            // The statistics read the rollups now; these only slowed every write down.
+            stmt.execute("DROP INDEX IF EXISTS idx_animals_admission_month");
+            stmt.execute("DROP INDEX IF EXISTS idx_animals_admission_place");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_vaccines_animal ON vaccines(animal_record_number)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_vaccines_synced ON vaccines(synced)");
             stmt.execute("CREATE INDEX IF NOT EXISTS idx_places_province ON places(province_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_change_log_entity ON change_log(entity, entity_id)");
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_remote_versions_bucket ON remote_versions(bucket)");
+
+            createChangeLogTriggers(stmt);
+            createStatisticsTriggers(stmt);
+
+            // Databases created before the rollups: fill them from the animals already there.
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT NOT EXISTS (SELECT 1 FROM stats_monthly) AND EXISTS (SELECT 1 FROM animals)")) {
+                if (rs.next() && rs.getBoolean(1)) rebuildStatistics(stmt);
+            }
+
+            // New stamps must stay above the ones already on disk, even if the clock went back.
+            try (ResultSet rs = stmt.executeQuery(
+                    "SELECT max((SELECT coalesce(max(hlc), 0) FROM animals), (SELECT coalesce(max(hlc), 0) FROM vaccines))")) {
+                if (rs.next()) HybridLogicalClock.observe(rs.getLong(1));
+            }
+
+            // Databases created before remote_versions: synced rows are what Firebase holds.
+            boolean hasRemoteVersions;
+            try (ResultSet rs = stmt.executeQuery("SELECT EXISTS (SELECT 1 FROM remote_versions)")) {
+                hasRemoteVersions = rs.next() && rs.getBoolean(1);
+            }
+            if (!hasRemoteVersions) {
+                stmt.execute("""
+                        INSERT OR IGNORE INTO remote_versions (entity, entity_id, bucket, version)
+                        SELECT 'animal', record_number, substr(record_number, 1, 2), last_modified
+                        FROM animals WHERE synced = 1
+                        """);
+                stmt.execute("""
+                        INSERT OR IGNORE INTO remote_versions (entity, entity_id, bucket, version)
+                        SELECT 'vaccine', id, substr(animal_record_number, 1, 2), last_modified
+                        FROM vaccines WHERE synced = 1
+                        """);
+            }
         }
     }
+
+    /** Adds a column to a table created by an older version of the app (SQLite has no ADD COLUMN IF NOT EXISTS). */
+    private static void addColumnIfMissing(Statement stmt, String table, String column, String definition) throws java.sql.SQLException {
+        // table_xinfo also lists generated columns, which table_info hides.
+        try (ResultSet rs = stmt.executeQuery("PRAGMA table_xinfo(" + table + ")")) {
+            while (rs.next()) {
+                if (column.equalsIgnoreCase(rs.getString("name"))) return;
+            }
+        }
+        stmt.execute("ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+    }
+
+    /**
+     * Recomputes {@code stats_monthly} and {@code stats_origin} from {@code animals}, in one
+     * transaction. The triggers keep them current, so this is only needed to repair them
+     * (start the app with {@code -Danimalesdeasis.stats.rebuild=true}).
+     */
+    public static void rebuildStatistics(Connection conn) throws Exception {
+        DatabaseConnection.inTransaction(conn, () -> {
+            try (Statement stmt = conn.createStatement()) {
+                rebuildStatistics(stmt);
+            }
+            return null;
+        });
+    }
+
+    private static void rebuildStatistics(Statement stmt) throws java.sql.SQLException {
+        stmt.execute("DELETE FROM stats_monthly");
+        stmt.execute("DELETE FROM stats_origin");
+        stmt.execute("""
+                INSERT INTO stats_monthly (year, month, species, admitted, adopted)
+                SELECT admission_year, admission_month, species, COUNT(*), SUM(adopted = 1)
+                FROM animals WHERE admission_year IS NOT NULL
+                GROUP BY admission_year, admission_month, species
+                """);
+        stmt.execute("""
+                INSERT INTO stats_origin (year, place_id, count)
+                SELECT admission_year, place_id, COUNT(*)
+                FROM animals WHERE admission_year IS NOT NULL
+                GROUP BY admission_year, place_id
+                """);
+    }
+
+    /**
+     * Installs the triggers that keep the statistics rollups in step with {@code animals}:
+     * an insert adds the row to its (year, month, species) and (year, place) groups, a delete
+     * takes it out, and an update that changes one of the grouped columns does both. Groups
+     * that reach zero are removed. Rows are counted whether active or not, as the statistics
+     * always did, and rows without a valid admission date are not counted.
+     */
+    private static void createStatisticsTriggers(Statement stmt) throws java.sql.SQLException {
+        String add = """
+                    INSERT INTO stats_monthly (year, month, species, admitted, adopted)
+                    SELECT NEW.admission_year, NEW.admission_month, NEW.species, 1, NEW.adopted = 1
+                    WHERE NEW.admission_year IS NOT NULL
+                    ON CONFLICT (year, month, species) DO UPDATE SET
+                        admitted = admitted + 1, adopted = adopted + excluded.adopted;
+                    INSERT INTO stats_origin (year, place_id, count)
+                    SELECT NEW.admission_year, NEW.place_id, 1
+                    WHERE NEW.admission_year IS NOT NULL
+                    ON CONFLICT (year, place_id) DO UPDATE SET count = count + 1;
+                """;
+        String remove = """
+                    UPDATE stats_monthly SET admitted = admitted - 1, adopted = adopted - (OLD.adopted = 1)
+                    WHERE year = OLD.admission_year AND month = OLD.admission_month AND species = OLD.species;
+                    DELETE FROM stats_monthly
+                    WHERE year = OLD.admission_year AND month = OLD.admission_month AND species = OLD.species AND admitted <= 0;
+                    UPDATE stats_origin SET count = count - 1
+                    WHERE year = OLD.admission_year AND place_id = OLD.place_id;
+                    DELETE FROM stats_origin
+                    WHERE year = OLD.admission_year AND place_id = OLD.place_id AND count <= 0;
+                """;
+
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_animals_stats_insert AFTER INSERT ON animals\nBEGIN\n" + add + "END;");
+        stmt.execute("CREATE TRIGGER IF NOT EXISTS trg_animals_stats_delete AFTER DELETE ON animals\nBEGIN\n" + remove + "END;");
+        stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_animals_stats_update AFTER UPDATE OF admission_date, species, adopted, place_id ON animals
+                WHEN OLD.admission_date IS NOT NEW.admission_date OR OLD.species IS NOT NEW.species
+                  OR OLD.adopted IS NOT NEW.adopted OR OLD.place_id IS NOT NEW.place_id
+                BEGIN
+                """ + remove + add + "END;");
+    }
+
+    /**
+     * Installs the triggers that feed {@code change_log}, and backfills it with rows that were
+     * already pending before the outbox existed.
+     *
+     * <p>Every local edit goes through the DAOs with {@code synced = 0}, while rows written by
+     * the sync (pulled from Firebase, or flagged after a push) carry {@code synced = 1}; that
+     * flag alone decides whether an insert/update is logged. Deletes are always logged as
+     * tombstones, which makes offline deletes reach Firebase on the next push; the sync drops
+     * the ones it causes itself through a TEMP trigger on its own connection
+     * (see {@code ChangeLogDAO#setApplyRemote}).</p>
+     *
+     * <p>Animal updates also record which fields they changed, so the push can send just those;
+     * inserts and the backfill leave {@code fields} NULL and push the whole document.</p>
+     */
+    private static void createChangeLogTriggers(Statement stmt) throws java.sql.SQLException {
+        stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_animals_log_insert AFTER INSERT ON animals
+                WHEN NEW.synced = 0
+                BEGIN
+                    INSERT INTO change_log (entity, entity_id, op) VALUES ('animal', NEW.record_number, 'upsert');
+                END;
+                """);
+        // Recreated on every start so databases with the previous version get the field list.
+        // The names are the Firestore document fields (see DocumentFields).
+        stmt.execute("DROP TRIGGER IF EXISTS trg_animals_log_update");
+        stmt.execute("""
+                CREATE TRIGGER trg_animals_log_update AFTER UPDATE ON animals
+                WHEN NEW.synced = 0
+                BEGIN
+                    INSERT INTO change_log (entity, entity_id, op, fields) VALUES ('animal', NEW.record_number, 'upsert',
+                        rtrim(
+                            CASE WHEN OLD.chip_number IS NOT NEW.chip_number THEN 'chipNumber,' ELSE '' END ||
+                            CASE WHEN OLD.barcode IS NOT NEW.barcode THEN 'barcode,' ELSE '' END ||
+                            CASE WHEN OLD.admission_date IS NOT NEW.admission_date THEN 'admissionDate,' ELSE '' END ||
+                            CASE WHEN OLD.collected_by IS NOT NEW.collected_by THEN 'collectedBy,' ELSE '' END ||
+                            CASE WHEN OLD.place_id IS NOT NEW.place_id THEN 'placeId,' ELSE '' END ||
+                            CASE WHEN OLD.reason_for_rescue IS NOT NEW.reason_for_rescue THEN 'reasonForRescue,' ELSE '' END ||
+                            CASE WHEN OLD.species IS NOT NEW.species THEN 'species,' ELSE '' END ||
+                            CASE WHEN OLD.approximate_age IS NOT NEW.approximate_age THEN 'approximateAge,' ELSE '' END ||
+                            CASE WHEN OLD.sex IS NOT NEW.sex THEN 'sex,' ELSE '' END ||
+                            CASE WHEN OLD.name IS NOT NEW.name THEN 'name,' ELSE '' END ||
+                            CASE WHEN OLD.ailments IS NOT NEW.ailments THEN 'ailments,' ELSE '' END ||
+                            CASE WHEN OLD.neutering_date IS NOT NEW.neutering_date THEN 'neuteringDate,' ELSE '' END ||
+                            CASE WHEN OLD.adopted IS NOT NEW.adopted THEN 'adopted,' ELSE '' END ||
+                            CASE WHEN OLD.active IS NOT NEW.active THEN 'active,' ELSE '' END,
+                        ','));
+                END;
+                """);
+        // Recreated without the shared sync_control switch, which suppressed everyone's deletes.
+        stmt.execute("DROP TRIGGER IF EXISTS trg_animals_log_delete");
+        stmt.execute("DROP TRIGGER IF EXISTS trg_vaccines_log_delete");
+        stmt.execute("DROP TABLE IF EXISTS sync_control");
+        stmt.execute("""
+                CREATE TRIGGER trg_animals_log_delete AFTER DELETE ON animals
+                BEGIN
+                    INSERT INTO change_log (entity, entity_id, op) VALUES ('animal', OLD.record_number, 'delete');
+                END;
+                """);
+        stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_vaccines_log_insert AFTER INSERT ON vaccines
+                WHEN NEW.synced = 0
+                BEGIN
+                    INSERT INTO change_log (entity, entity_id, parent_id, op)
+                    VALUES ('vaccine', NEW.id, NEW.animal_record_number, 'upsert');
+                END;
+                """);
+        stmt.execute("""
+                CREATE TRIGGER IF NOT EXISTS trg_vaccines_log_update AFTER UPDATE ON vaccines
+                WHEN NEW.synced = 0
+                BEGIN
+                    INSERT INTO change_log (entity, entity_id, parent_id, op)
+                    VALUES ('vaccine', NEW.id, NEW.animal_record_number, 'upsert');
+                END;
+                """);
+        stmt.execute("""
+                CREATE TRIGGER trg_vaccines_log_delete AFTER DELETE ON vaccines
+                BEGIN
+                    INSERT INTO change_log (entity, entity_id, parent_id, op)
+                    VALUES ('vaccine', OLD.id, OLD.animal_record_number, 'delete');
+                END;
+                """);
+
+        // Databases created before the outbox: queue whatever is still unsynced (idempotent).
+        stmt.execute("""
+                INSERT INTO change_log (entity, entity_id, op)
+                SELECT 'animal', record_number, 'upsert' FROM animals
+                WHERE synced = 0
+                  AND record_number NOT IN (SELECT entity_id FROM change_log WHERE entity = 'animal')
+                """);
+        stmt.execute("""
+                INSERT INTO change_log (entity, entity_id, parent_id, op)
+                SELECT 'vaccine', id, animal_record_number, 'upsert' FROM vaccines
+                WHERE synced = 0
+                  AND id NOT IN (SELECT entity_id FROM change_log WHERE entity = 'vaccine')
+                """);
+    }
 }
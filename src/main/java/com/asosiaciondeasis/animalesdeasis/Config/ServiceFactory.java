@@ -3,10 +3,14 @@ package com.asosiaciondeasis.animalesdeasis.Config;
 import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
 import com.asosiaciondeasis.animalesdeasis.DAO.Places.PlacesDAO;
 import com.asosiaciondeasis.animalesdeasis.DAO.Statistics.StatisticsDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncRunDAO;
 import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
 import com.asosiaciondeasis.animalesdeasis.Service.Animal.AnimalService;
 import com.asosiaciondeasis.animalesdeasis.Service.Place.PlaceService;
+import com.asosiaciondeasis.animalesdeasis.Service.Statistics.AnimalAnalytics;
+import com.asosiaciondeasis.animalesdeasis.Service.Statistics.CachingStatisticsService;
 import com.asosiaciondeasis.animalesdeasis.Service.Statistics.StatisticsService;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncCoordinator;
 import com.asosiaciondeasis.animalesdeasis.Service.SyncService;
 import com.asosiaciondeasis.animalesdeasis.Service.Vaccine.VaccineService;
 import com.asosiaciondeasis.animalesdeasis.Util.Exporters.CsvStatisticsExporter;
@@ -16,12 +20,16 @@ import java.sql.SQLException;
 
 /**
  * Utility class designed to provide singleton-like access to various services and DAO (Data Access Object) instances throughout the application.
- * It centralizes the creation of these objects, ensuring they all share the same database connection
+ * It centralizes the creation of these objects: every DAO writes through the single writer connection and reads
+ * through one of the read-only connections handed out by {@link DatabaseConnection}.
  */
 
 public class ServiceFactory {
 
     private static final Connection conn;
+    private static SyncCoordinator syncCoordinator;
+    private static CachingStatisticsService statisticsService;
+    private static AnimalAnalytics animalAnalytics;
 
     static {
         try {
@@ -31,23 +39,64 @@ public class ServiceFactory {
         }
     }
 
+    /** Next read-only connection from the pool. */
+    private static Connection readConn() {
+        try {
+            return DatabaseConnection.getReadConnection();
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to open a read-only database connection", e);
+        }
+    }
+
     public static AnimalService getAnimalService() {
-        return new AnimalService(new AnimalDAO(conn));
+        return new AnimalService(new AnimalDAO(conn, readConn()));
     }
 
     public static VaccineService getVaccineService() {
-        return new VaccineService(new VaccineDAO(conn));
+        return new VaccineService(new VaccineDAO(conn, readConn()));
     }
 
-    public static StatisticsService getStatisticsService() {
-        return new StatisticsService(new StatisticsDAO(conn));
+    /** Shared by the statistics screen and the CSV export, so both hit the same cached years. */
+    public static synchronized CachingStatisticsService getStatisticsService() {
+        if (statisticsService == null) {
+            statisticsService = new CachingStatisticsService(
+                    new StatisticsService(new StatisticsDAO(readConn()), getAnimalAnalytics()));
+            statisticsService.start();
+        }
+        return statisticsService;
+    }
+
+    /** The in-memory statistics columns, loaded once and kept current by the change events. */
+    public static synchronized AnimalAnalytics getAnimalAnalytics() {
+        if (animalAnalytics == null) {
+            animalAnalytics = new AnimalAnalytics(new StatisticsDAO(readConn()));
+            animalAnalytics.start();
+        }
+        return animalAnalytics;
     }
 
-    public static PlaceService getPlaceService() {return new PlaceService(new PlacesDAO(conn));}
+    public static PlaceService getPlaceService() {return new PlaceService(new PlacesDAO(readConn()));}
+
+    // Sync reads and writes inside the same transaction, on its own writer so UI edits never join it.
+    public static SyncService getSyncService() {
+        try {
+            return new SyncService(DatabaseConnection.getSyncConnection());
+        } catch (SQLException e) {
+            throw new RuntimeException("Failed to open the sync database connection", e);
+        }
+    }
+
+    /** The one coordinator every sync must go through, so runs never overlap. */
+    public static synchronized SyncCoordinator getSyncCoordinator() {
+        if (syncCoordinator == null) {
+            syncCoordinator = new SyncCoordinator(getSyncService());
+        }
+        return syncCoordinator;
+    }
 
-    public static SyncService getSyncService() {return new SyncService(conn);}
+    public static StatisticsDAO getStatisticsDAO() {return new StatisticsDAO(readConn());}
 
-    public static StatisticsDAO getStatisticsDAO() {return new StatisticsDAO(conn);}
+    public static SyncRunDAO getSyncRunDAO() {return new SyncRunDAO(readConn());}
 
-    public static CsvStatisticsExporter getCsvStatisticsExporter() {return new CsvStatisticsExporter(getStatisticsDAO());}
+    public static CsvStatisticsExporter getCsvStatisticsExporter() {return new CsvStatisticsExporter(getStatisticsService());}
 }
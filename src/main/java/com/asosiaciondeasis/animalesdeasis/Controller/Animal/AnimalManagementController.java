@@ -1,9 +1,13 @@
 package com.asosiaciondeasis.animalesdeasis.Controller.Animal;
 
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Animals.IAnimalService;
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.IPortalAwareController;
 import com.asosiaciondeasis.animalesdeasis.Config.ServiceFactory;
 import com.asosiaciondeasis.animalesdeasis.Controller.PortalController;
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalSummary;
+import com.asosiaciondeasis.animalesdeasis.Model.PageCursor;
 import com.asosiaciondeasis.animalesdeasis.Service.SyncService;
 import com.asosiaciondeasis.animalesdeasis.Util.BarcodeScannerUtil;
 import com.asosiaciondeasis.animalesdeasis.Util.DateUtils;
@@ -18,25 +22,26 @@ import javafx.fxml.FXMLLoader;
 import javafx.geometry.Pos;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
-import javafx.scene.control.cell.PropertyValueFactory;
 import javafx.scene.layout.HBox;
 import javafx.util.Duration;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AnimalManagementController implements IPortalAwareController {
 
     private final int ROWS_PER_PAGE = 20;
     // Table components
-    @FXML private TableView<Animal> animalTable;
-    @FXML private TableColumn<Animal, String> idAdmissionDate;
-    @FXML private TableColumn<Animal, String> nameColumn;
-    @FXML private TableColumn<Animal, String> speciesColumn;
-    @FXML private TableColumn<Animal, String> sexColumn;
-    @FXML private TableColumn<Animal, String> adoptedColumn;
-    @FXML private TableColumn<Animal, Void> actionsColumn;
+    @FXML private TableView<AnimalSummary> animalTable;
+    @FXML private TableColumn<AnimalSummary, String> idAdmissionDate;
+    @FXML private TableColumn<AnimalSummary, String> nameColumn;
+    @FXML private TableColumn<AnimalSummary, String> speciesColumn;
+    @FXML private TableColumn<AnimalSummary, String> sexColumn;
+    @FXML private TableColumn<AnimalSummary, String> adoptedColumn;
+    @FXML private TableColumn<AnimalSummary, Void> actionsColumn;
     @FXML private Pagination pagination;
     @FXML private Button CreateAnimal;
 
@@ -56,8 +61,12 @@ public class AnimalManagementController implements IPortalAwareController {
     private final BarcodeScannerUtil scannerUtil = new BarcodeScannerUtil();
     private String scannedChipNumber = null;
     private PortalController portalController;
-    private List<Animal> allAnimals;
-    private List<Animal> filteredAnimals;
+    private final IAnimalService animalService = ServiceFactory.getAnimalService();
+    // Only the visible page is held in memory; the rest stays in SQLite.
+    private AnimalFilter currentFilter = AnimalFilter.activeOnly();
+    private int totalAnimals;
+    // Keyset cursor each page starts after (page 0 has none), filled in as pages are visited.
+    private final Map<Integer, PageCursor> pageCursors = new HashMap<>();
     private boolean filtersVisible = false;
     private Runnable syncListener;
 
@@ -73,8 +82,7 @@ public class AnimalManagementController implements IPortalAwareController {
     public void initialize() {
         try {
             // Initialize the animal table and pagination
-            allAnimals = ServiceFactory.getAnimalService().getActiveAnimals();
-            filteredAnimals = allAnimals; // Initially, all animals are shown
+            totalAnimals = animalService.countByFilters(currentFilter);
             initializeComboBoxes();
             setUpTables(); //Set up the table columns and pagination
             addActionButtons();
@@ -94,23 +102,23 @@ public class AnimalManagementController implements IPortalAwareController {
     private void setUpTables() {
         // Initialize the table columns and pagination
 
+        // Rows are AnimalSummary records, whose accessors PropertyValueFactory can't see.
         nameColumn.setCellValueFactory(cellData -> {
-            String name = cellData.getValue().getName();
+            String name = cellData.getValue().name();
             return new ReadOnlyStringWrapper((name == null || name.trim().isEmpty()) ? "N/A" : name);
         });
-        speciesColumn.setCellValueFactory(new PropertyValueFactory<>("species"));
+        speciesColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().species()));
 
         idAdmissionDate.setCellValueFactory(cellData -> {
-            String utcDate = cellData.getValue().getAdmissionDate();
+            String utcDate = cellData.getValue().admissionDate();
             String formattedDate = DateUtils.formatUtcForDisplay(utcDate);
             return new SimpleStringProperty(formattedDate);
         });
 
-        sexColumn.setCellValueFactory(new PropertyValueFactory<>("sex"));
+        sexColumn.setCellValueFactory(cellData -> new ReadOnlyStringWrapper(cellData.getValue().sex()));
 
-        adoptedColumn.setCellValueFactory(new PropertyValueFactory<>("adopted"));
         adoptedColumn.setCellValueFactory(cellData -> {
-            boolean isAdopted = cellData.getValue().isAdopted();
+            boolean isAdopted = cellData.getValue().adopted();
             String status = isAdopted ? "✅ Adoptado" : "❌ No";
             return new ReadOnlyStringWrapper(status);
         });
@@ -118,53 +126,62 @@ public class AnimalManagementController implements IPortalAwareController {
 
     /**
      * Loads the animals for the specified page index and updates the table view.
+     * Only the visible rows are fetched, using the cursor left by the previous page
+     * (or a key-only lookup when the user jumps straight to a page not visited yet).
      *
      * @param pageIndex The index of the page to load.
      */
     private void loadAnimals(int pageIndex) {
-        // Load animals for the specified page index
-        int fromIndex = pageIndex * ROWS_PER_PAGE;
-        int toIndex = Math.min(fromIndex + ROWS_PER_PAGE, filteredAnimals.size());
+        try {
+            if (pageIndex * ROWS_PER_PAGE >= totalAnimals) {
+                animalTable.getItems().clear();
+                return;
+            }
+
+            PageCursor after = null;
+            if (pageIndex > 0) {
+                after = pageCursors.get(pageIndex);
+                if (after == null) {
+                    after = animalService.findCursorAt(currentFilter, pageIndex * ROWS_PER_PAGE - 1);
+                    pageCursors.put(pageIndex, after);
+                }
+            }
 
-        if (fromIndex < filteredAnimals.size()) {
-            List<Animal> pageAnimals = filteredAnimals.subList(fromIndex, toIndex);
+            List<AnimalSummary> pageAnimals = animalService.findSummaryPage(currentFilter, after, ROWS_PER_PAGE);
+            if (!pageAnimals.isEmpty()) {
+                pageCursors.put(pageIndex + 1, pageAnimals.get(pageAnimals.size() - 1).toCursor());
+            }
             animalTable.getItems().setAll(pageAnimals);
-        } else {
-            animalTable.getItems().clear();
+        } catch (Exception e) {
+            NavigationHelper.showErrorAlert("Error", "No se pudieron cargar los animales", e.getMessage());
         }
     }
 
     /**
      * Sets up the pagination control for the animal table.
      * Calculates the total number of pages and configures the page factory.
+     * Cached cursors are dropped because they belong to the previous filter/data.
      */
     private void setUpPagination() {
-        int totalAnimals = filteredAnimals.size();
+        pageCursors.clear();
         int totalPages = (int) Math.ceil((double) totalAnimals / ROWS_PER_PAGE);
 
         pagination.setPageCount(Math.max(totalPages, 1));
         pagination.setCurrentPageIndex(0);
 
-        // Fix: Return the actual table instead of a Label
+        // The factory runs on every page change, and for the current page whenever it is
+        // replaced, which loads page 0 here.
         pagination.setPageFactory(pageIndex -> {
             loadAnimals(pageIndex);
-            return new Label(); // Return the table itself
-        });
-
-        pagination.currentPageIndexProperty().addListener((obs, oldIndex, newIndex) -> {
-            if (newIndex != null) {
-                loadAnimals(newIndex.intValue());
-            }
+            return new Label();
         });
-
-        loadAnimals(0);
     }
 
     /**
      * Updates the label that displays the total number of animals currently shown.
      */
     private void updateResultsCount() {
-        resultsCountLabel.setText("Total: " + filteredAnimals.size() + " animales");
+        resultsCountLabel.setText("Total: " + totalAnimals + " animales");
     }
 
     /**
@@ -240,13 +257,14 @@ public class AnimalManagementController implements IPortalAwareController {
                 return;
             }
 
-            filteredAnimals = ServiceFactory.getAnimalService().findByFilters(species, startDateStr, endDateStr,chipNumber ,showInactive);
+            currentFilter = new AnimalFilter(species, startDateStr, endDateStr, chipNumber, showInactive);
+            totalAnimals = animalService.countByFilters(currentFilter);
             setUpPagination();
             updateResultsCount();
 
-            String message = filteredAnimals.isEmpty() ?
+            String message = totalAnimals == 0 ?
                     "No se encontraron animales con los filtros seleccionados." :
-                    "Se encontraron " + filteredAnimals.size() + " animales.";
+                    "Se encontraron " + totalAnimals + " animales.";
 
             NavigationHelper.showSuccessAlert("Filtros aplicados", message);
 
@@ -270,7 +288,12 @@ public class AnimalManagementController implements IPortalAwareController {
         chipNumberFilter.clear();
         scannedChipNumber = null;
 
-        filteredAnimals = allAnimals;
+        try {
+            currentFilter = AnimalFilter.activeOnly();
+            totalAnimals = animalService.countByFilters(currentFilter);
+        } catch (Exception e) {
+            NavigationHelper.showErrorAlert("Error", "No se pudieron cargar los animales", e.getMessage());
+        }
         setUpPagination();
         updateResultsCount();
 
@@ -329,9 +352,10 @@ public class AnimalManagementController implements IPortalAwareController {
                 return button;
             }
             private void handleEditAnimal() {
-                Animal animal = getTableView().getItems().get(getIndex());
+                AnimalSummary summary = getTableView().getItems().get(getIndex());
                 if (portalController != null) {
                     try {
+                        Animal animal = loadFullAnimal(summary);
                         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Animal/EditAnimal.fxml"));
                         Parent root = loader.load();
                         EditAnimalController editController = loader.getController();
@@ -344,15 +368,15 @@ public class AnimalManagementController implements IPortalAwareController {
                 }
             }
             private void handleDeleteAnimal() {
-                Animal animal = getTableView().getItems().get(getIndex());
+                AnimalSummary animal = getTableView().getItems().get(getIndex());
 
                 boolean confirmed = NavigationHelper.showConfirmationAlert("Confirmar eliminación",
                         "¿Estás seguro de que deseas eliminar este animal?",
-                        "Animal: " + animal.getName() + " - " + animal.getSpecies());
+                        "Animal: " + animal.name() + " - " + animal.species());
 
                 if (confirmed) {
                     try {
-                        ServiceFactory.getAnimalService().deleteAnimal(animal.getRecordNumber());
+                        animalService.deleteAnimal(animal.recordNumber());
                         refreshAnimalList();
                         NavigationHelper.showSuccessAlert("Éxito", "Animal eliminado correctamente.");
                     } catch (Exception e) {
@@ -361,9 +385,10 @@ public class AnimalManagementController implements IPortalAwareController {
                 }
             }
             private void handleDetailAnimal() {
-                Animal animal = getTableView().getItems().get(getIndex());
+                AnimalSummary summary = getTableView().getItems().get(getIndex());
                 if (portalController != null) {
                     try {
+                        Animal animal = loadFullAnimal(summary);
                         FXMLLoader loader = new FXMLLoader(getClass().getResource("/fxml/Animal/DetailAnimal.fxml"));
                         Parent root = loader.load();
                         DetailAnimalController detailController = loader.getController();
@@ -376,13 +401,13 @@ public class AnimalManagementController implements IPortalAwareController {
                 }
             }
             private void handleReactivateAnimal() {
-                Animal animal = getTableView().getItems().get(getIndex());
+                AnimalSummary animal = getTableView().getItems().get(getIndex());
                 boolean confirmed = NavigationHelper.showConfirmationAlert("Confirmar reactivación",
                         "¿Estás seguro de que deseas reactivar este animal?",
-                        "Animal: " + animal.getName() + " - " + animal.getSpecies());
+                        "Animal: " + animal.name() + " - " + animal.species());
                 if (confirmed) {
                     try {
-                        ServiceFactory.getAnimalService().reactivateAnimal(animal.getRecordNumber());
+                        animalService.reactivateAnimal(animal.recordNumber());
                         refreshAnimalList();
                         NavigationHelper.showSuccessAlert("Éxito", "Animal reactivado correctamente.");
                     } catch (Exception e) {
@@ -393,6 +418,20 @@ public class AnimalManagementController implements IPortalAwareController {
         });
     }
 
+    /**
+     * Loads the complete record behind a table row. The table only holds {@link AnimalSummary}
+     * projections, so the detail and edit views fetch the full animal on demand.
+     *
+     * @throws Exception if the animal no longer exists (e.g. removed by a sync).
+     */
+    private Animal loadFullAnimal(AnimalSummary summary) throws Exception {
+        Animal animal = animalService.findByRecordNumber(summary.recordNumber());
+        if (animal == null) {
+            throw new Exception("El animal ya no existe en la base de datos.");
+        }
+        return animal;
+    }
+
     /**
      * Returns the filter value if it is not null, empty, or "Todas"; otherwise returns null.
      *
@@ -424,8 +463,6 @@ public class AnimalManagementController implements IPortalAwareController {
      * @throws Exception if there is an error retrieving animal data.
      */
     private void refreshAnimalList() throws Exception {
-        allAnimals = ServiceFactory.getAnimalService().getActiveAnimals();
-
         if (hasActiveFilters()) {
             String species = getFilterValue(speciesFilter.getValue());
             LocalDate startDate = startDateFilter.getValue();
@@ -440,10 +477,11 @@ public class AnimalManagementController implements IPortalAwareController {
             String endDateStr = endDate != null ? endDate.toString() : null;
             Boolean showInactive = inactiveFilter.isSelected();
 
-            filteredAnimals = ServiceFactory.getAnimalService().findByFilters(species, startDateStr, endDateStr, chipNumber ,showInactive);
+            currentFilter = new AnimalFilter(species, startDateStr, endDateStr, chipNumber, showInactive);
         } else {
-            filteredAnimals = allAnimals;
+            currentFilter = AnimalFilter.activeOnly();
         }
+        totalAnimals = animalService.countByFilters(currentFilter);
         setUpPagination();
         updateResultsCount();
         animalTable.refresh();
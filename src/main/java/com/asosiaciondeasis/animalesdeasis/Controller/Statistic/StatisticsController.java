@@ -1,7 +1,8 @@
 package com.asosiaciondeasis.animalesdeasis.Controller.Statistic;
 
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsService;
 import com.asosiaciondeasis.animalesdeasis.Config.ServiceFactory;
-import com.asosiaciondeasis.animalesdeasis.Service.Statistics.StatisticsService;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
 import com.asosiaciondeasis.animalesdeasis.Util.Exporters.CsvStatisticsExporter;
 
 import com.asosiaciondeasis.animalesdeasis.Util.Helpers.NavigationHelper;
@@ -54,7 +55,7 @@ public class StatisticsController implements Initializable {
     private Tile monthlyAverageTile;
 
     // Services
-    private StatisticsService statisticsService;
+    private IStatisticsService statisticsService;
     private CsvStatisticsExporter csvExporter;
     private int currentYear;
 
@@ -127,24 +128,18 @@ public class StatisticsController implements Initializable {
         updateStatus("Cargando datos...", false);
 
         Task<Void> loadDataTask = new Task<Void>() {
-            private Map<String, Integer> taskMonthlyData;
-            private Map<String, Integer> taskOriginsData;
-            private int taskTotalAdmissions;
-            private double taskAdoptionRate;
+            private DashboardSnapshot taskDashboard;
 
             @Override
             protected Void call() throws Exception {
                 try {
-                    taskMonthlyData = statisticsService.getMonthlyAdmissions(currentYear);
-                    taskTotalAdmissions = statisticsService.getTotalAdmissions(currentYear);
-                    taskAdoptionRate = statisticsService.getAdoptionRate(currentYear);
-                    taskOriginsData = statisticsService.getAnimalOrigins(currentYear);
+                    taskDashboard = statisticsService.getDashboard(currentYear);
 
                     Platform.runLater(() -> {
-                        monthlyData = taskMonthlyData != null ? taskMonthlyData : new LinkedHashMap<>();
-                        originsData = taskOriginsData != null ? taskOriginsData : new LinkedHashMap<>();
-                        totalAdmissions = taskTotalAdmissions;
-                        adoptionRate = taskAdoptionRate;
+                        monthlyData = taskDashboard.monthlyAdmissions();
+                        originsData = taskDashboard.origins();
+                        totalAdmissions = taskDashboard.totalAdmissions();
+                        adoptionRate = taskDashboard.adoptionRate();
 
                         updateTiles();
                         updateCharts();
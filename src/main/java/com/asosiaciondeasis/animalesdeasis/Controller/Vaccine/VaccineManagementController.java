@@ -6,7 +6,6 @@ import com.asosiaciondeasis.animalesdeasis.Controller.Animal.DetailAnimalControl
 import com.asosiaciondeasis.animalesdeasis.Controller.PortalController;
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
 import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
-import com.asosiaciondeasis.animalesdeasis.Service.SyncService;
 import com.asosiaciondeasis.animalesdeasis.Util.DateUtils;
 
 import com.asosiaciondeasis.animalesdeasis.Util.Helpers.NavigationHelper;
@@ -283,14 +282,14 @@ public class VaccineManagementController implements IPortalAwareController {
     }
 
     /**
-     * Deletes the selected vaccine from both local storage and Firebase, then refreshes the vaccine list.
+     * Deletes the selected vaccine locally (the deletion is pushed to Firebase by the next sync),
+     * then refreshes the vaccine list.
      *
      * @param vaccine The Vaccine object to delete.
      */
     private void onDeleteVaccine(Vaccine vaccine) {
         try {
-            // Delete it in Firebase and Local
-            ServiceFactory.getSyncService().deleteVaccineAndSync(vaccine);
+            ServiceFactory.getVaccineService().deleteVaccine(vaccine.getId());
             loadVaccinesForAnimal();
             NavigationHelper.showSuccessAlert(
                     "Éxito",
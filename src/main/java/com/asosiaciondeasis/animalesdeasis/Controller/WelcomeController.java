@@ -1,6 +1,8 @@
 package com.asosiaciondeasis.animalesdeasis.Controller;
 
 import com.asosiaciondeasis.animalesdeasis.Config.FirebaseConfig;
+import com.asosiaciondeasis.animalesdeasis.Config.ServiceFactory;
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
 import com.asosiaciondeasis.animalesdeasis.Util.NetworkUtils;
 import javafx.application.Platform;
 import javafx.beans.binding.Bindings;
@@ -19,15 +21,17 @@ import javafx.stage.Stage;
 
 import java.io.IOException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.ResourceBundle;
 
 /**
  * Controller for the landing screen.
  *
  * <p>Besides the "start" action it now offers shortcuts that open a specific
- * section directly, and shows whether the app can sync right now. The
- * connectivity probe performs network I/O, so it runs on a background
- * {@link Task} — never on the JavaFX application thread.</p>
+ * section directly, and shows whether the app can sync right now plus how long
+ * ago (and how fast) the last successful sync ran. The connectivity probe performs
+ * network I/O, so it runs on a background {@link Task} — never on the JavaFX
+ * application thread; the last sync is read from {@code sync_runs} the same way.</p>
  */
 public class WelcomeController implements Initializable {
 
@@ -44,11 +48,13 @@ public class WelcomeController implements Initializable {
     @FXML private VBox heroBox;
     @FXML private ImageView dogImageView;
     @FXML private Label statusBadge;
+    @FXML private Label lastSyncLabel;
 
     @Override
     public void initialize(URL location, ResourceBundle resources) {
         bindArtworkSize();
         checkConnectivityAsync();
+        loadLastSyncAsync();
     }
 
     /**
@@ -103,6 +109,45 @@ public class WelcomeController implements Initializable {
         }
     }
 
+    /** Reads the last successful sync off the UI thread and shows its lag and duration. */
+    private void loadLastSyncAsync() {
+        Task<SyncRun> load = new Task<>() {
+            @Override
+            protected SyncRun call() throws Exception {
+                return ServiceFactory.getSyncRunDAO().getLastSuccessfulRun();
+            }
+        };
+
+        load.setOnSucceeded(e -> applyLastSync(load.getValue()));
+        load.setOnFailed(e -> applyLastSync(null));
+
+        Thread thread = new Thread(load, "welcome-last-sync");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Called on the FX thread; {@code run} is {@code null} if the app never synced. */
+    private void applyLastSync(SyncRun run) {
+        if (run == null) {
+            lastSyncLabel.setText("Aún no se ha sincronizado");
+            return;
+        }
+        Duration lag = Duration.ofMillis(Math.max(0, System.currentTimeMillis() - run.finishedAt()));
+        lastSyncLabel.setText("Última sincronización " + formatLag(lag)
+                + " · duró " + formatDuration(run.totalMs()));
+    }
+
+    private static String formatLag(Duration lag) {
+        if (lag.toMinutes() < 1) return "hace un momento";
+        if (lag.toHours() < 1) return "hace " + lag.toMinutes() + " min";
+        if (lag.toDays() < 1) return "hace " + lag.toHours() + " h";
+        return "hace " + lag.toDays() + " d";
+    }
+
+    private static String formatDuration(long millis) {
+        return millis < 1000 ? millis + " ms" : String.format("%.1f s", millis / 1000.0);
+    }
+
     /** Receives the stage from the main application. */
     public void setStage(Stage stage) {
         this.stage = stage;
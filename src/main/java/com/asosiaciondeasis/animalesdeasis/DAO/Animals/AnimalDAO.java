@@ -1,22 +1,65 @@
 package com.asosiaciondeasis.animalesdeasis.DAO.Animals;
 
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Animals.IAnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RowVersion;
+import com.asosiaciondeasis.animalesdeasis.Util.HybridLogicalClock;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalSummary;
+import com.asosiaciondeasis.animalesdeasis.Model.PageCursor;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AnimalDAO implements IAnimalDAO {
 
+    // Columns projected for the management table (see AnimalSummary).
+    private static final String SUMMARY_COLUMNS = "record_number, admission_date, name, species, sex, adopted, active";
+
+    // Rows sent to SQLite per executeBatch() call, so huge lists don't pile up in the driver.
+    private static final int BATCH_SIZE = 500;
+
+    private static final String INSERT_COLUMNS = """
+            record_number, chip_number, barcode, admission_date,
+            collected_by, place_id, reason_for_rescue, species,
+            approximate_age, sex, name, ailments, neutering_date, adopted,
+            synced, active, last_modified, hlc
+            """;
+
+    // A missing last_modified gets the same default the column declares.
+    private static final String INSERT_VALUES = "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, COALESCE(?, datetime('now', 'utc')), ?)";
+
+    // Last-writer-wins: HybridLogicalClock stamps decide, last_modified when a side has none.
+    private static final String NEWER_THAN_STORED = """
+            CASE WHEN excluded.hlc > 0 AND animals.hlc > 0 THEN excluded.hlc > animals.hlc
+                 ELSE excluded.last_modified > animals.last_modified END
+            """;
+
     //This value is for DI (Dependency injection), makes it easier to change the DB if needed
     private final Connection conn;
+    //Read-only connection used by every SELECT, so listings don't queue behind a sync write
+    private final Connection readConn;
 
     public AnimalDAO(Connection conn) {
+        this(conn, conn);
+    }
+
+    /**
+     * @param conn     writer connection, used for every INSERT/UPDATE/DELETE
+     * @param readConn read-only connection used for queries (may be the same as {@code conn})
+     */
+    public AnimalDAO(Connection conn, Connection readConn) {
         this.conn = conn;
+        this.readConn = readConn;
     }
 
     /**
@@ -37,8 +80,8 @@ public class AnimalDAO implements IAnimalDAO {
                 record_number, chip_number, barcode, admission_date,
                 collected_by, place_id, reason_for_rescue, species,
                 approximate_age, sex, name, ailments, neutering_date, adopted,
-                synced, active, last_modified
-            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                synced, active, hlc, last_modified
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
         } else {
             sql = """
@@ -46,8 +89,8 @@ public class AnimalDAO implements IAnimalDAO {
                 record_number, chip_number, barcode, admission_date,
                 collected_by, place_id, reason_for_rescue, species,
                 approximate_age, sex, name, ailments, neutering_date, adopted,
-                synced, active
-            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                synced, active, hlc
+            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
         """;
         }
 
@@ -68,9 +111,10 @@ public class AnimalDAO implements IAnimalDAO {
             pstmt.setInt(14, animal.isAdopted() ? 1 : 0);
             pstmt.setInt(15, animal.isSynced() ? 1 : 0);
             pstmt.setInt(16, animal.isActive() ? 1 : 0);
+            pstmt.setLong(17, stamp(animal));
 
             if (animal.getLastModified() != null && !animal.getLastModified().trim().isEmpty()) {
-                pstmt.setString(17, animal.getLastModified());
+                pstmt.setString(18, animal.getLastModified());
             }
 
             pstmt.executeUpdate();
@@ -82,6 +126,146 @@ public class AnimalDAO implements IAnimalDAO {
         }
     }
 
+    /**
+     * Inserts many animals in one transaction with a single reused statement.
+     * Rows whose record number (or chip/barcode) already exists are skipped instead of aborting the batch.
+     *
+     * @return one entry per input row: 1 if inserted, 0 if skipped
+     */
+    @Override
+    public int[] insertAnimals(List<Animal> animals) throws Exception {
+        String sql = "INSERT OR IGNORE INTO animals (" + INSERT_COLUMNS + ") VALUES " + INSERT_VALUES;
+        return executeBatch(sql, animals);
+    }
+
+    /**
+     * Last-writer-wins upsert for many animals in one transaction: new rows are inserted and existing
+     * ones are overwritten only when the incoming version is newer than the stored one (by
+     * {@code hlc}, or by {@code last_modified} when either side has no stamp).
+     * This is the bulk path for the sync pull and data migrations.
+     *
+     * @return one entry per input row: 1 if inserted or updated, 0 if the local row was as new or newer
+     */
+    @Override
+    public int[] upsertAnimals(List<Animal> animals) throws Exception {
+        String sql = "INSERT INTO animals (" + INSERT_COLUMNS + ") VALUES " + INSERT_VALUES + """
+                 ON CONFLICT(record_number) DO UPDATE SET
+                    chip_number = excluded.chip_number, barcode = excluded.barcode,
+                    admission_date = excluded.admission_date, collected_by = excluded.collected_by,
+                    place_id = excluded.place_id, reason_for_rescue = excluded.reason_for_rescue,
+                    species = excluded.species, approximate_age = excluded.approximate_age,
+                    sex = excluded.sex, name = excluded.name, ailments = excluded.ailments,
+                    neutering_date = excluded.neutering_date, adopted = excluded.adopted,
+                    synced = excluded.synced, active = excluded.active,
+                    last_modified = excluded.last_modified, hlc = excluded.hlc
+                WHERE
+                """ + NEWER_THAN_STORED;
+        return executeBatch(sql, animals);
+    }
+
+    /**
+     * Flags many animals as synced after a push with one set-based UPDATE per chunk of
+     * {@link #BATCH_SIZE} rows, inside a single transaction. Each entry maps a record_number to the
+     * {@code hlc} that was pushed; a row edited locally since it was read has a newer stamp, no
+     * longer matches and stays unsynced, so the edit is pushed on the next sync instead of being
+     * lost. {@code last_modified} cannot guard this: an edit in the same second would match.
+     *
+     * @param expectedVersions record_number -> {@code hlc} as read before the push
+     * @return number of rows actually flagged
+     */
+    @Override
+    public int markSynced(Map<String, Long> expectedVersions) throws Exception {
+        if (expectedVersions.isEmpty()) return 0;
+        List<Map.Entry<String, Long>> rows = new ArrayList<>(expectedVersions.entrySet());
+
+        return DatabaseConnection.inTransaction(conn, () -> {
+            int updated = 0;
+            for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                List<Map.Entry<String, Long>> chunk = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+                String sql = "UPDATE animals SET synced = 1 WHERE synced = 0 AND (record_number, hlc) IN (VALUES "
+                        + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Map.Entry<String, Long> row : chunk) {
+                        pstmt.setString(index++, row.getKey());
+                        pstmt.setLong(index++, row.getValue());
+                    }
+                    updated += pstmt.executeUpdate();
+                } catch (SQLException e) {
+                    throw new Exception("Error marking animals as synced", e);
+                }
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Runs {@code sql} once per animal as a JDBC batch inside one transaction, flushing every
+     * {@link #BATCH_SIZE} rows. Any SQL error rolls back the whole call.
+     */
+    private int[] executeBatch(String sql, List<Animal> animals) throws Exception {
+        int[] outcomes = new int[animals.size()];
+        if (animals.isEmpty()) return outcomes;
+
+        return DatabaseConnection.inTransaction(conn, () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int flushed = 0;
+                for (int i = 0; i < animals.size(); i++) {
+                    bindAnimalRow(pstmt, animals.get(i));
+                    pstmt.addBatch();
+                    if ((i + 1) % BATCH_SIZE == 0 || i == animals.size() - 1) {
+                        int[] counts = pstmt.executeBatch();
+                        for (int count : counts) {
+                            outcomes[flushed++] = count > 0 ? 1 : 0;
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error writing animal batch", e);
+            }
+            return outcomes;
+        });
+    }
+
+    /** Binds every column of {@link #INSERT_COLUMNS}, in order. */
+    private void bindAnimalRow(PreparedStatement pstmt, Animal animal) throws SQLException {
+        pstmt.setString(1, animal.getRecordNumber());
+        pstmt.setString(2, animal.getChipNumber());
+        pstmt.setString(3, animal.getBarcode());
+        pstmt.setString(4, animal.getAdmissionDate());
+        pstmt.setString(5, animal.getCollectedBy());
+        pstmt.setInt(6, animal.getPlaceId());
+        pstmt.setString(7, animal.getReasonForRescue());
+        pstmt.setString(8, animal.getSpecies());
+        pstmt.setInt(9, animal.getApproximateAge());
+        pstmt.setString(10, animal.getSex());
+        pstmt.setString(11, animal.getName());
+        pstmt.setString(12, animal.getAilments());
+        pstmt.setString(13, animal.getNeuteringDate());
+        pstmt.setInt(14, animal.isAdopted() ? 1 : 0);
+        pstmt.setInt(15, animal.isSynced() ? 1 : 0);
+        pstmt.setInt(16, animal.isActive() ? 1 : 0);
+        String lastModified = animal.getLastModified();
+        pstmt.setString(17, (lastModified == null || lastModified.isBlank()) ? null : lastModified);
+        pstmt.setLong(18, stamp(animal));
+    }
+
+    /**
+     * The {@code hlc} to store with a row. A row without last_modified is a local write and
+     * gets a new stamp; one that carries its version (pulled, imported) keeps its stamp, which
+     * the clock observes so later local edits order after it.
+     */
+    private static long stamp(Animal animal) {
+        String lastModified = animal.getLastModified();
+        if (lastModified == null || lastModified.isBlank()) {
+            animal.setHlc(HybridLogicalClock.now());
+        } else {
+            HybridLogicalClock.observe(animal.getHlc());
+        }
+        return animal.getHlc();
+    }
+
     /**
      * Retrieves all animals from the database.
      *
@@ -94,7 +278,7 @@ public class AnimalDAO implements IAnimalDAO {
         List<Animal> animals = new ArrayList<>();
         String sql = "SELECT * FROM animals WHERE active = 1 ORDER BY admission_date DESC";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
             /**
@@ -119,7 +303,7 @@ public class AnimalDAO implements IAnimalDAO {
     @Override
     public Animal findByRecordNumber(String recordNumber) throws Exception {
         String sql = "SELECT * FROM animals WHERE record_number = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
             pstmt.setString(1, recordNumber);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -138,57 +322,133 @@ public class AnimalDAO implements IAnimalDAO {
     @Override
     public List<Animal> findByFilters(String species, String startDate, String endDate, String chipNumber ,Boolean showInactive) throws Exception {
         List<Animal> animals = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
         StringBuilder sql = new StringBuilder("SELECT * FROM animals WHERE 1=1");
 
-        // Check if we want to show inactive animals
-        if (showInactive != null && showInactive) {
-            sql.append(" AND active = 0");
-        } else {
-            sql.append(" AND active = 1");
-        }
+        appendFilterClauses(sql, params, new AnimalFilter(species, startDate, endDate, chipNumber, showInactive));
+        sql.append(" ORDER BY admission_date DESC");
 
-        // Build dynamic WHERE clauses
-        if (species != null && !species.isBlank()) {
-            sql.append(" AND species = ?");
-        }
+        // Prepare the statement with the dynamic SQL
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql.toString())) {
+            bindParams(pstmt, params);
+            ResultSet rs = pstmt.executeQuery();
 
-        if (startDate != null && endDate != null) {
-            sql.append(" AND admission_date BETWEEN ? AND ?");
-        }
+            while (rs.next()) {
+                animals.add(mapResultSetToAnimal(rs));
+            }
 
-        if (chipNumber != null && !chipNumber.isBlank()) {
-            sql.append(" AND chip_number LIKE ?");
+        } catch (SQLException e) {
+            throw new Exception("Error fetching animals by filters", e);
         }
 
-        sql.append(" ORDER BY admission_date DESC");
+        return animals;
+    }
 
-        // Prepare the statement with the dynamic SQL
-        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
-            int index = 1;
+    /**
+     * Keyset ("seek") pagination over the listing order {@code admission_date DESC, record_number DESC}.
+     * Instead of OFFSET, the page starts right after the given key, so SQLite walks the
+     * {@code idx_animals_listing} index straight to the first row and reads only {@code limit} rows.
+     * Pass {@code null} keys for the first page.
+     */
+    @Override
+    public List<Animal> findPage(AnimalFilter filter, String afterAdmissionDate, String afterRecordNumber, int limit) throws Exception {
+        List<Animal> animals = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT * FROM animals WHERE 1=1");
 
-            if (species != null && !species.isBlank()) {
-                pstmt.setString(index++, species);
-            }
+        appendFilterClauses(sql, params, filter);
+        appendKeysetClause(sql, params, afterAdmissionDate, afterRecordNumber);
+        sql.append(" ORDER BY admission_date DESC, record_number DESC LIMIT ?");
+        params.add(limit);
 
-            if (startDate != null && endDate != null) {
-                pstmt.setString(index++, startDate);
-                pstmt.setString(index++, endDate);
-            }
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql.toString())) {
+            bindParams(pstmt, params);
+            ResultSet rs = pstmt.executeQuery();
 
-            if (chipNumber != null && !chipNumber.isBlank()) {
-                pstmt.setString(index++, "%" + chipNumber + "%");
+            while (rs.next()) {
+                animals.add(mapResultSetToAnimal(rs));
             }
+        } catch (SQLException e) {
+            throw new Exception("Error fetching animal page", e);
+        }
+        return animals;
+    }
+
+    /**
+     * Same keyset page as {@link #findPage}, but projects only the {@link AnimalSummary} columns so
+     * the listing never decodes the long free-text fields.
+     */
+    @Override
+    public List<AnimalSummary> findSummaryPage(AnimalFilter filter, String afterAdmissionDate, String afterRecordNumber, int limit) throws Exception {
+        List<AnimalSummary> summaries = new ArrayList<>();
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT " + SUMMARY_COLUMNS + " FROM animals WHERE 1=1");
+
+        appendFilterClauses(sql, params, filter);
+        appendKeysetClause(sql, params, afterAdmissionDate, afterRecordNumber);
+        sql.append(" ORDER BY admission_date DESC, record_number DESC LIMIT ?");
+        params.add(limit);
+
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql.toString())) {
+            bindParams(pstmt, params);
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                animals.add(mapResultSetToAnimal(rs));
+                summaries.add(new AnimalSummary(
+                        rs.getString("record_number"),
+                        rs.getString("admission_date"),
+                        rs.getString("name"),
+                        rs.getString("species"),
+                        rs.getString("sex"),
+                        rs.getInt("adopted") == 1,
+                        rs.getInt("active") == 1));
             }
+        } catch (SQLException e) {
+            throw new Exception("Error fetching animal summaries", e);
+        }
+        return summaries;
+    }
 
+    @Override
+    public int countByFilters(AnimalFilter filter) throws Exception {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT COUNT(*) AS total FROM animals WHERE 1=1");
+        appendFilterClauses(sql, params, filter);
+
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql.toString())) {
+            bindParams(pstmt, params);
+            ResultSet rs = pstmt.executeQuery();
+            return rs.next() ? rs.getInt("total") : 0;
         } catch (SQLException e) {
-            throw new Exception("Error fetching animals by filters", e);
+            throw new Exception("Error counting animals by filters", e);
         }
+    }
 
-        return animals;
+    /**
+     * Returns the key of the row at {@code offset} in the listing order, i.e. the cursor a page
+     * starting at {@code offset + 1} must seek past. Used when the user jumps to a page whose
+     * predecessor was never loaded; only the two indexed key columns are read.
+     *
+     * @return the cursor, or {@code null} if the listing has fewer rows
+     */
+    @Override
+    public PageCursor findCursorAt(AnimalFilter filter, int offset) throws Exception {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("SELECT admission_date, record_number FROM animals WHERE 1=1");
+        appendFilterClauses(sql, params, filter);
+        sql.append(" ORDER BY admission_date DESC, record_number DESC LIMIT 1 OFFSET ?");
+        params.add(offset);
+
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql.toString())) {
+            bindParams(pstmt, params);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                return new PageCursor(rs.getString("admission_date"), rs.getString("record_number"));
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error locating animal page", e);
+        }
+        return null;
     }
 
     /**
@@ -207,7 +467,7 @@ public class AnimalDAO implements IAnimalDAO {
             SET chip_number = ?, barcode = ?, admission_date = ?, collected_by = ?, place_id = ?,
                 reason_for_rescue = ?, species = ?, approximate_age = ?, sex = ?, name = ?,
                 ailments = ?, neutering_date = ?, adopted = ?, active = ?, synced = ?,
-                last_modified = datetime('now', 'utc')
+                hlc = ?, last_modified = datetime('now', 'utc')
             WHERE record_number = ?
         """;
         } else {
@@ -216,7 +476,7 @@ public class AnimalDAO implements IAnimalDAO {
             SET chip_number = ?, barcode = ?, admission_date = ?, collected_by = ?, place_id = ?,
                 reason_for_rescue = ?, species = ?, approximate_age = ?, sex = ?, name = ?,
                 ailments = ?, neutering_date = ?, adopted = ?, active = ?, synced = ?,
-                last_modified = ?
+                hlc = ?, last_modified = ?
             WHERE record_number = ?
         """;
         }
@@ -239,10 +499,14 @@ public class AnimalDAO implements IAnimalDAO {
             pstmt.setInt(15, animal.isSynced() ? 1 : 0);
 
             if (timestamp) {
-                pstmt.setString(16, animal.getRecordNumber());
-            } else {
-                pstmt.setString(16, animal.getLastModified());
+                animal.setHlc(HybridLogicalClock.now());
+                pstmt.setLong(16, animal.getHlc());
                 pstmt.setString(17, animal.getRecordNumber());
+            } else {
+                HybridLogicalClock.observe(animal.getHlc());
+                pstmt.setLong(16, animal.getHlc());
+                pstmt.setString(17, animal.getLastModified());
+                pstmt.setString(18, animal.getRecordNumber());
             }
 
             int rowsAffected = pstmt.executeUpdate();
@@ -265,10 +529,11 @@ public class AnimalDAO implements IAnimalDAO {
      */
     @Override
     public void deleteAnimal(String recordNumber) throws Exception {
-        String sql = "UPDATE animals SET active = 0, synced = 0, last_modified = datetime('now', 'utc') WHERE record_number = ?";
+        String sql = "UPDATE animals SET active = 0, synced = 0, hlc = ?, last_modified = datetime('now', 'utc') WHERE record_number = ?";
 
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, recordNumber);
+            pstmt.setLong(1, HybridLogicalClock.now());
+            pstmt.setString(2, recordNumber);
             int affectedRows = pstmt.executeUpdate();
 
             if (affectedRows == 0) {
@@ -283,10 +548,11 @@ public class AnimalDAO implements IAnimalDAO {
     @Override
     public void reactivateAnimal(String recordNumber) throws Exception {
 
-        String sql = "UPDATE animals SET active = 1, synced = 0, last_modified = datetime('now', 'utc') WHERE record_number = ?";
+        String sql = "UPDATE animals SET active = 1, synced = 0, hlc = ?, last_modified = datetime('now', 'utc') WHERE record_number = ?";
         
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, recordNumber);
+            pstmt.setLong(1, HybridLogicalClock.now());
+            pstmt.setString(2, recordNumber);
             int rows = pstmt.executeUpdate();
             if (rows == 0) {
                 throw new Exception("No animal found to reactivate.");
@@ -296,11 +562,96 @@ public class AnimalDAO implements IAnimalDAO {
         }
     }
 
+    /**
+     * Loads {@code record_number -> last_modified} for every animal in one query, so the sync
+     * pull can compare remote versions in memory instead of issuing one lookup per document.
+     */
+    @Override
+    public Map<String, String> getLastModifiedIndex() throws Exception {
+        Map<String, String> index = new HashMap<>();
+        String sql = "SELECT record_number, last_modified FROM animals";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                index.put(rs.getString("record_number"), rs.getString("last_modified"));
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error loading animal versions", e);
+        }
+        return index;
+    }
+
+    @Override
+    public Map<String, String> getLastModifiedIndex(Collection<String> recordNumbers) throws Exception {
+        Map<String, String> index = new HashMap<>();
+        if (recordNumbers.isEmpty()) return index;
+
+        String sql = "SELECT record_number, last_modified FROM animals WHERE record_number IN ("
+                + String.join(", ", Collections.nCopies(recordNumbers.size(), "?")) + ")";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            bindParams(pstmt, new ArrayList<>(recordNumbers));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    index.put(rs.getString("record_number"), rs.getString("last_modified"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error loading animal versions", e);
+        }
+        return index;
+    }
+
+    /**
+     * Loads the version of every animal ({@code record_number -> last_modified, hlc, synced})
+     * in one query; {@link RowVersion#parentId()} is {@code null}.
+     */
+    @Override
+    public Map<String, RowVersion> getSyncIndex() throws Exception {
+        Map<String, RowVersion> index = new HashMap<>();
+        try (PreparedStatement pstmt = readConn.prepareStatement("SELECT record_number, last_modified, synced, hlc FROM animals");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                RowVersion version = mapResultSetToRowVersion(rs);
+                index.put(version.id(), version);
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error loading animal versions", e);
+        }
+        return index;
+    }
+
+    @Override
+    public Map<String, RowVersion> getSyncIndex(Collection<String> recordNumbers) throws Exception {
+        Map<String, RowVersion> index = new HashMap<>();
+        if (recordNumbers.isEmpty()) return index;
+
+        String sql = "SELECT record_number, last_modified, synced, hlc FROM animals WHERE record_number IN ("
+                + String.join(", ", Collections.nCopies(recordNumbers.size(), "?")) + ")";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            bindParams(pstmt, new ArrayList<>(recordNumbers));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    RowVersion version = mapResultSetToRowVersion(rs);
+                    index.put(version.id(), version);
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error loading animal versions", e);
+        }
+        return index;
+    }
+
+    private static RowVersion mapResultSetToRowVersion(ResultSet rs) throws SQLException {
+        return new RowVersion(rs.getString("record_number"), null, rs.getString("last_modified"),
+                rs.getInt("synced") == 1, rs.getLong("hlc"));
+    }
+
     @Override
     public List<Animal> getUnsyncedAnimals() throws Exception {
         List<Animal> unsyncedAnimals = new ArrayList<>();
         String sql = "SELECT * FROM animals WHERE synced = 0";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -313,6 +664,95 @@ public class AnimalDAO implements IAnimalDAO {
         }
         return unsyncedAnimals;
     }
+
+    /**
+     * Keyset page over the animals whose current version is in Firebase, for the sync snapshot.
+     */
+    @Override
+    public List<Animal> getSyncedAnimalsAfter(String afterRecordNumber, int limit) throws Exception {
+        List<Animal> animals = new ArrayList<>();
+        String sql = "SELECT * FROM animals WHERE synced = 1 AND record_number > ? ORDER BY record_number LIMIT ?";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            pstmt.setString(1, afterRecordNumber == null ? "" : afterRecordNumber);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    animals.add(mapResultSetToAnimal(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error getting synced animals", e);
+        }
+        return animals;
+    }
+
+    /**
+     * Loads the still-unsynced animals among {@code recordNumbers} in one query. Used by the push
+     * to fetch exactly the rows referenced by a page of the change log.
+     */
+    @Override
+    public List<Animal> getUnsyncedAnimals(Collection<String> recordNumbers) throws Exception {
+        List<Animal> unsyncedAnimals = new ArrayList<>();
+        if (recordNumbers.isEmpty()) return unsyncedAnimals;
+
+        String sql = "SELECT * FROM animals WHERE synced = 0 AND record_number IN ("
+                + String.join(", ", Collections.nCopies(recordNumbers.size(), "?")) + ")";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            bindParams(pstmt, new ArrayList<>(recordNumbers));
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    unsyncedAnimals.add(mapResultSetToAnimal(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error getting unsynced animals", e);
+        }
+        return unsyncedAnimals;
+    }
+    /**
+     * Builds the dynamic WHERE clauses shared by every listing query. Values are collected in
+     * {@code params} in placeholder order so the caller can bind them with {@link #bindParams}.
+     */
+    private void appendFilterClauses(StringBuilder sql, List<Object> params, AnimalFilter filter) {
+        // Check if we want to show inactive animals
+        if (filter.showInactive() != null && filter.showInactive()) {
+            sql.append(" AND active = 0");
+        } else {
+            sql.append(" AND active = 1");
+        }
+
+        if (filter.species() != null && !filter.species().isBlank()) {
+            sql.append(" AND species = ?");
+            params.add(filter.species());
+        }
+
+        if (filter.startDate() != null && filter.endDate() != null) {
+            sql.append(" AND admission_date BETWEEN ? AND ?");
+            params.add(filter.startDate());
+            params.add(filter.endDate());
+        }
+
+        if (filter.chipNumber() != null && !filter.chipNumber().isBlank()) {
+            sql.append(" AND chip_number LIKE ?");
+            params.add("%" + filter.chipNumber() + "%");
+        }
+    }
+
+    /** Restricts a listing query to rows that sort strictly after the given key. */
+    private void appendKeysetClause(StringBuilder sql, List<Object> params, String afterAdmissionDate, String afterRecordNumber) {
+        if (afterAdmissionDate != null && afterRecordNumber != null) {
+            sql.append(" AND (admission_date, record_number) < (?, ?)");
+            params.add(afterAdmissionDate);
+            params.add(afterRecordNumber);
+        }
+    }
+
+    private void bindParams(PreparedStatement pstmt, List<Object> params) throws SQLException {
+        for (int i = 0; i < params.size(); i++) {
+            pstmt.setObject(i + 1, params.get(i));
+        }
+    }
+
     /**
      * Private method to map the info of the animal, it is used in every method of the class that his purpose is
      * to search for a specific animal.
@@ -335,6 +775,7 @@ public class AnimalDAO implements IAnimalDAO {
         animal.setSynced(rs.getInt("synced") == 1);
         animal.setActive(rs.getInt("active") == 1);
         animal.setLastModified(rs.getString("last_modified"));
+        animal.setHlc(rs.getLong("hlc"));
         return animal;
     }
 
@@ -1,15 +1,26 @@
 package com.asosiaciondeasis.animalesdeasis.DAO.Statistics;
 
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsRow;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-
+/**
+ * Yearly statistics, read from the {@code stats_monthly} and {@code stats_origin} rollups that
+ * the triggers on {@code animals} keep current (see {@code SQLiteSetup}). A year is at most a
+ * few dozen rollup rows, however many animals there are.
+ */
 public class StatisticsDAO implements IStatisticsDAO {
 
     private final Connection conn;
@@ -23,17 +34,18 @@ public class StatisticsDAO implements IStatisticsDAO {
     public Map<String, Integer> getMonthlyAdmissions(int year) throws Exception {
         Map<String, Integer> result = new LinkedHashMap<>();
         String sql = """
-                    SELECT strftime('%m', admission_date, 'utc') AS month, COUNT(*) AS count
-                    FROM animals
-                    WHERE strftime('%Y', admission_date, 'utc') = ?
+                    SELECT month, SUM(admitted) AS count
+                    FROM stats_monthly
+                    WHERE year = ?
                     GROUP BY month ORDER BY month
                 """;
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, String.valueOf(year));
+            pstmt.setInt(1, year);
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
-                String month = rs.getString("month");
+                // Keys stay "01".."12", as strftime('%m') returned them.
+                String month = String.format("%02d", rs.getInt("month"));
                 int count = rs.getInt("count");
                 result.put(month, count);
             }
@@ -47,16 +59,16 @@ public class StatisticsDAO implements IStatisticsDAO {
     public Map<String, Integer> getAnimalOrigins(int year) throws Exception {
         Map<String, Integer> result = new LinkedHashMap<>();
         String sql = """
-                SELECT p.name AS place_name, pr.name AS province_name, COUNT(*) AS count
-                FROM animals a
-                JOIN places p ON a.place_id = p.id
+                SELECT p.name AS place_name, pr.name AS province_name, SUM(o.count) AS count
+                FROM stats_origin o
+                JOIN places p ON o.place_id = p.id
                 JOIN provinces pr ON p.province_id = pr.id
-                WHERE strftime('%Y', a.admission_date, 'utc') = ?
+                WHERE o.year = ?
                 GROUP BY p.name, pr.name 
                 ORDER BY count DESC
             """;
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, String.valueOf(year));
+            pstmt.setInt(1, year);
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
@@ -77,13 +89,13 @@ public class StatisticsDAO implements IStatisticsDAO {
     public int getTotalAdmissions(int year) throws Exception {
 
         String sql = """
-                    SELECT COUNT(*) AS total
-                    FROM animals
-                    WHERE strftime('%Y', admission_date, 'utc') = ?
+                    SELECT COALESCE(SUM(admitted), 0) AS total
+                    FROM stats_monthly
+                    WHERE year = ?
                 """;
 
         try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, String.valueOf(year));
+            pstmt.setInt(1, year);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
                 return rs.getInt("total");
@@ -97,23 +109,14 @@ public class StatisticsDAO implements IStatisticsDAO {
 
     @Override
     public double getAdoptionRate(int year) throws Exception {
-        String totalSql = "SELECT COUNT(*) AS total FROM animals WHERE strftime('%Y', admission_date, 'utc') = ?";
-        String adoptedSql = "SELECT COUNT(*) AS adopted FROM animals WHERE adopted = 1 AND strftime('%Y', admission_date, 'utc') = ?";
-
-        try (
-                PreparedStatement totalStmt = conn.prepareStatement(totalSql);
-                PreparedStatement adoptedStmt = conn.prepareStatement(adoptedSql)
-        ) {
-            String yearStr = String.valueOf(year);
-
-            totalStmt.setString(1, yearStr);
-            adoptedStmt.setString(1, yearStr);
+        String sql = "SELECT COALESCE(SUM(admitted), 0) AS total, COALESCE(SUM(adopted), 0) AS adopted FROM stats_monthly WHERE year = ?";
 
-            ResultSet totalRs = totalStmt.executeQuery();
-            ResultSet adoptedRs = adoptedStmt.executeQuery();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, year);
+            ResultSet rs = pstmt.executeQuery();
 
-            int total = totalRs.next() ? totalRs.getInt("total") : 0;
-            int adopted = adoptedRs.next() ? adoptedRs.getInt("adopted") : 0;
+            int total = rs.next() ? rs.getInt("total") : 0;
+            int adopted = rs.getInt("adopted");
 
             if (total == 0) return 0.0;
             return (adopted / (double) total) * 100;
@@ -122,4 +125,109 @@ public class StatisticsDAO implements IStatisticsDAO {
         }
     }
 
+    /**
+     * Both rollups in one query: one row per month, summed over species, and one per origin.
+     * The total and the adoption rate are the sums of the month rows.
+     */
+    @Override
+    public DashboardSnapshot getDashboard(int year) throws Exception {
+        String sql = """
+                SELECT 'month' AS kind, printf('%02d', month) AS label, SUM(admitted) AS count,
+                       SUM(adopted) AS adopted, month AS sort_key
+                FROM stats_monthly WHERE year = ? GROUP BY month
+                UNION ALL
+                SELECT 'origin', p.name || ', ' || pr.name, SUM(o.count), 0, -SUM(o.count)
+                FROM stats_origin o
+                JOIN places p ON o.place_id = p.id
+                JOIN provinces pr ON p.province_id = pr.id
+                WHERE o.year = ? GROUP BY p.name, pr.name
+                ORDER BY kind, sort_key
+                """;
+
+        Map<String, Integer> monthly = new LinkedHashMap<>();
+        Map<String, Integer> origins = new LinkedHashMap<>();
+        int total = 0;
+        int adopted = 0;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, year);
+            pstmt.setInt(2, year);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    int count = rs.getInt("count");
+                    if ("month".equals(rs.getString("kind"))) {
+                        monthly.put(rs.getString("label"), count);
+                        total += count;
+                        adopted += rs.getInt("adopted");
+                    } else {
+                        origins.put(rs.getString("label"), count);
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error fetching dashboard for year " + year, e);
+        }
+        return new DashboardSnapshot(year, monthly, origins, total, adopted);
+    }
+
+    private static final String ANALYTICS_COLUMNS =
+            "SELECT record_number, admission_date, species, sex, place_id, adopted, active, hlc FROM animals";
+
+    @Override
+    public List<AnalyticsRow> getAnalyticsRows() throws Exception {
+        return queryAnalyticsRows(ANALYTICS_COLUMNS, List.of());
+    }
+
+    @Override
+    public List<AnalyticsRow> getAnalyticsRows(Collection<String> recordNumbers) throws Exception {
+        if (recordNumbers.isEmpty()) return new ArrayList<>();
+        String sql = ANALYTICS_COLUMNS + " WHERE record_number IN ("
+                + String.join(", ", Collections.nCopies(recordNumbers.size(), "?")) + ")";
+        return queryAnalyticsRows(sql, new ArrayList<Object>(recordNumbers));
+    }
+
+    @Override
+    public List<AnalyticsRow> getAnalyticsRowsChangedAfter(long hlc) throws Exception {
+        return queryAnalyticsRows(ANALYTICS_COLUMNS + " WHERE hlc > ?", List.<Object>of(hlc));
+    }
+
+    private List<AnalyticsRow> queryAnalyticsRows(String sql, List<Object> params) throws Exception {
+        List<AnalyticsRow> rows = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    rows.add(new AnalyticsRow(
+                            rs.getString("record_number"),
+                            rs.getString("admission_date"),
+                            rs.getString("species"),
+                            rs.getString("sex"),
+                            rs.getInt("place_id"),
+                            rs.getInt("adopted") == 1,
+                            rs.getInt("active") == 1,
+                            rs.getLong("hlc")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error loading animals for the statistics", e);
+        }
+        return rows;
+    }
+
+    @Override
+    public Map<Integer, String> getProvinceNamesByPlace() throws Exception {
+        Map<Integer, String> result = new HashMap<>();
+        String sql = "SELECT p.id AS place_id, pr.name AS province_name FROM places p JOIN provinces pr ON p.province_id = pr.id";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                result.put(rs.getInt("place_id"), rs.getString("province_name"));
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error fetching provinces of places", e);
+        }
+        return result;
+    }
+
 }
@@ -0,0 +1,152 @@
+package com.asosiaciondeasis.animalesdeasis.DAO.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IChangeLogDAO;
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
+import com.asosiaciondeasis.animalesdeasis.Model.ChangeEntry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Reads and trims the {@code change_log} outbox. Entries are written exclusively by the
+ * triggers declared in {@code SQLiteSetup.createSchema}, never by application code.
+ */
+public class ChangeLogDAO implements IChangeLogDAO {
+
+    private final Connection conn;
+
+    public ChangeLogDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public List<ChangeEntry> readAfter(long afterSeq, int limit) throws Exception {
+        List<ChangeEntry> entries = new ArrayList<>();
+        String sql = "SELECT seq, entity, entity_id, parent_id, op FROM change_log WHERE seq > ? ORDER BY seq LIMIT ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, afterSeq);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    entries.add(new ChangeEntry(rs.getLong("seq"), rs.getString("entity"),
+                            rs.getString("entity_id"), rs.getString("parent_id"), rs.getString("op")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading change log", e);
+        }
+        return entries;
+    }
+
+    @Override
+    public int acknowledge(Collection<ChangeEntry> entries) throws Exception {
+        if (entries.isEmpty()) return 0;
+
+        String sql = "DELETE FROM change_log WHERE entity = ? AND entity_id = ? AND seq <= ?";
+        return DatabaseConnection.inTransaction(conn, () -> {
+            int deleted = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                for (ChangeEntry entry : entries) {
+                    pstmt.setString(1, entry.entity());
+                    pstmt.setString(2, entry.entityId());
+                    pstmt.setLong(3, entry.seq());
+                    pstmt.addBatch();
+                }
+                for (int count : pstmt.executeBatch()) {
+                    deleted += Math.max(count, 0);
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error truncating change log", e);
+            }
+            return deleted;
+        });
+    }
+
+    @Override
+    public Set<String> pendingDeletes(String entity) throws Exception {
+        Set<String> ids = new HashSet<>();
+        String sql = "SELECT DISTINCT entity_id FROM change_log WHERE entity = ? AND op = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, entity);
+            pstmt.setString(2, ChangeEntry.DELETE);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getString("entity_id"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading pending deletes", e);
+        }
+        return ids;
+    }
+
+    @Override
+    public Map<String, Set<String>> pendingFields(String entity, Collection<String> ids) throws Exception {
+        Map<String, Set<String>> fields = new HashMap<>();
+        if (ids.isEmpty()) return fields;
+
+        Set<String> wholeDocument = new HashSet<>();
+        String sql = "SELECT entity_id, fields FROM change_log WHERE entity = ? AND op = ? AND entity_id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, entity);
+            pstmt.setString(2, ChangeEntry.UPSERT);
+            int index = 3;
+            for (String id : ids) pstmt.setString(index++, id);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String id = rs.getString("entity_id");
+                    String changed = rs.getString("fields");
+                    if (changed == null) {
+                        wholeDocument.add(id);
+                        continue;
+                    }
+                    Set<String> merged = fields.computeIfAbsent(id, k -> new TreeSet<>());
+                    if (!changed.isEmpty()) merged.addAll(Arrays.asList(changed.split(",")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading changed fields", e);
+        }
+        fields.keySet().removeAll(wholeDocument);
+        return fields;
+    }
+
+    /**
+     * The switch is a TEMP table, private to this connection: a TEMP trigger removes the
+     * tombstones the delete triggers log while it holds a row. Triggers in the main schema
+     * cannot read TEMP tables, hence the trigger on {@code change_log} instead of a condition
+     * on the delete triggers.
+     */
+    @Override
+    public void setApplyRemote(boolean applyRemote) throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("CREATE TEMP TABLE IF NOT EXISTS apply_remote (id INTEGER PRIMARY KEY CHECK (id = 1))");
+            stmt.execute("""
+                    CREATE TEMP TRIGGER IF NOT EXISTS trg_change_log_apply_remote AFTER INSERT ON main.change_log
+                    WHEN NEW.op = 'delete' AND EXISTS (SELECT 1 FROM temp.apply_remote)
+                    BEGIN
+                        DELETE FROM change_log WHERE seq = NEW.seq;
+                    END;
+                    """);
+            stmt.execute(applyRemote
+                    ? "INSERT OR IGNORE INTO temp.apply_remote (id) VALUES (1)"
+                    : "DELETE FROM temp.apply_remote");
+        } catch (SQLException e) {
+            throw new Exception("Error updating sync control", e);
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package com.asosiaciondeasis.animalesdeasis.DAO.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IRemoteVersionDAO;
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteVersion;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps {@code remote_versions}: the version of every document this device knows to be in
+ * Firebase. It is written only by the sync (after a pull, a push or a bucket repair), so its
+ * per-bucket digests can be compared with the {@code sync_digests} kept in Firestore.
+ */
+public class RemoteVersionDAO implements IRemoteVersionDAO {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final Connection conn;
+
+    public RemoteVersionDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public Map<String, String> getVersionIndex(String entity) throws Exception {
+        Map<String, String> index = new HashMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT entity_id, version FROM remote_versions WHERE entity = ?")) {
+            pstmt.setString(1, entity);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    index.put(rs.getString("entity_id"), rs.getString("version"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading remote versions", e);
+        }
+        return index;
+    }
+
+    @Override
+    public Map<String, String> getVersions(String entity, Collection<String> ids) throws Exception {
+        Map<String, String> versions = new HashMap<>();
+        if (ids.isEmpty()) return versions;
+
+        String sql = "SELECT entity_id, version FROM remote_versions WHERE entity = ? AND entity_id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            int index = 1;
+            pstmt.setString(index++, entity);
+            for (String id : ids) {
+                pstmt.setString(index++, id);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    versions.put(rs.getString("entity_id"), rs.getString("version"));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading remote versions", e);
+        }
+        return versions;
+    }
+
+    @Override
+    public List<RemoteVersion> getBucket(String bucket) throws Exception {
+        List<RemoteVersion> versions = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(
+                "SELECT entity, entity_id, bucket, version FROM remote_versions WHERE bucket = ?")) {
+            pstmt.setString(1, bucket);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    versions.add(mapResultSetToRemoteVersion(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading remote versions", e);
+        }
+        return versions;
+    }
+
+    @Override
+    public Map<String, BucketDigest> getDigests() throws Exception {
+        Map<String, BucketDigest> digests = new TreeMap<>();
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT entity, entity_id, bucket, version FROM remote_versions");
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                RemoteVersion version = mapResultSetToRemoteVersion(rs);
+                digests.merge(version.bucket(), version.digest(), BucketDigest::plus);
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error computing bucket digests", e);
+        }
+        return digests;
+    }
+
+    @Override
+    public void upsertVersions(Collection<RemoteVersion> versions) throws Exception {
+        if (versions.isEmpty()) return;
+
+        String sql = "INSERT OR REPLACE INTO remote_versions (entity, entity_id, bucket, version) VALUES (?, ?, ?, ?)";
+        DatabaseConnection.inTransaction(conn, () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int pending = 0;
+                for (RemoteVersion version : versions) {
+                    pstmt.setString(1, version.entity());
+                    pstmt.setString(2, version.entityId());
+                    pstmt.setString(3, version.bucket());
+                    pstmt.setString(4, version.version());
+                    pstmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        pstmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) pstmt.executeBatch();
+            } catch (SQLException e) {
+                throw new Exception("Error saving remote versions", e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void deleteVersions(String entity, Collection<String> ids) throws Exception {
+        if (ids.isEmpty()) return;
+
+        DatabaseConnection.inTransaction(conn, () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM remote_versions WHERE entity = ? AND entity_id = ?")) {
+                int pending = 0;
+                for (String id : ids) {
+                    pstmt.setString(1, entity);
+                    pstmt.setString(2, id);
+                    pstmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        pstmt.executeBatch();
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) pstmt.executeBatch();
+            } catch (SQLException e) {
+                throw new Exception("Error deleting remote versions", e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public void replaceBucket(String bucket, Collection<RemoteVersion> versions) throws Exception {
+        DatabaseConnection.inTransaction(conn, () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM remote_versions WHERE bucket = ?")) {
+                pstmt.setString(1, bucket);
+                pstmt.executeUpdate();
+            } catch (SQLException e) {
+                throw new Exception("Error replacing remote versions", e);
+            }
+            upsertVersions(versions);
+            return null;
+        });
+    }
+
+    @Override
+    public void beginSweep() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TEMP TABLE IF NOT EXISTS pull_seen (
+                        entity TEXT NOT NULL,
+                        entity_id TEXT NOT NULL,
+                        PRIMARY KEY (entity, entity_id)
+                    ) WITHOUT ROWID
+                    """);
+            stmt.execute("DELETE FROM temp.pull_seen");
+        } catch (SQLException e) {
+            throw new Exception("Error starting pull sweep", e);
+        }
+    }
+
+    @Override
+    public void markSeen(String entity, Collection<String> ids) throws Exception {
+        if (ids.isEmpty()) return;
+
+        DatabaseConnection.inTransaction(conn, () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement("INSERT OR IGNORE INTO temp.pull_seen (entity, entity_id) VALUES (?, ?)")) {
+                for (String id : ids) {
+                    pstmt.setString(1, entity);
+                    pstmt.setString(2, id);
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            } catch (SQLException e) {
+                throw new Exception("Error recording pulled documents", e);
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public int sweepUnseen(String entity) throws Exception {
+        String sql = """
+                DELETE FROM remote_versions
+                WHERE entity = ?
+                  AND entity_id NOT IN (SELECT entity_id FROM temp.pull_seen WHERE entity = ?)
+                """;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, entity);
+            pstmt.setString(2, entity);
+            return pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new Exception("Error deleting stale remote versions", e);
+        }
+    }
+
+    @Override
+    public List<String> getUnseenSyncedVaccines() throws Exception {
+        List<String> ids = new ArrayList<>();
+        String sql = """
+                SELECT id FROM vaccines
+                WHERE synced = 1
+                  AND animal_record_number IN (SELECT entity_id FROM temp.pull_seen WHERE entity = 'animal')
+                  AND id NOT IN (SELECT entity_id FROM temp.pull_seen WHERE entity = 'vaccine')
+                """;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getString("id"));
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error finding remotely deleted vaccines", e);
+        }
+        return ids;
+    }
+
+    @Override
+    public void endSweep() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DROP TABLE IF EXISTS temp.pull_seen");
+        } catch (SQLException e) {
+            throw new Exception("Error ending pull sweep", e);
+        }
+    }
+
+    private RemoteVersion mapResultSetToRemoteVersion(ResultSet rs) throws SQLException {
+        return new RemoteVersion(rs.getString("entity"), rs.getString("entity_id"),
+                rs.getString("bucket"), rs.getString("version"));
+    }
+}
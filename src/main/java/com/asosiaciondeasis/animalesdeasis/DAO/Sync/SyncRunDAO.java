@@ -0,0 +1,116 @@
+package com.asosiaciondeasis.animalesdeasis.DAO.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.ISyncRunDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists the metrics of every sync run in {@code sync_runs}.
+ */
+public class SyncRunDAO implements ISyncRunDAO {
+
+    private static final String COLUMNS = """
+            started_at, full_reconcile, success, error,
+            probe_ms, pull_animals_ms, pull_vaccines_ms, local_ms, push_ms, total_ms,
+            docs_read, rows_written, docs_pushed, bytes_read, bytes_pushed, conflicts, retries""";
+
+    private final Connection conn;
+
+    public SyncRunDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public void insertRun(SyncRun run, int keep) throws Exception {
+        String sql = "INSERT INTO sync_runs (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        String prune = "DELETE FROM sync_runs WHERE id <= (SELECT MAX(id) FROM sync_runs) - ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             PreparedStatement prunePstmt = conn.prepareStatement(prune)) {
+            int i = 1;
+            pstmt.setLong(i++, run.startedAt());
+            pstmt.setInt(i++, run.fullReconcile() ? 1 : 0);
+            pstmt.setInt(i++, run.success() ? 1 : 0);
+            pstmt.setString(i++, run.error());
+            pstmt.setLong(i++, run.probeMs());
+            pstmt.setLong(i++, run.pullAnimalsMs());
+            pstmt.setLong(i++, run.pullVaccinesMs());
+            pstmt.setLong(i++, run.localMs());
+            pstmt.setLong(i++, run.pushMs());
+            pstmt.setLong(i++, run.totalMs());
+            pstmt.setInt(i++, run.docsRead());
+            pstmt.setInt(i++, run.rowsWritten());
+            pstmt.setInt(i++, run.docsPushed());
+            pstmt.setLong(i++, run.bytesRead());
+            pstmt.setLong(i++, run.bytesPushed());
+            pstmt.setInt(i++, run.conflicts());
+            pstmt.setInt(i, run.retries());
+            pstmt.executeUpdate();
+
+            prunePstmt.setInt(1, keep);
+            prunePstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new Exception("Error saving sync run", e);
+        }
+    }
+
+    @Override
+    public List<SyncRun> getRecentRuns(int limit) throws Exception {
+        String sql = "SELECT " + COLUMNS + " FROM sync_runs ORDER BY id DESC LIMIT ?";
+        List<SyncRun> runs = new ArrayList<>();
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) runs.add(mapResultSetToSyncRun(rs));
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading sync runs", e);
+        }
+        return runs;
+    }
+
+    @Override
+    public SyncRun getLastSuccessfulRun() throws Exception {
+        return findLast("SELECT " + COLUMNS + " FROM sync_runs WHERE success = 1 ORDER BY id DESC LIMIT 1");
+    }
+
+    @Override
+    public SyncRun getLastSuccessfulReconcile() throws Exception {
+        return findLast("SELECT " + COLUMNS + " FROM sync_runs WHERE success = 1 AND full_reconcile = 1 ORDER BY id DESC LIMIT 1");
+    }
+
+    private SyncRun findLast(String sql) throws Exception {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? mapResultSetToSyncRun(rs) : null;
+        } catch (SQLException e) {
+            throw new Exception("Error reading sync runs", e);
+        }
+    }
+
+    private SyncRun mapResultSetToSyncRun(ResultSet rs) throws SQLException {
+        return new SyncRun(
+                rs.getLong("started_at"),
+                rs.getInt("full_reconcile") == 1,
+                rs.getInt("success") == 1,
+                rs.getString("error"),
+                rs.getLong("probe_ms"),
+                rs.getLong("pull_animals_ms"),
+                rs.getLong("pull_vaccines_ms"),
+                rs.getLong("local_ms"),
+                rs.getLong("push_ms"),
+                rs.getLong("total_ms"),
+                rs.getInt("docs_read"),
+                rs.getInt("rows_written"),
+                rs.getInt("docs_pushed"),
+                rs.getLong("bytes_read"),
+                rs.getLong("bytes_pushed"),
+                rs.getInt("conflicts"),
+                rs.getInt("retries"));
+    }
+}
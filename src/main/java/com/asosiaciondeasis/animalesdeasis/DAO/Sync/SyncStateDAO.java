@@ -0,0 +1,48 @@
+package com.asosiaciondeasis.animalesdeasis.DAO.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.ISyncStateDAO;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Persists the per-collection sync bookkeeping stored in {@code sync_state}.
+ */
+public class SyncStateDAO implements ISyncStateDAO {
+
+    private final Connection conn;
+
+    public SyncStateDAO(Connection conn) {
+        this.conn = conn;
+    }
+
+    @Override
+    public String getHighWaterMark(String collection) throws Exception {
+        String sql = "SELECT high_water_mark FROM sync_state WHERE collection = ?";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, collection);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getString("high_water_mark") : null;
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error reading sync state", e);
+        }
+    }
+
+    @Override
+    public void setHighWaterMark(String collection, String highWaterMark) throws Exception {
+        String sql = """
+                INSERT INTO sync_state (collection, high_water_mark) VALUES (?, ?)
+                ON CONFLICT(collection) DO UPDATE SET high_water_mark = excluded.high_water_mark
+                """;
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setString(1, collection);
+            pstmt.setString(2, highWaterMark);
+            pstmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new Exception("Error saving sync state", e);
+        }
+    }
+}
@@ -1,21 +1,41 @@
 package com.asosiaciondeasis.animalesdeasis.DAO.Vaccine;
 
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Vaccines.IVaccineDAO;
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
+import com.asosiaciondeasis.animalesdeasis.Model.RowVersion;
 import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Util.HybridLogicalClock;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class VaccineDAO implements IVaccineDAO {
 
+    // Rows sent to SQLite per executeBatch() call.
+    private static final int BATCH_SIZE = 500;
+
     private final Connection conn;
+    private final Connection readConn;
 
     public VaccineDAO(Connection conn) {
+        this(conn, conn);
+    }
+
+    /**
+     * @param conn     writer connection, used for every INSERT/UPDATE/DELETE
+     * @param readConn read-only connection used for queries (may be the same as {@code conn})
+     */
+    public VaccineDAO(Connection conn, Connection readConn) {
         this.conn = conn;
+        this.readConn = readConn;
     }
 
     @Override
@@ -24,13 +44,13 @@ public class VaccineDAO implements IVaccineDAO {
         //We have to separate the SQL query into two different queries, one with the last_modified field and another without it.
         if (vaccine.getLastModified() != null && !vaccine.getLastModified().trim().isEmpty()) {
             sql = """
-            INSERT INTO vaccines (id, animal_record_number, vaccine_name, vaccination_date, synced, last_modified)
-            VALUES (?, ?, ?, ?, ?, ?)
+            INSERT INTO vaccines (id, animal_record_number, vaccine_name, vaccination_date, synced, hlc, last_modified)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
         """;
         } else {
             sql = """
-            INSERT INTO vaccines (id, animal_record_number, vaccine_name, vaccination_date, synced)
-            VALUES (?, ?, ?, ?, ?)
+            INSERT INTO vaccines (id, animal_record_number, vaccine_name, vaccination_date, synced, hlc)
+            VALUES (?, ?, ?, ?, ?, ?)
         """;
         }
 
@@ -40,9 +60,10 @@ public class VaccineDAO implements IVaccineDAO {
             pstmt.setString(3, vaccine.getVaccineName());
             pstmt.setString(4, vaccine.getVaccinationDate());
             pstmt.setInt(5, vaccine.isSynced() ? 1 : 0);
+            pstmt.setLong(6, stamp(vaccine));
 
             if (vaccine.getLastModified() != null && !vaccine.getLastModified().trim().isEmpty()) {
-                pstmt.setString(6, vaccine.getLastModified());
+                pstmt.setString(7, vaccine.getLastModified());
             }
 
             pstmt.executeUpdate();
@@ -54,12 +75,62 @@ public class VaccineDAO implements IVaccineDAO {
         }
     }
 
+    /**
+     * Last-writer-wins upsert for many vaccines in one transaction with a single reused statement.
+     * Existing rows are only overwritten when the incoming version is newer: by {@code hlc}, or by
+     * {@code last_modified} when either side has no stamp.
+     *
+     * @return one entry per input row: 1 if inserted or updated, 0 if the local row was as new or newer
+     */
+    @Override
+    public int[] upsertVaccines(List<Vaccine> vaccines) throws Exception {
+        int[] outcomes = new int[vaccines.size()];
+        if (vaccines.isEmpty()) return outcomes;
+
+        String sql = """
+                INSERT INTO vaccines (id, animal_record_number, vaccine_name, vaccination_date, synced, last_modified, hlc)
+                VALUES (?, ?, ?, ?, ?, COALESCE(?, datetime('now', 'utc')), ?)
+                ON CONFLICT(id) DO UPDATE SET
+                    vaccine_name = excluded.vaccine_name, vaccination_date = excluded.vaccination_date,
+                    synced = excluded.synced, last_modified = excluded.last_modified, hlc = excluded.hlc
+                WHERE CASE WHEN excluded.hlc > 0 AND vaccines.hlc > 0 THEN excluded.hlc > vaccines.hlc
+                           ELSE excluded.last_modified > vaccines.last_modified END
+                """;
+
+        return DatabaseConnection.inTransaction(conn, () -> {
+            try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                int flushed = 0;
+                for (int i = 0; i < vaccines.size(); i++) {
+                    Vaccine vaccine = vaccines.get(i);
+                    pstmt.setString(1, vaccine.getId());
+                    pstmt.setString(2, vaccine.getAnimalRecordNumber());
+                    pstmt.setString(3, vaccine.getVaccineName());
+                    pstmt.setString(4, vaccine.getVaccinationDate());
+                    pstmt.setInt(5, vaccine.isSynced() ? 1 : 0);
+                    String lastModified = vaccine.getLastModified();
+                    pstmt.setString(6, (lastModified == null || lastModified.isBlank()) ? null : lastModified);
+                    pstmt.setLong(7, stamp(vaccine));
+                    pstmt.addBatch();
+
+                    if ((i + 1) % BATCH_SIZE == 0 || i == vaccines.size() - 1) {
+                        for (int count : pstmt.executeBatch()) {
+                            outcomes[flushed++] = count > 0 ? 1 : 0;
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error writing vaccine batch", e);
+            }
+            return outcomes;
+        });
+    }
+
     @Override
     public List<Vaccine> getVaccinesByAnimal(String animalRecordNumber) throws Exception {
         List<Vaccine> vaccines = new ArrayList<>();
         String sql = "SELECT * FROM vaccines WHERE animal_record_number = ? ORDER BY vaccination_date DESC";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
 
             /**
              * Set the parameter for the prepared statement with the animal's record number
@@ -92,13 +163,13 @@ public class VaccineDAO implements IVaccineDAO {
         if (timestamp) {
             sql = """
             UPDATE vaccines
-            SET vaccine_name = ?, vaccination_date = ?, synced = ?, last_modified = datetime('now', 'utc')
+            SET vaccine_name = ?, vaccination_date = ?, synced = ?, hlc = ?, last_modified = datetime('now', 'utc')
             WHERE id = ?
         """;
         } else {
             sql = """
             UPDATE vaccines
-            SET vaccine_name = ?, vaccination_date = ?, synced = ?, last_modified = ?
+            SET vaccine_name = ?, vaccination_date = ?, synced = ?, hlc = ?, last_modified = ?
             WHERE id = ?
         """;
         }
@@ -109,10 +180,14 @@ public class VaccineDAO implements IVaccineDAO {
             pstmt.setInt(3, vaccine.isSynced() ? 1 : 0);
 
             if (timestamp) {
-                pstmt.setString(4, vaccine.getId());
-            } else {
-                pstmt.setString(4, vaccine.getLastModified());
+                vaccine.setHlc(HybridLogicalClock.now());
+                pstmt.setLong(4, vaccine.getHlc());
                 pstmt.setString(5, vaccine.getId());
+            } else {
+                HybridLogicalClock.observe(vaccine.getHlc());
+                pstmt.setLong(4, vaccine.getHlc());
+                pstmt.setString(5, vaccine.getLastModified());
+                pstmt.setString(6, vaccine.getId());
             }
 
             int rowsAffected = pstmt.executeUpdate();
@@ -149,12 +224,127 @@ public class VaccineDAO implements IVaccineDAO {
         }
     }
 
+    /**
+     * Flags many vaccines as synced after a push with one set-based UPDATE per chunk of
+     * {@link #BATCH_SIZE} rows, inside a single transaction. Each entry maps a id to the
+     * {@code hlc} that was pushed; a row edited locally since it was read has a newer stamp, no
+     * longer matches and stays unsynced, so the edit is pushed on the next sync instead of being
+     * lost. {@code last_modified} cannot guard this: an edit in the same second would match.
+     *
+     * @param expectedVersions id -> {@code hlc} as read before the push
+     * @return number of rows actually flagged
+     */
+    @Override
+    public int markSynced(Map<String, Long> expectedVersions) throws Exception {
+        if (expectedVersions.isEmpty()) return 0;
+        List<Map.Entry<String, Long>> rows = new ArrayList<>(expectedVersions.entrySet());
+
+        return DatabaseConnection.inTransaction(conn, () -> {
+            int updated = 0;
+            for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                List<Map.Entry<String, Long>> chunk = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+                String sql = "UPDATE vaccines SET synced = 1 WHERE synced = 0 AND (id, hlc) IN (VALUES "
+                        + String.join(", ", Collections.nCopies(chunk.size(), "(?, ?)")) + ")";
+
+                try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                    int index = 1;
+                    for (Map.Entry<String, Long> row : chunk) {
+                        pstmt.setString(index++, row.getKey());
+                        pstmt.setLong(index++, row.getValue());
+                    }
+                    updated += pstmt.executeUpdate();
+                } catch (SQLException e) {
+                    throw new Exception("Error marking vaccines as synced", e);
+                }
+            }
+            return updated;
+        });
+    }
+
+    /**
+     * Deletes many vaccines by id in one transaction with a single reused statement.
+     *
+     * @return number of rows actually deleted (ids that no longer exist are ignored)
+     */
+    @Override
+    public int deleteVaccines(Collection<String> ids) throws Exception {
+        if (ids.isEmpty()) return 0;
+
+        return DatabaseConnection.inTransaction(conn, () -> {
+            int deleted = 0;
+            try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM vaccines WHERE id = ?")) {
+                int pending = 0;
+                for (String id : ids) {
+                    pstmt.setString(1, id);
+                    pstmt.addBatch();
+                    if (++pending == BATCH_SIZE) {
+                        deleted += sum(pstmt.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    deleted += sum(pstmt.executeBatch());
+                }
+            } catch (SQLException e) {
+                throw new Exception("Error deleting vaccine batch", e);
+            }
+            return deleted;
+        });
+    }
+
+    /**
+     * Loads {@code id -> (animal, last_modified, synced, hlc)} for every vaccine in one query, so the
+     * sync pull can decide inserts, updates and deletions in memory.
+     */
+    @Override
+    public Map<String, RowVersion> getSyncIndex() throws Exception {
+        Map<String, RowVersion> index = new HashMap<>();
+        String sql = "SELECT id, animal_record_number, last_modified, synced, hlc FROM vaccines";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            while (rs.next()) {
+                String id = rs.getString("id");
+                index.put(id, new RowVersion(id, rs.getString("animal_record_number"),
+                        rs.getString("last_modified"), rs.getInt("synced") == 1, rs.getLong("hlc")));
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error loading vaccine versions", e);
+        }
+        return index;
+    }
+
+    @Override
+    public Map<String, RowVersion> getSyncIndex(Collection<String> ids) throws Exception {
+        Map<String, RowVersion> index = new HashMap<>();
+        if (ids.isEmpty()) return index;
+
+        String sql = "SELECT id, animal_record_number, last_modified, synced, hlc FROM vaccines WHERE id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            int param = 1;
+            for (String id : ids) {
+                pstmt.setString(param++, id);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    String id = rs.getString("id");
+                    index.put(id, new RowVersion(id, rs.getString("animal_record_number"),
+                            rs.getString("last_modified"), rs.getInt("synced") == 1, rs.getLong("hlc")));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error loading vaccine versions", e);
+        }
+        return index;
+    }
+
     @Override
     public List<Vaccine> getAllUnsyncedVaccines() throws Exception {
         List<Vaccine> vaccines = new ArrayList<>();
         String sql = "SELECT * FROM vaccines WHERE synced = 0";
 
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
             ResultSet rs = pstmt.executeQuery();
 
             while (rs.next()) {
@@ -168,10 +358,62 @@ public class VaccineDAO implements IVaccineDAO {
         return vaccines;
     }
 
+    /**
+     * Keyset page over the synced vaccines, for the sync snapshot. Those of an animal with
+     * unsynced changes are left out along with the animal itself.
+     */
+    @Override
+    public List<Vaccine> getSyncedVaccinesAfter(String afterId, int limit) throws Exception {
+        List<Vaccine> vaccines = new ArrayList<>();
+        String sql = """
+                SELECT v.* FROM vaccines v
+                JOIN animals a ON a.record_number = v.animal_record_number
+                WHERE v.synced = 1 AND a.synced = 1 AND v.id > ?
+                ORDER BY v.id
+                LIMIT ?
+                """;
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            pstmt.setString(1, afterId == null ? "" : afterId);
+            pstmt.setInt(2, limit);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    vaccines.add(mapResultSetToVaccine(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error retrieving synced vaccines", e);
+        }
+        return vaccines;
+    }
+
+    /** Loads the still-unsynced vaccines among {@code ids} in one query (see the animal counterpart). */
+    @Override
+    public List<Vaccine> getUnsyncedVaccines(Collection<String> ids) throws Exception {
+        List<Vaccine> vaccines = new ArrayList<>();
+        if (ids.isEmpty()) return vaccines;
+
+        String sql = "SELECT * FROM vaccines WHERE synced = 0 AND id IN ("
+                + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")";
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
+            int index = 1;
+            for (String id : ids) {
+                pstmt.setString(index++, id);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    vaccines.add(mapResultSetToVaccine(rs));
+                }
+            }
+        } catch (SQLException e) {
+            throw new Exception("Error retrieving unsynced vaccines", e);
+        }
+        return vaccines;
+    }
+
     @Override
     public Vaccine existsVaccine(String id) throws Exception {
         String sql = "SELECT * FROM vaccines WHERE id = ?";
-        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = readConn.prepareStatement(sql)) {
             pstmt.setString(1, id);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -181,6 +423,28 @@ public class VaccineDAO implements IVaccineDAO {
         return null;
     }
 
+    private static int sum(int[] counts) {
+        int total = 0;
+        for (int count : counts) {
+            total += Math.max(count, 0);
+        }
+        return total;
+    }
+
+    /**
+     * The {@code hlc} to store with a row: a new stamp for a local write (no last_modified yet),
+     * the carried one, observed by the clock, for a pulled or imported version.
+     */
+    private static long stamp(Vaccine vaccine) {
+        String lastModified = vaccine.getLastModified();
+        if (lastModified == null || lastModified.isBlank()) {
+            vaccine.setHlc(HybridLogicalClock.now());
+        } else {
+            HybridLogicalClock.observe(vaccine.getHlc());
+        }
+        return vaccine.getHlc();
+    }
+
     private Vaccine mapResultSetToVaccine(ResultSet rs) throws SQLException {
         Vaccine vaccine = Vaccine.fromExistingRecord(rs.getString("id"));
         vaccine.setAnimalRecordNumber(rs.getString("animal_record_number"));
@@ -188,6 +452,7 @@ public class VaccineDAO implements IVaccineDAO {
         vaccine.setVaccinationDate(rs.getString("vaccination_date"));
         vaccine.setSynced(rs.getInt("synced") == 1);
         vaccine.setLastModified(rs.getString("last_modified"));
+        vaccine.setHlc(rs.getLong("hlc"));
         return vaccine;
     }
 }
@@ -0,0 +1,20 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * What the in-memory statistics can group counts by. Groups come back in this natural order:
+ * years and months ascending, species and sexes as listed in the schema, provinces by name.
+ */
+public enum AnalyticsDimension {
+    /** Admission year, e.g. "2024". */
+    YEAR,
+    /** Admission month, "01".."12". */
+    MONTH,
+    /** "Perro" or "Gato". */
+    SPECIES,
+    /** "Macho", "Hembra" or "Sin especificar". */
+    SEX,
+    /** Province of the place of rescue. */
+    PROVINCE,
+    /** "Adoptado" or "No adoptado". */
+    ADOPTED
+}
@@ -0,0 +1,23 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * Criteria for slicing the statistics interactively. Any criterion left {@code null} is
+ * ignored, so {@link #all()} matches every animal, active or not.
+ *
+ * @param year     admission year
+ * @param species  'Perro' or 'Gato'
+ * @param sex      'Macho' or 'Hembra'
+ * @param province province name of the place of rescue
+ * @param adopted  adopted or not
+ * @param active   active or soft-deleted
+ */
+public record AnalyticsFilter(Integer year, String species, String sex, String province, Boolean adopted, Boolean active) {
+
+    public static AnalyticsFilter all() {
+        return new AnalyticsFilter(null, null, null, null, null, null);
+    }
+
+    public static AnalyticsFilter ofYear(int year) {
+        return new AnalyticsFilter(year, null, null, null, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * The columns of one animal that the in-memory statistics slice on, loaded in bulk.
+ *
+ * @param recordNumber  the animal's record number
+ * @param admissionDate the row's {@code admission_date}, as stored
+ * @param species       'Perro' or 'Gato'
+ * @param sex           'Macho', 'Hembra' or {@code null}
+ * @param placeId       place of rescue
+ * @param adopted       whether the animal was adopted
+ * @param active        {@code false} if the animal was soft-deleted
+ * @param hlc           the row's {@code HybridLogicalClock} stamp, 0 if it has none
+ */
+public record AnalyticsRow(String recordNumber, String admissionDate, String species, String sex,
+                           int placeId, boolean adopted, boolean active, long hlc) {
+}
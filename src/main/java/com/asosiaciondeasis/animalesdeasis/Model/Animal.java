@@ -24,6 +24,7 @@ public class Animal {
     private boolean active = true;
     private boolean synced;
     private String lastModified;
+    private long hlc; // HybridLogicalClock stamp of the last write, 0 if unknown
 
 
     public Animal() {
@@ -173,6 +174,14 @@ public class Animal {
         this.lastModified = lastModified;
     }
 
+    public long getHlc() {
+        return hlc;
+    }
+
+    public void setHlc(long hlc) {
+        this.hlc = hlc;
+    }
+
     public boolean isActive() {
         return active;
     }
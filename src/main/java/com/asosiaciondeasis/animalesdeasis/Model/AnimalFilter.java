@@ -0,0 +1,20 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * Immutable set of criteria used by the animal listing (management table).
+ * Any criterion left {@code null}/blank is ignored. Dates must already be in
+ * {@code YYYY-MM-DD} format (the controller converts them).
+ *
+ * @param species      'Perro' or 'Gato', or {@code null} for both
+ * @param startDate    inclusive lower bound of admission_date
+ * @param endDate      inclusive upper bound of admission_date
+ * @param chipNumber   partial chip number (matched with LIKE)
+ * @param showInactive {@code true} to list only soft-deleted animals
+ */
+public record AnimalFilter(String species, String startDate, String endDate, String chipNumber, Boolean showInactive) {
+
+    /** Filter used when the screen opens: every active animal. */
+    public static AnimalFilter activeOnly() {
+        return new AnimalFilter(null, null, null, null, false);
+    }
+}
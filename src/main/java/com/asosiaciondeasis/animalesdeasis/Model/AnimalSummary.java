@@ -0,0 +1,23 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * Read model for the animal management table: only the columns the table shows
+ * (plus the keys needed to page and to open the full record). Large free-text
+ * columns such as {@code ailments} or {@code reason_for_rescue} are never loaded
+ * for the listing; the full {@link Animal} is fetched when the detail or edit view opens.
+ */
+public record AnimalSummary(
+        String recordNumber,
+        String admissionDate,
+        String name,
+        String species,
+        String sex,
+        boolean adopted,
+        boolean active
+) {
+
+    /** Cursor pointing right after this row in the listing order. */
+    public PageCursor toCursor() {
+        return new PageCursor(admissionDate, recordNumber);
+    }
+}
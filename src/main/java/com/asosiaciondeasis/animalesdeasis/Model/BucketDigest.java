@@ -0,0 +1,54 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Order-independent fingerprint of the documents in one bucket (animals whose record number
+ * starts with the same {@link #PREFIX_LENGTH} characters, together with their vaccines).
+ *
+ * <p>Each document version contributes {@link #of(String, String, String)}: a count of 1 and a
+ * 32-bit hash of (entity, id, lastModified). Digests are plain sums, so a writer can keep a
+ * remote digest current with increments ({@code +new -old}) and two digests are equal when the
+ * buckets hold the same versions (barring a hash collision).</p>
+ *
+ * @param count number of documents in the bucket
+ * @param hash  sum of the documents' 32-bit hashes
+ */
+public record BucketDigest(long count, long hash) {
+
+    public static final BucketDigest EMPTY = new BucketDigest(0, 0);
+    public static final int PREFIX_LENGTH = 2;
+
+    /** Bucket of an animal, or of a vaccine given its animal's record number. */
+    public static String bucketOf(String animalRecordNumber) {
+        return animalRecordNumber.length() <= PREFIX_LENGTH
+                ? animalRecordNumber
+                : animalRecordNumber.substring(0, PREFIX_LENGTH);
+    }
+
+    /** Contribution of one document version. */
+    public static BucketDigest of(String entity, String id, String lastModified) {
+        // FNV-1a over the key, finished with a 64-bit mixer so nearby timestamps spread out.
+        long h = 0xcbf29ce484222325L;
+        for (byte b : (entity + '/' + id + '@' + lastModified).getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return new BucketDigest(1, h & 0xffffffffL);
+    }
+
+    public BucketDigest plus(BucketDigest other) {
+        return new BucketDigest(count + other.count, hash + other.hash);
+    }
+
+    public BucketDigest minus(BucketDigest other) {
+        return new BucketDigest(count - other.count, hash - other.hash);
+    }
+
+    public boolean isEmpty() {
+        return count == 0 && hash == 0;
+    }
+}
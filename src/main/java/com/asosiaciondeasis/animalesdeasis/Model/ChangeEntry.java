@@ -0,0 +1,27 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * One row of the {@code change_log} outbox: a local insert/update ({@link #UPSERT}) or a
+ * delete tombstone ({@link #DELETE}) still waiting to be pushed to Firebase.
+ *
+ * @param seq      monotonically increasing sequence number (push order)
+ * @param entity   {@link #ANIMAL} or {@link #VACCINE}
+ * @param entityId record number of the animal / id of the vaccine
+ * @param parentId owning animal's record number for vaccines, {@code null} for animals
+ * @param op       {@link #UPSERT} or {@link #DELETE}
+ */
+public record ChangeEntry(long seq, String entity, String entityId, String parentId, String op) {
+
+    public static final String ANIMAL = "animal";
+    public static final String VACCINE = "vaccine";
+    public static final String UPSERT = "upsert";
+    public static final String DELETE = "delete";
+
+    public boolean isDelete() {
+        return DELETE.equals(op);
+    }
+
+    public boolean isAnimal() {
+        return ANIMAL.equals(entity);
+    }
+}
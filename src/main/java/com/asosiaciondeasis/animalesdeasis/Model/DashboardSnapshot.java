@@ -0,0 +1,40 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Every statistic of the dashboard for one year, read in a single query. Immutable, so the
+ * statistics screen and the CSV export can share the same instance.
+ *
+ * @param monthlyAdmissions admissions per month with any, keyed "01".."12", in month order
+ * @param origins admissions per "place, province", most frequent first
+ */
+public record DashboardSnapshot(
+        int year,
+        Map<String, Integer> monthlyAdmissions,
+        Map<String, Integer> origins,
+        int totalAdmissions,
+        int adoptedAnimals
+) {
+
+    public DashboardSnapshot {
+        monthlyAdmissions = Collections.unmodifiableMap(new LinkedHashMap<>(monthlyAdmissions));
+        origins = Collections.unmodifiableMap(new LinkedHashMap<>(origins));
+    }
+
+    /** Percentage of the year's admissions that were adopted, 0 when there were none. */
+    public double adoptionRate() {
+        return totalAdmissions == 0 ? 0.0 : (adoptedAnimals / (double) totalAdmissions) * 100;
+    }
+
+    public int notAdoptedAnimals() {
+        return totalAdmissions - adoptedAnimals;
+    }
+
+    /** Average admissions over the months that had any. */
+    public double monthlyAverage() {
+        return monthlyAdmissions.values().stream().mapToInt(Integer::intValue).average().orElse(0.0);
+    }
+}
@@ -0,0 +1,9 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * Position in the animal listing, used for keyset pagination. The listing is
+ * ordered by {@code admission_date DESC, record_number DESC}; a page starts right
+ * after the row identified by this cursor.
+ */
+public record PageCursor(String admissionDate, String recordNumber) {
+}
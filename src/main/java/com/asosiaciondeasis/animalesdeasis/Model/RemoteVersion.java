@@ -0,0 +1,26 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * The version of a document last known to exist in Firebase, kept in {@code remote_versions}.
+ *
+ * @param entity   {@link ChangeEntry#ANIMAL} or {@link ChangeEntry#VACCINE}
+ * @param entityId record number of the animal / id of the vaccine
+ * @param bucket   {@link BucketDigest#bucketOf} the animal (the owning animal for vaccines)
+ * @param version  the document's lastModified in Firebase
+ */
+public record RemoteVersion(String entity, String entityId, String bucket, String version) {
+
+    public static RemoteVersion of(Animal animal) {
+        return new RemoteVersion(ChangeEntry.ANIMAL, animal.getRecordNumber(),
+                BucketDigest.bucketOf(animal.getRecordNumber()), animal.getLastModified());
+    }
+
+    public static RemoteVersion of(Vaccine vaccine) {
+        return new RemoteVersion(ChangeEntry.VACCINE, vaccine.getId(),
+                BucketDigest.bucketOf(vaccine.getAnimalRecordNumber()), vaccine.getLastModified());
+    }
+
+    public BucketDigest digest() {
+        return BucketDigest.of(entity, entityId, version);
+    }
+}
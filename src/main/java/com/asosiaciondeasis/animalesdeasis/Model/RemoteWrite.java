@@ -0,0 +1,48 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+import java.util.Set;
+
+/**
+ * A single document write sent to the remote store: "animals/{animalRecordNumber}" or, when
+ * {@code vaccineId} is set, "animals/{animalRecordNumber}/vaccines/{vaccineId}".
+ *
+ * @param animalRecordNumber the animal document (or the vaccine's parent)
+ * @param vaccineId          vaccine document id, {@code null} for animal documents
+ * @param data               the {@link Animal}/{@link Vaccine} to store, {@code null} to delete the document
+ * @param fields             document fields to merge into the existing document, {@code null} to replace it whole
+ */
+public record RemoteWrite(String animalRecordNumber, String vaccineId, Object data, Set<String> fields) {
+
+    public static RemoteWrite setAnimal(Animal animal) {
+        return new RemoteWrite(animal.getRecordNumber(), null, animal, null);
+    }
+
+    /** Updates only {@code fields} (plus lastModified and synced) of an animal already in the remote. */
+    public static RemoteWrite mergeAnimal(Animal animal, Set<String> fields) {
+        return new RemoteWrite(animal.getRecordNumber(), null, animal, Set.copyOf(fields));
+    }
+
+    public static RemoteWrite setVaccine(Vaccine vaccine) {
+        return new RemoteWrite(vaccine.getAnimalRecordNumber(), vaccine.getId(), vaccine, null);
+    }
+
+    public static RemoteWrite deleteAnimal(String recordNumber) {
+        return new RemoteWrite(recordNumber, null, null, null);
+    }
+
+    public static RemoteWrite deleteVaccine(String animalRecordNumber, String vaccineId) {
+        return new RemoteWrite(animalRecordNumber, vaccineId, null, null);
+    }
+
+    public boolean isDelete() {
+        return data == null;
+    }
+
+    public boolean isMerge() {
+        return fields != null;
+    }
+
+    public boolean isVaccine() {
+        return vaccineId != null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * Minimal version information of a local row, loaded in bulk so the sync can
+ * decide inserts/updates/deletes in memory instead of querying row by row.
+ *
+ * @param id           primary key (record number or vaccine id)
+ * @param parentId     owning animal's record number for vaccines, {@code null} for animals
+ * @param lastModified the row's {@code last_modified} timestamp
+ * @param synced       whether the row is flagged as synced
+ * @param hlc          the row's {@code HybridLogicalClock} stamp, 0 if it has none
+ */
+public record RowVersion(String id, String parentId, String lastModified, boolean synced, long hlc) {
+}
@@ -0,0 +1,33 @@
+package com.asosiaciondeasis.animalesdeasis.Model;
+
+/**
+ * Metrics of one sync run, as kept in memory, stored in {@code sync_runs} and emitted to JFR.
+ *
+ * @param startedAt      start of the run, epoch milliseconds
+ * @param fullReconcile  whether the pull compared every remote document
+ * @param success        whether the run completed
+ * @param error          failure message, {@code null} on success
+ * @param probeMs        connectivity / availability check
+ * @param pullAnimalsMs  fetching animals from the remote store
+ * @param pullVaccinesMs fetching (and comparing) vaccine pages
+ * @param localMs        local database reads and writes of the pull
+ * @param pushMs         draining the outbox: reading it, committing batches, acknowledging them
+ * @param totalMs        wall-clock duration of the whole run
+ * @param docsRead       remote documents fetched
+ * @param rowsWritten    local rows inserted, updated or deleted by the pull
+ * @param docsPushed     remote writes committed (sets and deletes)
+ * @param bytesRead      estimated size of the fetched documents
+ * @param bytesPushed    estimated size of the committed writes
+ * @param conflicts      remote versions ignored because the local copy was newer or deleted
+ * @param retries        failed runs immediately before this one
+ */
+public record SyncRun(long startedAt, boolean fullReconcile, boolean success, String error,
+                      long probeMs, long pullAnimalsMs, long pullVaccinesMs, long localMs, long pushMs, long totalMs,
+                      int docsRead, int rowsWritten, int docsPushed, long bytesRead, long bytesPushed,
+                      int conflicts, int retries) {
+
+    /** End of the run, epoch milliseconds. */
+    public long finishedAt() {
+        return startedAt + totalMs;
+    }
+}
@@ -10,6 +10,7 @@ public class Vaccine {
     private String vaccinationDate;
     private boolean synced;
     private String lastModified;
+    private long hlc; // HybridLogicalClock stamp of the last write, 0 if unknown
 
 
     public Vaccine() {}
@@ -63,4 +64,12 @@ public class Vaccine {
     public void setLastModified(String lastModified) {
         this.lastModified = lastModified;
     }
+
+    public long getHlc() {
+        return hlc;
+    }
+
+    public void setHlc(long hlc) {
+        this.hlc = hlc;
+    }
 }
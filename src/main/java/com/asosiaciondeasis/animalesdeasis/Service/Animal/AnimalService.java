@@ -3,9 +3,15 @@ package com.asosiaciondeasis.animalesdeasis.Service.Animal;
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Animals.IAnimalDAO;
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Animals.IAnimalService;
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalSummary;
+import com.asosiaciondeasis.animalesdeasis.Model.PageCursor;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
 import com.asosiaciondeasis.animalesdeasis.Util.DateUtils;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class AnimalService implements IAnimalService {
 
@@ -19,6 +25,7 @@ public class AnimalService implements IAnimalService {
     public boolean registerAnimal(Animal animal) throws Exception {
 
         animalDAO.insertAnimal(animal);
+        DataChangeEventManager.notifyLocalChange(admissionYears(animal));
         return true;
     }
 
@@ -37,19 +44,64 @@ public class AnimalService implements IAnimalService {
         return animalDAO.findByFilters(species, startDate, endDate, chipNumber ,showInactive);
     }
 
+    @Override
+    public List<Animal> findPage(AnimalFilter filter, PageCursor after, int limit) throws Exception {
+        if (after == null) {
+            return animalDAO.findPage(filter, null, null, limit);
+        }
+        return animalDAO.findPage(filter, after.admissionDate(), after.recordNumber(), limit);
+    }
+
+    @Override
+    public List<AnimalSummary> findSummaryPage(AnimalFilter filter, PageCursor after, int limit) throws Exception {
+        if (after == null) {
+            return animalDAO.findSummaryPage(filter, null, null, limit);
+        }
+        return animalDAO.findSummaryPage(filter, after.admissionDate(), after.recordNumber(), limit);
+    }
+
+    @Override
+    public int countByFilters(AnimalFilter filter) throws Exception {
+        return animalDAO.countByFilters(filter);
+    }
+
+    @Override
+    public PageCursor findCursorAt(AnimalFilter filter, int offset) throws Exception {
+        return animalDAO.findCursorAt(filter, offset);
+    }
+
     @Override
     public boolean updateAnimal(Animal animal, boolean timestamp) throws Exception {
+        // The stored version tells which year the animal is moved out of, if its date changed.
+        Animal stored = animalDAO.findByRecordNumber(animal.getRecordNumber());
         animalDAO.updateAnimal(animal, true);
+        DataChangeEventManager.notifyLocalChange(admissionYears(stored, animal));
         return true;
     }
 
     @Override
     public void deleteAnimal(String recordNumber) throws Exception {
         animalDAO.deleteAnimal(recordNumber);
+        // Deactivating keeps the animal in the statistics, so no year changes.
+        DataChangeEventManager.notifyLocalChange(Set.of());
     }
 
     @Override
     public void reactivateAnimal(String recordNumber) throws Exception {
         animalDAO.reactivateAnimal(recordNumber);
+        DataChangeEventManager.notifyLocalChange(Set.of());
+    }
+
+    /** Admission years of the given versions of an animal, skipping missing ones and bad dates. */
+    private static Set<Integer> admissionYears(Animal... versions) {
+        Set<Integer> years = new HashSet<>();
+        for (Animal version : versions) {
+            if (version == null) continue;
+            String date = version.getAdmissionDate();
+            if (date != null && date.length() >= 4 && date.substring(0, 4).chars().allMatch(Character::isDigit)) {
+                years.add(Integer.parseInt(date.substring(0, 4)));
+            }
+        }
+        return years;
     }
 }
@@ -0,0 +1,445 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Statistics;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsDimension;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsRow;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
+import com.asosiaciondeasis.animalesdeasis.Util.SyncEventManager;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory copy of the columns of {@code animals} that the statistics slice on, so any
+ * combination of year, species, sex, province, adoption and active status is counted without
+ * going to SQLite.
+ *
+ * <p>The columns are primitive arrays, one entry per animal: admission date as an epoch day,
+ * species, sex, adopted and active as byte codes, the place as a short. A count is a single loop
+ * over them that allocates nothing but its result; above {@code parallelThreshold} rows the
+ * range is split and counted on the fork-join pool, and the partial counts added up.</p>
+ *
+ * <p>The table is loaded on first use and then kept current incrementally. Listeners only take
+ * note of a change; the next query applies it:</p>
+ * <ul>
+ *   <li><b>Local edits</b> ({@link DataChangeEventManager}) are stamped with a newer
+ *       {@code HybridLogicalClock} value than anything loaded, so the rows stamped after the
+ *       highest one seen are read again, through the index on {@code hlc}.</li>
+ *   <li><b>Live sync changes</b> ({@link SyncEventManager}) name their animals, which are read
+ *       again; a whole sync run may have changed anything and reloads the table.</li>
+ * </ul>
+ */
+public class AnimalAnalytics {
+
+    /** Rows counted by a single thread; larger tables are split across the fork-join pool. */
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 15;
+
+    private static final int NO_DAY = Integer.MIN_VALUE;
+    /** Query code of a criterion that is not set. */
+    private static final int ANY = Integer.MIN_VALUE;
+    /** Query code of a criterion no animal can meet (an unknown species, province, ...). */
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private static final String[] SPECIES = {"Perro", "Gato"};
+    private static final String[] SEXES = {"Macho", "Hembra", "Sin especificar"};
+    private static final byte UNKNOWN_SEX = 2;
+    private static final String[] ADOPTION = {"No adoptado", "Adoptado"};
+
+    private final IStatisticsDAO statisticsDAO;
+    private final int parallelThreshold;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Row i of every column is the same animal; rows [0, size) are in use.
+    private int size;
+    private int[] admissionDay = new int[0];
+    private byte[] species = new byte[0];
+    private byte[] sex = new byte[0];
+    private byte[] adopted = new byte[0];
+    private byte[] active = new byte[0];
+    private short[] place = new short[0];
+    private String[] recordNumber = new String[0];
+    private final Map<String, Integer> rowOf = new HashMap<>();
+
+    /** Province code (index into {@link #provinceNames}) by place id, -1 if unknown. */
+    private byte[] provinceOfPlace = new byte[0];
+    private List<String> provinceNames = List.of();
+    private int minYear = Integer.MAX_VALUE;
+    private int maxYear = Integer.MIN_VALUE;
+    private long highestHlc;
+    private boolean loaded;
+
+    private volatile boolean reloadNeeded;
+    private volatile boolean localChanges;
+    private final Set<String> changedRecords = ConcurrentHashMap.newKeySet();
+
+    private final Runnable localChangeListener = () -> localChanges = true;
+    private final Consumer<Set<String>> syncChangeListener = changed -> {
+        if (changed == null) {
+            reloadNeeded = true;
+        } else {
+            changedRecords.addAll(changed);
+        }
+    };
+
+    public AnimalAnalytics(IStatisticsDAO statisticsDAO) {
+        this(statisticsDAO, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public AnimalAnalytics(IStatisticsDAO statisticsDAO, int parallelThreshold) {
+        this.statisticsDAO = statisticsDAO;
+        this.parallelThreshold = Math.max(1, parallelThreshold);
+    }
+
+    /** Starts following local edits and syncs. */
+    public void start() {
+        DataChangeEventManager.addListener(localChangeListener);
+        SyncEventManager.addChangeListener(syncChangeListener);
+    }
+
+    /** Stops following changes; the next query after a restart reloads the table. */
+    public void stop() {
+        DataChangeEventManager.removeListener(localChangeListener);
+        SyncEventManager.removeChangeListener(syncChangeListener);
+        reloadNeeded = true;
+    }
+
+    /** Number of animals matching {@code filter}. */
+    public int count(AnalyticsFilter filter) throws Exception {
+        ensureCurrent();
+        lock.readLock().lock();
+        try {
+            return countAll(compile(filter), null, 1)[0];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of animals matching {@code filter} in each group of {@code dimension}, groups in
+     * their natural order (see {@link AnalyticsDimension}); empty groups are left out.
+     */
+    public Map<String, Integer> countBy(AnalyticsDimension dimension, AnalyticsFilter filter) throws Exception {
+        ensureCurrent();
+        lock.readLock().lock();
+        try {
+            int buckets = switch (dimension) {
+                case YEAR -> minYear > maxYear ? 0 : maxYear - minYear + 1;
+                case MONTH -> 12;
+                case SPECIES -> SPECIES.length;
+                case SEX -> SEXES.length;
+                case PROVINCE -> provinceNames.size();
+                case ADOPTED -> ADOPTION.length;
+            };
+            int[] counts = countAll(compile(filter), dimension, buckets);
+
+            Map<String, Integer> result = new LinkedHashMap<>();
+            for (int b = 0; b < buckets; b++) {
+                if (counts[b] > 0) result.put(label(dimension, b), counts[b]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private String label(AnalyticsDimension dimension, int bucket) {
+        return switch (dimension) {
+            case YEAR -> String.valueOf(minYear + bucket);
+            case MONTH -> String.format("%02d", bucket + 1);
+            case SPECIES -> SPECIES[bucket];
+            case SEX -> SEXES[bucket];
+            case PROVINCE -> provinceNames.get(bucket);
+            case ADOPTED -> ADOPTION[bucket];
+        };
+    }
+
+    // ---- Counting (read lock held) ----
+
+    /** A filter turned into the codes of the columns; {@link #ANY} where it is not set. */
+    private record Query(int dayFrom, int dayTo, int species, int sex, int province, int adopted, int active) {
+    }
+
+    private Query compile(AnalyticsFilter filter) {
+        int dayFrom = Integer.MIN_VALUE;
+        int dayTo = Integer.MAX_VALUE;
+        if (filter.year() != null) {
+            dayFrom = (int) LocalDate.of(filter.year(), 1, 1).toEpochDay();
+            dayTo = (int) LocalDate.of(filter.year() + 1, 1, 1).toEpochDay();
+        }
+        return new Query(dayFrom, dayTo,
+                filter.species() == null ? ANY : codeOf(SPECIES, filter.species()),
+                filter.sex() == null ? ANY : codeOf(SEXES, filter.sex()),
+                filter.province() == null ? ANY : codeOf(provinceNames, filter.province()),
+                filter.adopted() == null ? ANY : (filter.adopted() ? 1 : 0),
+                filter.active() == null ? ANY : (filter.active() ? 1 : 0));
+    }
+
+    private int[] countAll(Query query, AnalyticsDimension dimension, int buckets) {
+        if (size <= parallelThreshold) {
+            return countRange(0, size, query, dimension, buckets);
+        }
+        return ForkJoinPool.commonPool().invoke(new CountTask(0, size, query, dimension, buckets));
+    }
+
+    private int[] countRange(int from, int to, Query query, AnalyticsDimension dimension, int buckets) {
+        int[] counts = new int[buckets];
+        for (int i = from; i < to; i++) {
+            int day = admissionDay[i];
+            if (day < query.dayFrom || day >= query.dayTo) continue;
+            if (query.species != ANY && species[i] != query.species) continue;
+            if (query.sex != ANY && sex[i] != query.sex) continue;
+            if (query.province != ANY && provinceOf(place[i]) != query.province) continue;
+            if (query.adopted != ANY && adopted[i] != query.adopted) continue;
+            if (query.active != ANY && active[i] != query.active) continue;
+
+            int bucket = bucketOf(i, day, dimension);
+            if (bucket >= 0 && bucket < buckets) counts[bucket]++;
+        }
+        return counts;
+    }
+
+    private int bucketOf(int row, int day, AnalyticsDimension dimension) {
+        if (dimension == null) return 0;
+        return switch (dimension) {
+            case YEAR -> day == NO_DAY ? -1 : Math.floorDiv(yearMonth(day), 12) - minYear;
+            case MONTH -> day == NO_DAY ? -1 : Math.floorMod(yearMonth(day), 12);
+            case SPECIES -> species[row];
+            case SEX -> sex[row];
+            case PROVINCE -> provinceOf(place[row]);
+            case ADOPTED -> adopted[row];
+        };
+    }
+
+    private int provinceOf(short placeId) {
+        return placeId >= 0 && placeId < provinceOfPlace.length ? provinceOfPlace[placeId] : -1;
+    }
+
+    /** Splits a range in halves until it is small enough to count on one thread. */
+    private final class CountTask extends RecursiveTask<int[]> {
+        private final int from;
+        private final int to;
+        private final Query query;
+        private final AnalyticsDimension dimension;
+        private final int buckets;
+
+        CountTask(int from, int to, Query query, AnalyticsDimension dimension, int buckets) {
+            this.from = from;
+            this.to = to;
+            this.query = query;
+            this.dimension = dimension;
+            this.buckets = buckets;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from <= parallelThreshold) {
+                return countRange(from, to, query, dimension, buckets);
+            }
+            int mid = (from + to) >>> 1;
+            CountTask left = new CountTask(from, mid, query, dimension, buckets);
+            left.fork();
+            int[] counts = new CountTask(mid, to, query, dimension, buckets).compute();
+            int[] leftCounts = left.join();
+            for (int b = 0; b < buckets; b++) {
+                counts[b] += leftCounts[b];
+            }
+            return counts;
+        }
+    }
+
+    /**
+     * {@code year * 12 + month - 1} of an epoch day, without allocating a {@link LocalDate}
+     * (H. Hinnant's civil-from-days).
+     */
+    static int yearMonth(int epochDay) {
+        int z = epochDay + 719468;
+        int era = Math.floorDiv(z, 146097);
+        int doe = z - era * 146097;
+        int yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+        int doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+        int mp = (5 * doy + 2) / 153;
+        int month = mp < 10 ? mp + 3 : mp - 9;
+        int year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+        return year * 12 + month - 1;
+    }
+
+    // ---- Loading and incremental updates (write lock held) ----
+
+    private void ensureCurrent() throws Exception {
+        if (loaded && !reloadNeeded && !localChanges && changedRecords.isEmpty()) return;
+
+        lock.writeLock().lock();
+        try {
+            if (!loaded || reloadNeeded) {
+                // Flags first: a change made while loading is applied by the next query.
+                reloadNeeded = false;
+                localChanges = false;
+                changedRecords.clear();
+                loaded = false;
+                load();
+                loaded = true;
+                return;
+            }
+            if (localChanges) {
+                localChanges = false;
+                try {
+                    applyRows(statisticsDAO.getAnalyticsRowsChangedAfter(highestHlc));
+                } catch (Exception e) {
+                    localChanges = true;
+                    throw e;
+                }
+            }
+            if (!changedRecords.isEmpty()) {
+                Set<String> changed = new HashSet<>(changedRecords);
+                changedRecords.removeAll(changed);
+                try {
+                    List<AnalyticsRow> rows = statisticsDAO.getAnalyticsRows(changed);
+                    applyRows(rows);
+                    for (AnalyticsRow row : rows) changed.remove(row.recordNumber());
+                    for (String gone : changed) removeRow(gone);
+                } catch (Exception e) {
+                    changedRecords.addAll(changed);
+                    throw e;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void load() throws Exception {
+        List<AnalyticsRow> rows = statisticsDAO.getAnalyticsRows();
+        loadPlaces();
+
+        size = 0;
+        rowOf.clear();
+        Arrays.fill(recordNumber, null);
+        ensureCapacity(rows.size());
+        minYear = Integer.MAX_VALUE;
+        maxYear = Integer.MIN_VALUE;
+        highestHlc = 0;
+        applyRows(rows);
+        System.out.println("📊 Estadísticas en memoria: " + size + " animales");
+    }
+
+    private void loadPlaces() throws Exception {
+        Map<Integer, String> provinceByPlace = statisticsDAO.getProvinceNamesByPlace();
+        List<String> names = new ArrayList<>(new TreeSet<>(provinceByPlace.values()));
+        if (names.size() > Byte.MAX_VALUE) {
+            throw new Exception("Error loading the statistics: too many provinces (" + names.size() + ")");
+        }
+        int highestPlace = provinceByPlace.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1);
+        if (highestPlace > Short.MAX_VALUE) {
+            throw new Exception("Error loading the statistics: place id " + highestPlace + " does not fit");
+        }
+
+        byte[] codes = new byte[highestPlace + 1];
+        Arrays.fill(codes, (byte) -1);
+        for (Map.Entry<Integer, String> entry : provinceByPlace.entrySet()) {
+            if (entry.getKey() >= 0) codes[entry.getKey()] = (byte) names.indexOf(entry.getValue());
+        }
+        provinceOfPlace = codes;
+        provinceNames = List.copyOf(names);
+    }
+
+    private void applyRows(List<AnalyticsRow> rows) throws Exception {
+        boolean unknownPlace = false;
+        for (AnalyticsRow row : rows) {
+            Integer index = rowOf.get(row.recordNumber());
+            int i;
+            if (index == null) {
+                ensureCapacity(size + 1);
+                i = size++;
+                recordNumber[i] = row.recordNumber();
+                rowOf.put(row.recordNumber(), i);
+            } else {
+                i = index;
+            }
+
+            int day = epochDay(row.admissionDate());
+            admissionDay[i] = day;
+            if (day != NO_DAY) {
+                int year = Math.floorDiv(yearMonth(day), 12);
+                minYear = Math.min(minYear, year);
+                maxYear = Math.max(maxYear, year);
+            }
+            int speciesCode = codeOf(SPECIES, row.species());
+            species[i] = speciesCode == NONE ? -1 : (byte) speciesCode;
+            int sexCode = row.sex() == null ? UNKNOWN_SEX : codeOf(SEXES, row.sex());
+            sex[i] = sexCode == NONE ? UNKNOWN_SEX : (byte) sexCode;
+            adopted[i] = (byte) (row.adopted() ? 1 : 0);
+            active[i] = (byte) (row.active() ? 1 : 0);
+            place[i] = row.placeId() >= 0 && row.placeId() <= Short.MAX_VALUE ? (short) row.placeId() : -1;
+            unknownPlace |= provinceOf(place[i]) < 0;
+            highestHlc = Math.max(highestHlc, row.hlc());
+        }
+        // A place added since the places were loaded.
+        if (unknownPlace) loadPlaces();
+    }
+
+    /** Moves the last row into the removed one's slot, so the rows in use stay contiguous. */
+    private void removeRow(String record) {
+        Integer index = rowOf.remove(record);
+        if (index == null) return;
+        int i = index;
+        int last = size - 1;
+        if (i != last) {
+            admissionDay[i] = admissionDay[last];
+            species[i] = species[last];
+            sex[i] = sex[last];
+            adopted[i] = adopted[last];
+            active[i] = active[last];
+            place[i] = place[last];
+            recordNumber[i] = recordNumber[last];
+            rowOf.put(recordNumber[i], i);
+        }
+        recordNumber[last] = null;
+        size--;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= admissionDay.length) return;
+        int grown = Math.max(capacity, admissionDay.length + (admissionDay.length >> 1) + 16);
+        admissionDay = Arrays.copyOf(admissionDay, grown);
+        species = Arrays.copyOf(species, grown);
+        sex = Arrays.copyOf(sex, grown);
+        adopted = Arrays.copyOf(adopted, grown);
+        active = Arrays.copyOf(active, grown);
+        place = Arrays.copyOf(place, grown);
+        recordNumber = Arrays.copyOf(recordNumber, grown);
+    }
+
+    /** Epoch day of an admission date ("YYYY-MM-DD", optionally followed by a time), {@link #NO_DAY} if invalid. */
+    private static int epochDay(String admissionDate) {
+        if (admissionDate == null || admissionDate.length() < 10) return NO_DAY;
+        try {
+            return (int) LocalDate.parse(admissionDate.substring(0, 10)).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return NO_DAY;
+        }
+    }
+
+    private static int codeOf(String[] values, String value) {
+        return codeOf(Arrays.asList(values), value);
+    }
+
+    private static int codeOf(List<String> values, String value) {
+        int code = values.indexOf(value);
+        return code < 0 ? NONE : code;
+    }
+}
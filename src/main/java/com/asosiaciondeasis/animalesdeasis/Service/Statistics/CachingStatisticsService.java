@@ -0,0 +1,136 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Statistics;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsService;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsDimension;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
+import com.asosiaciondeasis.animalesdeasis.Util.SyncEventManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the {@link DashboardSnapshot} of the most recently viewed years, so switching back to
+ * a year or exporting the one on screen does not query the database again. Every statistic is
+ * answered from the year's snapshot.
+ *
+ * <p>Entries are dropped when the data behind them changes: a local edit through the services
+ * ({@link DataChangeEventManager}) invalidates the admission years it touched, and a sync
+ * ({@link SyncEventManager}) that changed any animal invalidates every year, since it only
+ * reports record numbers. A sync that only pushed keeps the cache.
+ * A snapshot that was being loaded while an invalidation happened is returned but not kept.</p>
+ */
+public class CachingStatisticsService implements IStatisticsService {
+
+    /** Years kept; the statistics screen offers a handful and users flip between two or three. */
+    public static final int DEFAULT_CAPACITY = 8;
+
+    private final IStatisticsService delegate;
+    private final Map<Integer, DashboardSnapshot> cache;
+    /** Bumped on every invalidation, so a load that raced one is not cached. */
+    private long generation;
+
+    private final Consumer<Set<Integer>> localChangeListener = this::invalidate;
+    private final Consumer<Set<String>> syncListener = changed -> {
+        if (changed == null || !changed.isEmpty()) invalidateAll();
+    };
+
+    public CachingStatisticsService(IStatisticsService delegate) {
+        this(delegate, DEFAULT_CAPACITY);
+    }
+
+    public CachingStatisticsService(IStatisticsService delegate, int capacity) {
+        this.delegate = delegate;
+        this.cache = new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DashboardSnapshot> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /** Starts listening for local edits and sync runs. */
+    public void start() {
+        DataChangeEventManager.addChangeListener(localChangeListener);
+        SyncEventManager.addChangeListener(syncListener);
+    }
+
+    /** Stops listening; the cached years are dropped. */
+    public void stop() {
+        DataChangeEventManager.removeChangeListener(localChangeListener);
+        SyncEventManager.removeChangeListener(syncListener);
+        invalidateAll();
+    }
+
+    @Override
+    public Map<String, Integer> getMonthlyAdmissions(int year) throws Exception {
+        return getDashboard(year).monthlyAdmissions();
+    }
+
+    @Override
+    public Map<String, Integer> getAnimalOrigins(int year) throws Exception {
+        return getDashboard(year).origins();
+    }
+
+    @Override
+    public int getTotalAdmissions(int year) throws Exception {
+        return getDashboard(year).totalAdmissions();
+    }
+
+    @Override
+    public double getAdoptionRate(int year) throws Exception {
+        return getDashboard(year).adoptionRate();
+    }
+
+    @Override
+    public DashboardSnapshot getDashboard(int year) throws Exception {
+        long loadGeneration;
+        synchronized (this) {
+            DashboardSnapshot cached = cache.get(year);
+            if (cached != null) return cached;
+            loadGeneration = generation;
+        }
+
+        // Outside the lock: a slow query must not hold up invalidations or other years.
+        DashboardSnapshot loaded = delegate.getDashboard(year);
+        synchronized (this) {
+            if (generation == loadGeneration) cache.put(year, loaded);
+        }
+        return loaded;
+    }
+
+    // Slices are already answered from memory and kept current, so they are not cached again.
+
+    @Override
+    public int countAnimals(AnalyticsFilter filter) throws Exception {
+        return delegate.countAnimals(filter);
+    }
+
+    @Override
+    public Map<String, Integer> countAnimalsBy(AnalyticsDimension dimension, AnalyticsFilter filter) throws Exception {
+        return delegate.countAnimalsBy(dimension, filter);
+    }
+
+    /**
+     * Drops the given admission years.
+     *
+     * @param years Years whose statistics may have changed, or null if any may have.
+     */
+    public synchronized void invalidate(Set<Integer> years) {
+        if (years == null) {
+            invalidateAll();
+            return;
+        }
+        if (years.isEmpty()) return;
+        generation++;
+        cache.keySet().removeAll(years);
+    }
+
+    public synchronized void invalidateAll() {
+        generation++;
+        cache.clear();
+    }
+}
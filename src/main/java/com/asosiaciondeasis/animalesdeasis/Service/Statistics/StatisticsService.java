@@ -3,15 +3,25 @@ package com.asosiaciondeasis.animalesdeasis.Service.Statistics;
 
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsDAO;
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsService;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsDimension;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
 
 import java.util.Map;
 
 public class StatisticsService implements IStatisticsService {
 
     private final IStatisticsDAO statisticsDAO;
+    private final AnimalAnalytics analytics;
 
+    /** Slices are counted on a private analytics copy, loaded on first use and not kept current. */
     public StatisticsService(IStatisticsDAO statisticsDAO) {
+        this(statisticsDAO, new AnimalAnalytics(statisticsDAO));
+    }
+
+    public StatisticsService(IStatisticsDAO statisticsDAO, AnimalAnalytics analytics) {
         this.statisticsDAO = statisticsDAO;
+        this.analytics = analytics;
     }
 
     @Override
@@ -33,4 +43,19 @@ public class StatisticsService implements IStatisticsService {
     public double getAdoptionRate(int year) throws Exception {
         return statisticsDAO.getAdoptionRate(year);
     }
+
+    @Override
+    public DashboardSnapshot getDashboard(int year) throws Exception {
+        return statisticsDAO.getDashboard(year);
+    }
+
+    @Override
+    public int countAnimals(AnalyticsFilter filter) throws Exception {
+        return analytics.count(filter);
+    }
+
+    @Override
+    public Map<String, Integer> countAnimalsBy(AnalyticsDimension dimension, AnalyticsFilter filter) throws Exception {
+        return analytics.countBy(dimension, filter);
+    }
 }
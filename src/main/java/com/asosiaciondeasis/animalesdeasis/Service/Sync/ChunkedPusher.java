@@ -0,0 +1,120 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Uploads a backlog of documents to the remote store in bounded commits.
+ *
+ * <p>A single Firestore batch cannot hold more than 500 writes, so a long offline period used to
+ * make the whole push fail. The backlog is now split into chunks of at most
+ * {@code batchSize} writes, and up to {@code concurrency} chunks are committed at the
+ * same time. Chunks are acknowledged in order: as soon as a chunk's commit succeeds its
+ * rows are handed to a {@link ChunkAck} (which marks them as synced locally).</p>
+ *
+ * <p>When a commit fails no new chunk is started, the ones already in flight are still
+ * awaited (and acknowledged if they made it), and the failure is rethrown. Every
+ * acknowledged row is no longer pending, so the next push naturally resumes after the
+ * last acknowledged chunk.</p>
+ */
+public class ChunkedPusher {
+
+    /** Firestore's hard limit of operations per batch. */
+    public static final int MAX_WRITES_PER_BATCH = IRemoteStore.MAX_WRITES_PER_COMMIT;
+
+    /** Concurrent batch commits; overridable with {@code -Danimalesdeasis.sync.pushConcurrency=N}. */
+    private static final int DEFAULT_CONCURRENCY = Math.max(1, Integer.getInteger("animalesdeasis.sync.pushConcurrency", 4));
+
+    private final IRemoteStore remote;
+    private final int batchSize;
+    private final int concurrency;
+
+    /** Callback run once a chunk has been committed remotely. */
+    @FunctionalInterface
+    public interface ChunkAck<T> {
+        void acknowledge(List<T> chunk) throws Exception;
+    }
+
+    private record InFlight<T>(List<T> chunk, CompletableFuture<Void> commit) {
+    }
+
+    public ChunkedPusher(IRemoteStore remote) {
+        this(remote, MAX_WRITES_PER_BATCH, DEFAULT_CONCURRENCY);
+    }
+
+    public ChunkedPusher(IRemoteStore remote, int batchSize, int concurrency) {
+        if (batchSize < 1 || batchSize > MAX_WRITES_PER_BATCH) {
+            throw new IllegalArgumentException("batchSize must be between 1 and " + MAX_WRITES_PER_BATCH);
+        }
+        this.remote = remote;
+        this.batchSize = batchSize;
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Items a caller should hand to one {@link #push} call: enough for {@code concurrency}
+     * full chunks, so every commit slot is used. Fewer items leave slots idle, since chunks
+     * do not stay in flight across calls.
+     */
+    public int pageSize() {
+        return batchSize * concurrency;
+    }
+
+    /**
+     * Commits every item as the {@link RemoteWrite} returned by {@code toWrite}.
+     *
+     * @param items   changes to upload, in the order they should be acknowledged
+     * @param toWrite maps an item to its remote write ({@code set} or {@code delete})
+     * @param ack     invoked with each chunk after its commit succeeds
+     * @return number of items committed and acknowledged
+     * @throws Exception if a commit or an acknowledgement failed; earlier chunks stay acknowledged
+     */
+    public <T> int push(List<T> items, Function<T, RemoteWrite> toWrite, ChunkAck<T> ack) throws Exception {
+        Deque<InFlight<T>> inFlight = new ArrayDeque<>();
+        Exception failure = null;
+        int acknowledged = 0;
+
+        for (int from = 0; from < items.size() && failure == null; from += batchSize) {
+            List<T> chunk = items.subList(from, Math.min(from + batchSize, items.size()));
+            List<RemoteWrite> writes = new ArrayList<>(chunk.size());
+            for (T item : chunk) {
+                writes.add(toWrite.apply(item));
+            }
+            inFlight.add(new InFlight<>(chunk, remote.commit(writes)));
+
+            if (inFlight.size() >= concurrency) {
+                try {
+                    acknowledged += await(inFlight.poll(), ack);
+                } catch (Exception e) {
+                    failure = e;
+                }
+            }
+        }
+
+        while (!inFlight.isEmpty()) {
+            try {
+                acknowledged += await(inFlight.poll(), ack);
+            } catch (Exception e) {
+                if (failure == null) failure = e;
+            }
+        }
+
+        if (failure != null) {
+            throw new Exception("Push stopped after " + acknowledged + " of " + items.size() + " writes", failure);
+        }
+        return acknowledged;
+    }
+
+    private static <T> int await(InFlight<T> inFlight, ChunkAck<T> ack) throws Exception {
+        inFlight.commit().get();
+        ack.acknowledge(inFlight.chunk());
+        return inFlight.chunk().size();
+    }
+}
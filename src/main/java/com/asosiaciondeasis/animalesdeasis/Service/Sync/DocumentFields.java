@@ -0,0 +1,83 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Firestore field layout of an animal document: the names Firestore gives the {@link Animal}
+ * bean properties, which are also the names the {@code change_log} update trigger records.
+ * Used to send only the changed fields of an update with {@code SetOptions.merge()}, and by
+ * {@link EmbeddedVaccinesRemoteStore}, whose documents carry more than the bean.
+ */
+public class DocumentFields {
+
+    /** Fields every merge carries, so the remote version and sync flag move with the data. */
+    public static final Set<String> ALWAYS_SENT = Set.of("lastModified", "hlc", "synced");
+
+    private DocumentFields() {
+    }
+
+    /** Every field of the animal document, in declaration order. */
+    public static Map<String, Object> of(Animal animal) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("recordNumber", animal.getRecordNumber());
+        fields.put("chipNumber", animal.getChipNumber());
+        fields.put("barcode", animal.getBarcode());
+        fields.put("admissionDate", animal.getAdmissionDate());
+        fields.put("collectedBy", animal.getCollectedBy());
+        fields.put("placeId", animal.getPlaceId());
+        fields.put("reasonForRescue", animal.getReasonForRescue());
+        fields.put("species", animal.getSpecies());
+        fields.put("approximateAge", animal.getApproximateAge());
+        fields.put("sex", animal.getSex());
+        fields.put("name", animal.getName());
+        fields.put("ailments", animal.getAilments());
+        fields.put("neuteringDate", animal.getNeuteringDate());
+        fields.put("adopted", animal.isAdopted());
+        fields.put("active", animal.isActive());
+        fields.put("synced", animal.isSynced());
+        fields.put("lastModified", animal.getLastModified());
+        fields.put("hlc", animal.getHlc());
+        return fields;
+    }
+
+    /**
+     * Rebuilds an animal from its document fields. Extra fields (such as embedded vaccines)
+     * are ignored, and missing ones keep the {@link Animal} defaults.
+     */
+    public static Animal toAnimal(String recordNumber, Map<String, Object> fields) {
+        Animal animal = Animal.fromExistingRecord(recordNumber);
+        animal.setChipNumber((String) fields.get("chipNumber"));
+        animal.setBarcode((String) fields.get("barcode"));
+        animal.setAdmissionDate((String) fields.get("admissionDate"));
+        animal.setCollectedBy((String) fields.get("collectedBy"));
+        if (fields.get("placeId") instanceof Number placeId) animal.setPlaceId(placeId.intValue());
+        animal.setReasonForRescue((String) fields.get("reasonForRescue"));
+        animal.setSpecies((String) fields.get("species"));
+        if (fields.get("approximateAge") instanceof Number age) animal.setApproximateAge(age.intValue());
+        animal.setSex((String) fields.get("sex"));
+        animal.setName((String) fields.get("name"));
+        animal.setAilments((String) fields.get("ailments"));
+        animal.setNeuteringDate((String) fields.get("neuteringDate"));
+        animal.setAdopted(Boolean.TRUE.equals(fields.get("adopted")));
+        animal.setActive(!Boolean.FALSE.equals(fields.get("active")));
+        animal.setSynced(Boolean.TRUE.equals(fields.get("synced")));
+        animal.setLastModified((String) fields.get("lastModified"));
+        if (fields.get("hlc") instanceof Number hlc) animal.setHlc(hlc.longValue());
+        return animal;
+    }
+
+    /** The fields a merge write sends: the changed ones plus {@link #ALWAYS_SENT}. */
+    public static Map<String, Object> of(RemoteWrite write) {
+        if (!write.isMerge() || !(write.data() instanceof Animal animal)) {
+            throw new IllegalArgumentException("Only animal merges have a field list");
+        }
+        Map<String, Object> fields = of(animal);
+        fields.keySet().removeIf(name -> !write.fields().contains(name) && !ALWAYS_SENT.contains(name));
+        return fields;
+    }
+}
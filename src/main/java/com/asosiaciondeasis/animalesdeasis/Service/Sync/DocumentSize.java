@@ -0,0 +1,77 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Estimates the size of the documents the sync transfers, using Firestore's documented
+ * storage-size rules: strings are their UTF-8 length + 1, numbers 8 bytes, booleans and
+ * nulls 1 byte, field names count as strings, and each document adds its name plus 32 bytes.
+ * Close enough to compare runs; it is not the exact number of bytes on the wire.
+ */
+public class DocumentSize {
+
+    private static final int DOCUMENT_OVERHEAD = 32;
+    private static final int NAME_OVERHEAD = 16;
+
+    private DocumentSize() {
+    }
+
+    public static long of(Animal animal) {
+        return name("animals", animal.getRecordNumber()) + DOCUMENT_OVERHEAD + fields(DocumentFields.of(animal));
+    }
+
+    public static long of(Vaccine vaccine) {
+        return name("animals", vaccine.getAnimalRecordNumber(), "vaccines", vaccine.getId()) + DOCUMENT_OVERHEAD
+                + field("id", vaccine.getId())
+                + field("animalRecordNumber", vaccine.getAnimalRecordNumber())
+                + field("vaccineName", vaccine.getVaccineName())
+                + field("vaccinationDate", vaccine.getVaccinationDate())
+                + bool("synced")
+                + field("lastModified", vaccine.getLastModified());
+    }
+
+    /** A delete only sends the document name, a merge the name and the merged fields. */
+    public static long of(RemoteWrite write) {
+        if (write.isMerge()) return name("animals", write.animalRecordNumber()) + fields(DocumentFields.of(write));
+        if (write.data() instanceof Animal animal) return of(animal);
+        if (write.data() instanceof Vaccine vaccine) return of(vaccine);
+        return write.isVaccine()
+                ? name("animals", write.animalRecordNumber(), "vaccines", write.vaccineId())
+                : name("animals", write.animalRecordNumber());
+    }
+
+    private static long name(String... segments) {
+        long size = NAME_OVERHEAD;
+        for (String segment : segments) size += string(segment);
+        return size;
+    }
+
+    private static long fields(Map<String, Object> fields) {
+        long size = 0;
+        for (Map.Entry<String, Object> field : fields.entrySet()) {
+            Object value = field.getValue();
+            size += string(field.getKey());
+            if (value instanceof String text) size += string(text);
+            else if (value instanceof Number) size += 8;
+            else size += 1; // boolean or null
+        }
+        return size;
+    }
+
+    private static long field(String name, String value) {
+        return string(name) + string(value);
+    }
+
+    private static long bool(String name) {
+        return string(name) + 1;
+    }
+
+    private static long string(String value) {
+        return value == null ? 1 : value.getBytes(StandardCharsets.UTF_8).length + 1;
+    }
+}
@@ -0,0 +1,281 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.firebase.cloud.FirestoreClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Firestore layout with each animal's vaccines inside its document, instead of in an
+ * "animals/{id}/vaccines" subcollection:
+ *
+ * <pre>
+ * animals/{recordNumber} = { ...animal fields...,
+ *                            vaccines: { {vaccineId}: { vaccineName, vaccinationDate, lastModified, hlc } },
+ *                            modified: latest lastModified written to the document }
+ * </pre>
+ *
+ * <p>An animal and its whole history cost one document read. The pull always fetches the
+ * animals before the vaccines, so the vaccines found in the documents {@link #fetchAnimals}
+ * (or {@link #fetchAnimalBucket}) just read are kept and served by the following
+ * {@link #fetchVaccines} ({@link #fetchVaccineBucket}) when they cover it: a full pull reads
+ * each animal once. That cache is bounded ({@link #MAX_CACHED_VACCINES}); past it the vaccines
+ * are read again page by page, so memory stays flat however large the collection. Incremental
+ * reads query on {@code modified}, which every write to the document sets, so vaccine changes
+ * are found without a collection-group query.</p>
+ *
+ * <p>Writes are merges, so writing the animal never drops its vaccines and vice versa.
+ * {@code modified} takes the newest version among a commit's writes to the document; a device
+ * pushing an old offline edit can move it backwards, which the bucket reconcile repairs.
+ * Documents are limited to 1 MiB, roughly several thousand vaccines per animal.</p>
+ */
+public class EmbeddedVaccinesRemoteStore extends FirestoreRemoteStore {
+
+    private static final String MODIFIED = "modified";
+    /** Vaccines kept from an animal read for the vaccine read that follows it. */
+    static final int MAX_CACHED_VACCINES = 20_000;
+
+    /** Vaccines embedded in the documents of the last animal read, and what that read covered. */
+    private volatile EmbeddedRead lastRead;
+
+    private record EmbeddedRead(String since, String bucket, List<Vaccine> vaccines) {
+    }
+
+    @Override
+    public void fetchAnimals(String since, int pageSize, PageHandler<Animal> handler) throws Exception {
+        lastRead = null;
+        List<Vaccine> vaccines = new ArrayList<>();
+        boolean[] overflow = {false};
+        forEachPage(documentsModifiedSince(since), pageSize, docs -> {
+            List<Animal> page = new ArrayList<>(docs.size());
+            for (QueryDocumentSnapshot doc : docs) {
+                Animal animal = toAnimal(doc);
+                if (animal != null && (since == null || animal.getLastModified().compareTo(since) >= 0)) {
+                    page.add(animal);
+                }
+                if (!overflow[0]) vaccines.addAll(embeddedVaccines(doc));
+            }
+            if (vaccines.size() > MAX_CACHED_VACCINES) {
+                overflow[0] = true;
+                vaccines.clear();
+            }
+            handler.accept(page);
+        });
+        if (!overflow[0]) lastRead = new EmbeddedRead(since, null, vaccines);
+    }
+
+    /**
+     * Served from the last {@link #fetchAnimals} when it read at least every document this call
+     * needs (its {@code since} is not later than this one) and its vaccines fitted in the
+     * cache; otherwise the animals are queried again by {@code modified}, {@code pageSize}
+     * documents at a time.
+     */
+    @Override
+    public void fetchVaccines(String since, int pageSize, PageHandler<Vaccine> handler) throws Exception {
+        EmbeddedRead read = lastRead;
+        lastRead = null;
+        if (read != null && read.bucket() == null
+                && (read.since() == null || (since != null && since.compareTo(read.since()) >= 0))) {
+            List<Vaccine> matching = new ArrayList<>();
+            for (Vaccine vaccine : read.vaccines()) {
+                if (since == null || isAtOrAfter(vaccine, since)) matching.add(vaccine);
+            }
+            acceptInPages(matching, pageSize, handler);
+            return;
+        }
+
+        forEachPage(documentsModifiedSince(since), pageSize, docs -> {
+            List<Vaccine> page = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : docs) {
+                for (Vaccine vaccine : embeddedVaccines(doc)) {
+                    if (since == null || isAtOrAfter(vaccine, since)) page.add(vaccine);
+                }
+            }
+            acceptInPages(page, pageSize, handler);
+        });
+    }
+
+    /** Every document by id, or those written at or after {@code since} by {@code modified}. */
+    private static Query documentsModifiedSince(String since) {
+        Firestore db = FirestoreClient.getFirestore();
+        return since == null
+                ? db.collection(ANIMALS).orderBy(FieldPath.documentId())
+                : db.collection(ANIMALS).whereGreaterThanOrEqualTo(MODIFIED, since).orderBy(MODIFIED);
+    }
+
+    /**
+     * One snapshot listener on {@code modified}: a changed document brings the animal and its
+     * vaccines together, each filtered by its own mark.
+     */
+    @Override
+    public Subscription watch(String animalsSince, String vaccinesSince, ChangeHandler handler) throws Exception {
+        String since = animalsSince == null || vaccinesSince == null ? null
+                : animalsSince.compareTo(vaccinesSince) <= 0 ? animalsSince : vaccinesSince;
+        Query query = since == null
+                ? FirestoreClient.getFirestore().collection(ANIMALS)
+                : FirestoreClient.getFirestore().collection(ANIMALS).whereGreaterThanOrEqualTo(MODIFIED, since);
+
+        ListenerRegistration listener = listen(query, handler, docs -> {
+            List<Animal> animals = new ArrayList<>();
+            List<Vaccine> vaccines = new ArrayList<>();
+            for (QueryDocumentSnapshot doc : docs) {
+                Animal animal = toAnimal(doc);
+                if (animal != null && (animalsSince == null || animal.getLastModified().compareTo(animalsSince) >= 0)) {
+                    animals.add(animal);
+                }
+                for (Vaccine vaccine : embeddedVaccines(doc)) {
+                    if (vaccinesSince == null || isAtOrAfter(vaccine, vaccinesSince)) vaccines.add(vaccine);
+                }
+            }
+            handler.onChanges(animals, vaccines);
+        });
+        return listener::remove;
+    }
+
+    @Override
+    public List<Animal> fetchAnimalBucket(String bucket) throws Exception {
+        Query query = FirestoreClient.getFirestore().collection(ANIMALS)
+                .orderBy(FieldPath.documentId())
+                .startAt(bucket)
+                .endAt(bucket + PREFIX_END);
+
+        List<Animal> animals = new ArrayList<>();
+        List<Vaccine> vaccines = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : query.get().get().getDocuments()) {
+            if (!BucketDigest.bucketOf(doc.getId()).equals(bucket)) continue;
+            Animal animal = toAnimal(doc);
+            if (animal != null) animals.add(animal);
+            vaccines.addAll(embeddedVaccines(doc));
+        }
+        lastRead = new EmbeddedRead(null, bucket, vaccines);
+        return animals;
+    }
+
+    @Override
+    public List<Vaccine> fetchVaccineBucket(String bucket) throws Exception {
+        EmbeddedRead read = lastRead;
+        lastRead = null;
+        if (read != null && bucket.equals(read.bucket())) return read.vaccines();
+
+        fetchAnimalBucket(bucket);
+        read = lastRead;
+        lastRead = null;
+        return read.vaccines();
+    }
+
+    /**
+     * Every write is a merge into the animal document: animals with their fields (all of them,
+     * or the changed ones), vaccines as one entry of the {@code vaccines} map. Deleting a
+     * vaccine removes its entry; deleting an animal deletes the document with its vaccines.
+     */
+    @Override
+    public CompletableFuture<Void> commit(List<RemoteWrite> writes) {
+        try {
+            Firestore db = FirestoreClient.getFirestore();
+            Map<String, String> modified = new HashMap<>();
+            for (RemoteWrite write : writes) {
+                String version = versionOf(write);
+                if (version != null) modified.merge(write.animalRecordNumber(), version, (a, b) -> a.compareTo(b) >= 0 ? a : b);
+            }
+
+            WriteBatch batch = db.batch();
+            for (RemoteWrite write : writes) {
+                DocumentReference doc = db.collection(ANIMALS).document(write.animalRecordNumber());
+                if (!write.isVaccine() && write.isDelete()) {
+                    batch.delete(doc);
+                    continue;
+                }
+
+                Map<String, Object> fields;
+                if (write.isVaccine()) {
+                    Object entry = write.isDelete() ? FieldValue.delete() : embeddedFields((Vaccine) write.data());
+                    fields = new HashMap<>();
+                    fields.put(VACCINES, Map.of(write.vaccineId(), entry));
+                } else {
+                    fields = write.isMerge() ? DocumentFields.of(write) : DocumentFields.of((Animal) write.data());
+                }
+                String version = modified.get(write.animalRecordNumber());
+                if (version != null) fields.put(MODIFIED, version);
+                batch.set(doc, fields, SetOptions.merge());
+            }
+            return toCompletableFuture(batch.commit());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /** One document can hold many vaccines, so a page of documents may need several handler pages. */
+    private static void acceptInPages(List<Vaccine> vaccines, int pageSize, PageHandler<Vaccine> handler) throws Exception {
+        int from = 0;
+        do {
+            handler.accept(vaccines.subList(from, Math.min(from + pageSize, vaccines.size())));
+            from += pageSize;
+        } while (from < vaccines.size());
+    }
+
+    private static String versionOf(RemoteWrite write) {
+        if (write.data() instanceof Animal animal) return animal.getLastModified();
+        if (write.data() instanceof Vaccine vaccine) return vaccine.getLastModified();
+        return null;
+    }
+
+    private static Map<String, Object> embeddedFields(Vaccine vaccine) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("vaccineName", vaccine.getVaccineName());
+        fields.put("vaccinationDate", vaccine.getVaccinationDate());
+        fields.put("lastModified", vaccine.getLastModified());
+        fields.put("hlc", vaccine.getHlc());
+        return fields;
+    }
+
+    /**
+     * The animal stored in the document, or {@code null} for a document that only holds
+     * vaccines (written for an animal whose own document was never pushed).
+     */
+    private static Animal toAnimal(DocumentSnapshot doc) {
+        Map<String, Object> data = doc.getData();
+        if (data == null || data.get("lastModified") == null) return null;
+        return DocumentFields.toAnimal(doc.getId(), data);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Vaccine> embeddedVaccines(DocumentSnapshot doc) {
+        List<Vaccine> vaccines = new ArrayList<>();
+        if (!(doc.get(VACCINES) instanceof Map<?, ?> embedded)) return vaccines;
+
+        for (Map.Entry<?, ?> entry : embedded.entrySet()) {
+            if (!(entry.getValue() instanceof Map<?, ?> value)) continue;
+            Map<String, Object> fields = (Map<String, Object>) value;
+            Vaccine vaccine = Vaccine.fromExistingRecord((String) entry.getKey());
+            vaccine.setAnimalRecordNumber(doc.getId());
+            vaccine.setVaccineName((String) fields.get("vaccineName"));
+            vaccine.setVaccinationDate((String) fields.get("vaccinationDate"));
+            vaccine.setLastModified((String) fields.get("lastModified"));
+            if (fields.get("hlc") instanceof Number hlc) vaccine.setHlc(hlc.longValue());
+            vaccines.add(vaccine);
+        }
+        return vaccines;
+    }
+
+    private static boolean isAtOrAfter(Vaccine vaccine, String since) {
+        return vaccine.getLastModified() != null && vaccine.getLastModified().compareTo(since) >= 0;
+    }
+}
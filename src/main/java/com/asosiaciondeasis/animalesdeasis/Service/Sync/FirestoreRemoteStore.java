@@ -0,0 +1,323 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Config.FirebaseConfig;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Util.NetworkUtils;
+import com.google.api.core.ApiFuture;
+import com.google.api.core.ApiFutureCallback;
+import com.google.api.core.ApiFutures;
+import com.google.cloud.firestore.DocumentChange;
+import com.google.cloud.firestore.DocumentReference;
+import com.google.cloud.firestore.DocumentSnapshot;
+import com.google.cloud.firestore.FieldPath;
+import com.google.cloud.firestore.FieldValue;
+import com.google.cloud.firestore.Firestore;
+import com.google.cloud.firestore.ListenerRegistration;
+import com.google.cloud.firestore.Query;
+import com.google.cloud.firestore.QueryDocumentSnapshot;
+import com.google.cloud.firestore.QuerySnapshot;
+import com.google.cloud.firestore.SetOptions;
+import com.google.cloud.firestore.WriteBatch;
+import com.google.cloud.firestore.WriteResult;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.firebase.cloud.FirestoreClient;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link IRemoteStore} backed by Cloud Firestore: an "animals" collection with a "vaccines"
+ * subcollection per animal, plus a "sync_digests" collection with one {@link BucketDigest}
+ * document ({@code count}, {@code hash}) per bucket. The Firestore client is looked up on
+ * every call because Firebase is initialized after the sync service is created (and may never be).
+ *
+ * <p>{@link EmbeddedVaccinesRemoteStore} is the alternative layout with the vaccines inside
+ * the animal document; {@link #forConfiguredLayout()} picks one.</p>
+ */
+public class FirestoreRemoteStore implements IRemoteStore {
+
+    /** {@code -Danimalesdeasis.sync.layout=embedded} keeps vaccines inside the animal documents. */
+    public static final String LAYOUT_PROPERTY = "animalesdeasis.sync.layout";
+    public static final String EMBEDDED_LAYOUT = "embedded";
+
+    protected static final String ANIMALS = "animals";
+    protected static final String VACCINES = "vaccines";
+    private static final String DIGESTS = "sync_digests";
+    /** Upper bound for prefix range queries (sorts after any character used in ids). */
+    protected static final String PREFIX_END = "\uf8ff";
+
+    /**
+     * The store for the layout this installation is configured with. Every device syncing the
+     * same project must use the same layout; {@link RemoteLayoutMigration} converts the data.
+     */
+    public static FirestoreRemoteStore forConfiguredLayout() {
+        return EMBEDDED_LAYOUT.equalsIgnoreCase(System.getProperty(LAYOUT_PROPERTY))
+                ? new EmbeddedVaccinesRemoteStore()
+                : new FirestoreRemoteStore();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        if (!FirebaseConfig.isFirebaseAvailable()) {
+            System.out.println("Firebase not available - skipping sync");
+            return false;
+        }
+        if (!NetworkUtils.isInternetAvailable()) {
+            System.out.println("No internet connection");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Pages through the "animals" collection with {@code startAfter(lastDocument)}, ordered
+     * like {@link #fetchVaccines}.
+     */
+    @Override
+    public void fetchAnimals(String since, int pageSize, PageHandler<Animal> handler) throws Exception {
+        Firestore db = FirestoreClient.getFirestore();
+        Query query = since == null
+                ? db.collection(ANIMALS).orderBy(FieldPath.documentId())
+                : db.collection(ANIMALS).whereGreaterThanOrEqualTo("lastModified", since).orderBy("lastModified");
+
+        forEachPage(query, pageSize, docs -> {
+            List<Animal> page = new ArrayList<>(docs.size());
+            for (QueryDocumentSnapshot doc : docs) {
+                page.add(doc.toObject(Animal.class));
+            }
+            handler.accept(page);
+        });
+    }
+
+    /**
+     * Reads every "animals/{id}/vaccines" subcollection with one collection-group query,
+     * paginated with {@code startAfter(lastDocument)}. Incremental reads order by lastModified;
+     * full reads order by document id so documents without a timestamp are included too.
+     */
+    @Override
+    public void fetchVaccines(String since, int pageSize, PageHandler<Vaccine> handler) throws Exception {
+        Firestore db = FirestoreClient.getFirestore();
+        Query query = since == null
+                ? db.collectionGroup(VACCINES).orderBy(FieldPath.documentId())
+                : db.collectionGroup(VACCINES).whereGreaterThanOrEqualTo("lastModified", since).orderBy("lastModified");
+
+        forEachPage(query, pageSize, docs -> {
+            List<Vaccine> page = new ArrayList<>(docs.size());
+            for (QueryDocumentSnapshot doc : docs) {
+                page.add(toVaccine(doc));
+            }
+            handler.accept(page);
+        });
+    }
+
+    /**
+     * Runs an ordered query {@code pageSize} documents at a time. The request for the next page
+     * is sent before the handler gets the current one, so the round trip overlaps with the
+     * handler's work; at most two pages are held at once.
+     */
+    protected static void forEachPage(Query query, int pageSize, PageHandler<QueryDocumentSnapshot> handler) throws Exception {
+        ApiFuture<QuerySnapshot> next = query.limit(pageSize).get();
+        try {
+            while (next != null) {
+                List<QueryDocumentSnapshot> docs = next.get().getDocuments();
+                next = docs.size() < pageSize ? null : query.limit(pageSize).startAfter(docs.get(docs.size() - 1)).get();
+                handler.accept(docs);
+            }
+        } catch (Exception e) {
+            if (next != null) next.cancel(true);
+            throw e;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> commit(List<RemoteWrite> writes) {
+        try {
+            Firestore db = FirestoreClient.getFirestore();
+            WriteBatch batch = db.batch();
+            for (RemoteWrite write : writes) {
+                DocumentReference doc = db.collection(ANIMALS).document(write.animalRecordNumber());
+                if (write.isVaccine()) doc = doc.collection(VACCINES).document(write.vaccineId());
+
+                if (write.isDelete()) batch.delete(doc);
+                else if (write.isMerge()) batch.set(doc, DocumentFields.of(write), SetOptions.merge());
+                else batch.set(doc, write.data());
+            }
+            return toCompletableFuture(batch.commit());
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Two snapshot listeners: one on the "animals" collection and one on the "vaccines"
+     * collection group, each filtered on lastModified. Firestore keeps them up to date over a
+     * single stream and retries transient errors on its own; {@code onError} means it gave up.
+     */
+    @Override
+    public Subscription watch(String animalsSince, String vaccinesSince, ChangeHandler handler) throws Exception {
+        Firestore db = FirestoreClient.getFirestore();
+        Query animals = animalsSince == null
+                ? db.collection(ANIMALS)
+                : db.collection(ANIMALS).whereGreaterThanOrEqualTo("lastModified", animalsSince);
+        Query vaccines = vaccinesSince == null
+                ? db.collectionGroup(VACCINES)
+                : db.collectionGroup(VACCINES).whereGreaterThanOrEqualTo("lastModified", vaccinesSince);
+
+        ListenerRegistration animalListener = listen(animals, handler, docs -> {
+            List<Animal> changed = new ArrayList<>(docs.size());
+            for (QueryDocumentSnapshot doc : docs) changed.add(doc.toObject(Animal.class));
+            handler.onChanges(changed, List.of());
+        });
+        ListenerRegistration vaccineListener = listen(vaccines, handler, docs -> {
+            List<Vaccine> changed = new ArrayList<>(docs.size());
+            for (QueryDocumentSnapshot doc : docs) changed.add(toVaccine(doc));
+            handler.onChanges(List.of(), changed);
+        });
+        return () -> {
+            animalListener.remove();
+            vaccineListener.remove();
+        };
+    }
+
+    /** Attaches a snapshot listener that passes the added or modified documents of every snapshot on. */
+    protected static ListenerRegistration listen(Query query, ChangeHandler handler,
+                                                 Consumer<List<QueryDocumentSnapshot>> changed) {
+        return query.addSnapshotListener((snapshot, error) -> {
+            if (error != null) {
+                handler.onError(error);
+                return;
+            }
+            List<QueryDocumentSnapshot> docs = new ArrayList<>();
+            for (DocumentChange change : snapshot.getDocumentChanges()) {
+                if (change.getType() != DocumentChange.Type.REMOVED) docs.add(change.getDocument());
+            }
+            if (!docs.isEmpty()) changed.accept(docs);
+        });
+    }
+
+    @Override
+    public Map<String, BucketDigest> fetchDigests() throws Exception {
+        Map<String, BucketDigest> digests = new HashMap<>();
+        for (QueryDocumentSnapshot doc : FirestoreClient.getFirestore().collection(DIGESTS).get().get().getDocuments()) {
+            Long count = doc.getLong("count");
+            Long hash = doc.getLong("hash");
+            digests.put(doc.getId(), new BucketDigest(count == null ? 0 : count, hash == null ? 0 : hash));
+        }
+        return digests;
+    }
+
+    /** Animals whose document id starts with the bucket prefix (a range on the document id). */
+    @Override
+    public List<Animal> fetchAnimalBucket(String bucket) throws Exception {
+        Query query = FirestoreClient.getFirestore().collection(ANIMALS)
+                .orderBy(FieldPath.documentId())
+                .startAt(bucket)
+                .endAt(bucket + PREFIX_END);
+
+        List<Animal> animals = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : query.get().get().getDocuments()) {
+            if (BucketDigest.bucketOf(doc.getId()).equals(bucket)) animals.add(doc.toObject(Animal.class));
+        }
+        return animals;
+    }
+
+    /**
+     * Vaccines under the bucket's animals, with one collection-group query ranged on the full
+     * document path ("animals/{prefix}" .. "animals/{prefix}\uf8ff"), so no extra index is needed.
+     */
+    @Override
+    public List<Vaccine> fetchVaccineBucket(String bucket) throws Exception {
+        Firestore db = FirestoreClient.getFirestore();
+        Query query = db.collectionGroup(VACCINES)
+                .orderBy(FieldPath.documentId())
+                .startAt(db.collection(ANIMALS).document(bucket))
+                .endAt(db.collection(ANIMALS).document(bucket + PREFIX_END));
+
+        List<Vaccine> vaccines = new ArrayList<>();
+        for (QueryDocumentSnapshot doc : query.get().get().getDocuments()) {
+            Vaccine vaccine = toVaccine(doc);
+            if (BucketDigest.bucketOf(vaccine.getAnimalRecordNumber()).equals(bucket)) vaccines.add(vaccine);
+        }
+        return vaccines;
+    }
+
+    @Override
+    public CompletableFuture<Void> addToDigests(Map<String, BucketDigest> deltas) {
+        return writeDigests(deltas, delta -> Map.of(
+                "count", FieldValue.increment(delta.count()),
+                "hash", FieldValue.increment(delta.hash())));
+    }
+
+    @Override
+    public CompletableFuture<Void> putDigests(Map<String, BucketDigest> digests) {
+        return writeDigests(digests, digest -> Map.of("count", digest.count(), "hash", digest.hash()));
+    }
+
+    /** Merges one document per bucket, in batches of at most {@link #MAX_WRITES_PER_COMMIT}. */
+    private CompletableFuture<Void> writeDigests(Map<String, BucketDigest> digests,
+                                                 Function<BucketDigest, Map<String, Object>> fields) {
+        try {
+            Firestore db = FirestoreClient.getFirestore();
+            List<CompletableFuture<Void>> commits = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int pending = 0;
+            for (Map.Entry<String, BucketDigest> entry : digests.entrySet()) {
+                batch.set(db.collection(DIGESTS).document(entry.getKey()), fields.apply(entry.getValue()), SetOptions.merge());
+                if (++pending == MAX_WRITES_PER_COMMIT) {
+                    commits.add(toCompletableFuture(batch.commit()));
+                    batch = db.batch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) commits.add(toCompletableFuture(batch.commit()));
+            return CompletableFuture.allOf(commits.toArray(new CompletableFuture[0]));
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    protected static CompletableFuture<Void> toCompletableFuture(ApiFuture<List<WriteResult>> commit) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        ApiFutures.addCallback(commit, new ApiFutureCallback<List<WriteResult>>() {
+            @Override
+            public void onFailure(Throwable t) {
+                result.completeExceptionally(t);
+            }
+
+            @Override
+            public void onSuccess(List<WriteResult> writeResults) {
+                result.complete(null);
+            }
+        }, MoreExecutors.directExecutor());
+        return result;
+    }
+
+    /**
+     * Builds a local vaccine from a Firestore document. {@link Vaccine} has no id setter, so
+     * the id is taken from the document itself, and the owning animal from the parent path
+     * when the document does not carry it.
+     */
+    private static Vaccine toVaccine(DocumentSnapshot vaccineDoc) {
+        Vaccine remote = vaccineDoc.toObject(Vaccine.class);
+        Vaccine vaccine = Vaccine.fromExistingRecord(vaccineDoc.getId());
+        String animalRecordNumber = remote.getAnimalRecordNumber();
+        if (animalRecordNumber == null) {
+            animalRecordNumber = vaccineDoc.getReference().getParent().getParent().getId();
+        }
+        vaccine.setAnimalRecordNumber(animalRecordNumber);
+        vaccine.setVaccineName(remote.getVaccineName());
+        vaccine.setVaccinationDate(remote.getVaccinationDate());
+        vaccine.setLastModified(remote.getLastModified());
+        vaccine.setHlc(remote.getHlc());
+        return vaccine;
+    }
+}
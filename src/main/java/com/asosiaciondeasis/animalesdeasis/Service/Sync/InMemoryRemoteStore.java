@@ -0,0 +1,408 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteVersion;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process stand-in for Firestore with configurable per-call latency.
+ *
+ * <p>Lets the whole sync engine be exercised (tests, load tests, throughput benchmarks with
+ * hundreds of thousands of records) on a laptop with no network. Documents are copied on the
+ * way in and out, as a real backend would serialize them, so callers never share instances
+ * with the store. Every RPC (each animal or vaccine page, each commit) sleeps for
+ * the configured latency; commits complete asynchronously like Firestore's.</p>
+ *
+ * <p>Commits leave the bucket digests alone (the pusher sends its increments separately, as
+ * with Firestore). The {@code put*}/{@code remove*} helpers behave like another device running
+ * this app and keep the digests current; {@link #putDigests} can be used to corrupt them.</p>
+ */
+public class InMemoryRemoteStore implements IRemoteStore {
+
+    private final Map<String, Animal> animals = new TreeMap<>();
+    private final Map<String, Vaccine> vaccines = new TreeMap<>();
+    private final Map<String, BucketDigest> digests = new TreeMap<>();
+    private final long latencyMillis;
+    private final ExecutorService executor = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "in-memory-remote-store");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** Snapshot deliveries, in write order like a Firestore listener's. */
+    private final ExecutorService listenerExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "in-memory-remote-store-listener");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicInteger commits = new AtomicInteger();
+    private final AtomicInteger bucketFetches = new AtomicInteger();
+    private final AtomicInteger pages = new AtomicInteger();
+    private volatile int failingCommit = -1;
+    private volatile int failingPage = -1;
+    private volatile boolean available = true;
+    private final List<Watcher> watchers = new CopyOnWriteArrayList<>();
+
+    private record Watcher(String animalsSince, String vaccinesSince, ChangeHandler handler) {
+    }
+
+    public InMemoryRemoteStore() {
+        this(0);
+    }
+
+    /** @param latencyMillis simulated round-trip time added to every remote call */
+    public InMemoryRemoteStore(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return available;
+    }
+
+    /** Simulates going offline/online. */
+    public void setAvailable(boolean available) {
+        this.available = available;
+    }
+
+    /** Makes the {@code n}-th commit from now (1 = the next one) fail. */
+    public void failCommit(int n) {
+        failingCommit = commits.get() + n;
+    }
+
+    /** Makes the {@code n}-th animal or vaccine page fetched from now (1 = the next one) fail. */
+    public void failPage(int n) {
+        failingPage = pages.get() + n;
+    }
+
+    @Override
+    public void fetchAnimals(String since, int pageSize, PageHandler<Animal> handler) throws Exception {
+        List<Animal> matching = new ArrayList<>();
+        synchronized (this) {
+            for (Animal animal : animals.values()) {
+                if (since == null || isAtOrAfter(animal.getLastModified(), since)) {
+                    matching.add(copyOf(animal));
+                }
+            }
+        }
+        if (since != null) {
+            matching.sort(Comparator.comparing(Animal::getLastModified).thenComparing(Animal::getRecordNumber));
+        }
+        acceptInPages(matching, pageSize, handler);
+    }
+
+    @Override
+    public void fetchVaccines(String since, int pageSize, PageHandler<Vaccine> handler) throws Exception {
+        List<Vaccine> matching = new ArrayList<>();
+        synchronized (this) {
+            for (Vaccine vaccine : vaccines.values()) {
+                if (since == null || isAtOrAfter(vaccine.getLastModified(), since)) {
+                    matching.add(copyOf(vaccine));
+                }
+            }
+        }
+        if (since != null) {
+            matching.sort(Comparator.comparing(Vaccine::getLastModified).thenComparing(Vaccine::getId));
+        }
+        acceptInPages(matching, pageSize, handler);
+    }
+
+    /** Hands {@code matching} over one simulated round trip per page. */
+    private <T> void acceptInPages(List<T> matching, int pageSize, PageHandler<T> handler) throws Exception {
+        int from = 0;
+        do {
+            simulateLatency();
+            if (pages.incrementAndGet() == failingPage) {
+                throw new IllegalStateException("Simulated page failure #" + failingPage);
+            }
+            handler.accept(matching.subList(from, Math.min(from + pageSize, matching.size())));
+            from += pageSize;
+        } while (from < matching.size());
+    }
+
+    @Override
+    public CompletableFuture<Void> commit(List<RemoteWrite> writes) {
+        if (writes.size() > MAX_WRITES_PER_COMMIT) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    "A commit cannot contain more than " + MAX_WRITES_PER_COMMIT + " writes"));
+        }
+        int ordinal = commits.incrementAndGet();
+        return CompletableFuture.runAsync(() -> {
+            simulateLatency();
+            if (ordinal == failingCommit) {
+                throw new IllegalStateException("Simulated commit failure #" + ordinal);
+            }
+            synchronized (this) {
+                for (RemoteWrite write : writes) {
+                    apply(write);
+                }
+            }
+        }, executor);
+    }
+
+    /**
+     * Delivers, in order on a store thread, what matches now and then every document written through
+     * {@link #putAnimal}/{@link #putVaccine}; like other devices' writes reaching a Firestore
+     * listener. Commits from the engine itself are not echoed.
+     */
+    @Override
+    public Subscription watch(String animalsSince, String vaccinesSince, ChangeHandler handler) throws Exception {
+        Watcher watcher = new Watcher(animalsSince, vaccinesSince, handler);
+        List<Animal> initialAnimals = new ArrayList<>();
+        List<Vaccine> initialVaccines = new ArrayList<>();
+        synchronized (this) {
+            for (Animal animal : animals.values()) {
+                if (animalsSince == null || isAtOrAfter(animal.getLastModified(), animalsSince)) initialAnimals.add(copyOf(animal));
+            }
+            for (Vaccine vaccine : vaccines.values()) {
+                if (vaccinesSince == null || isAtOrAfter(vaccine.getLastModified(), vaccinesSince)) initialVaccines.add(copyOf(vaccine));
+            }
+            watchers.add(watcher);
+        }
+        if (!initialAnimals.isEmpty() || !initialVaccines.isEmpty()) {
+            listenerExecutor.execute(() -> handler.onChanges(initialAnimals, initialVaccines));
+        }
+        return () -> watchers.remove(watcher);
+    }
+
+    @Override
+    public Map<String, BucketDigest> fetchDigests() throws Exception {
+        simulateLatency();
+        synchronized (this) {
+            return new TreeMap<>(digests);
+        }
+    }
+
+    @Override
+    public List<Animal> fetchAnimalBucket(String bucket) throws Exception {
+        simulateLatency();
+        bucketFetches.incrementAndGet();
+        List<Animal> result = new ArrayList<>();
+        synchronized (this) {
+            for (Animal animal : animals.values()) {
+                if (BucketDigest.bucketOf(animal.getRecordNumber()).equals(bucket)) result.add(copyOf(animal));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<Vaccine> fetchVaccineBucket(String bucket) throws Exception {
+        simulateLatency();
+        List<Vaccine> result = new ArrayList<>();
+        synchronized (this) {
+            for (Vaccine vaccine : vaccines.values()) {
+                if (BucketDigest.bucketOf(vaccine.getAnimalRecordNumber()).equals(bucket)) result.add(copyOf(vaccine));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public CompletableFuture<Void> addToDigests(Map<String, BucketDigest> deltas) {
+        Map<String, BucketDigest> copy = new TreeMap<>(deltas);
+        return CompletableFuture.runAsync(() -> {
+            simulateLatency();
+            synchronized (this) {
+                copy.forEach((bucket, delta) -> digests.merge(bucket, delta, BucketDigest::plus));
+            }
+        }, executor);
+    }
+
+    @Override
+    public CompletableFuture<Void> putDigests(Map<String, BucketDigest> newDigests) {
+        Map<String, BucketDigest> copy = new TreeMap<>(newDigests);
+        return CompletableFuture.runAsync(() -> {
+            simulateLatency();
+            synchronized (this) {
+                digests.putAll(copy);
+            }
+        }, executor);
+    }
+
+    /** Stored digest of a bucket, {@code null} if never written. */
+    public synchronized BucketDigest getDigest(String bucket) {
+        return digests.get(bucket);
+    }
+
+    /** Number of bucket re-fetches served so far (one per bucket). */
+    public int bucketFetchCount() {
+        return bucketFetches.get();
+    }
+
+    /** Writes a document directly, as another device would. */
+    public synchronized void putAnimal(Animal animal) {
+        Animal old = animals.put(animal.getRecordNumber(), copyOf(animal));
+        if (old != null) track(RemoteVersion.of(old), -1);
+        track(RemoteVersion.of(animal), 1);
+        for (Watcher watcher : watchers) {
+            if (watcher.animalsSince() == null || isAtOrAfter(animal.getLastModified(), watcher.animalsSince())) {
+                List<Animal> changed = List.of(copyOf(animal));
+                listenerExecutor.execute(() -> watcher.handler().onChanges(changed, List.of()));
+            }
+        }
+    }
+
+    /** Writes a document directly, as another device would. */
+    public synchronized void putVaccine(Vaccine vaccine) {
+        Vaccine old = vaccines.put(vaccine.getId(), copyOf(vaccine));
+        if (old != null) track(RemoteVersion.of(old), -1);
+        track(RemoteVersion.of(vaccine), 1);
+        for (Watcher watcher : watchers) {
+            if (watcher.vaccinesSince() == null || isAtOrAfter(vaccine.getLastModified(), watcher.vaccinesSince())) {
+                List<Vaccine> changed = List.of(copyOf(vaccine));
+                listenerExecutor.execute(() -> watcher.handler().onChanges(List.of(), changed));
+            }
+        }
+    }
+
+    /** Deletes a vaccine document directly, as another device would. */
+    public synchronized void removeVaccine(String vaccineId) {
+        Vaccine old = vaccines.remove(vaccineId);
+        if (old != null) track(RemoteVersion.of(old), -1);
+    }
+
+    private void track(RemoteVersion version, int sign) {
+        BucketDigest digest = version.digest();
+        digests.merge(version.bucket(), sign > 0 ? digest : BucketDigest.EMPTY.minus(digest), BucketDigest::plus);
+    }
+
+    public synchronized Animal getAnimal(String recordNumber) {
+        Animal animal = animals.get(recordNumber);
+        return animal == null ? null : copyOf(animal);
+    }
+
+    public synchronized Vaccine getVaccine(String vaccineId) {
+        Vaccine vaccine = vaccines.get(vaccineId);
+        return vaccine == null ? null : copyOf(vaccine);
+    }
+
+    public synchronized int animalCount() {
+        return animals.size();
+    }
+
+    public synchronized int vaccineCount() {
+        return vaccines.size();
+    }
+
+    /** The animal marks of the listeners currently attached, in attach order. */
+    public List<String> watchedAnimalMarks() {
+        List<String> marks = new ArrayList<>();
+        for (Watcher watcher : watchers) marks.add(watcher.animalsSince());
+        return marks;
+    }
+
+    /** Number of animal and vaccine pages served so far. */
+    public int pageCount() {
+        return pages.get();
+    }
+
+    /** Number of commits received so far. */
+    public int commitCount() {
+        return commits.get();
+    }
+
+    private void apply(RemoteWrite write) {
+        if (write.isVaccine()) {
+            if (write.isDelete()) vaccines.remove(write.vaccineId());
+            else vaccines.put(write.vaccineId(), copyOf((Vaccine) write.data()));
+        } else {
+            if (write.isDelete()) animals.remove(write.animalRecordNumber());
+            else if (write.isMerge()) animals.put(write.animalRecordNumber(), merged(write));
+            else animals.put(write.animalRecordNumber(), copyOf((Animal) write.data()));
+        }
+    }
+
+    /** Like Firestore's merge: the stored document (or an empty one) with the sent fields overwritten. */
+    private Animal merged(RemoteWrite write) {
+        Animal stored = animals.get(write.animalRecordNumber());
+        Animal target = stored != null ? copyOf(stored) : Animal.fromExistingRecord(write.animalRecordNumber());
+        Animal source = (Animal) write.data();
+        for (String field : DocumentFields.of(write).keySet()) {
+            switch (field) {
+                case "chipNumber" -> target.setChipNumber(source.getChipNumber());
+                case "barcode" -> target.setBarcode(source.getBarcode());
+                case "admissionDate" -> target.setAdmissionDate(source.getAdmissionDate());
+                case "collectedBy" -> target.setCollectedBy(source.getCollectedBy());
+                case "placeId" -> target.setPlaceId(source.getPlaceId());
+                case "reasonForRescue" -> target.setReasonForRescue(source.getReasonForRescue());
+                case "species" -> target.setSpecies(source.getSpecies());
+                case "approximateAge" -> target.setApproximateAge(source.getApproximateAge());
+                case "sex" -> target.setSex(source.getSex());
+                case "name" -> target.setName(source.getName());
+                case "ailments" -> target.setAilments(source.getAilments());
+                case "neuteringDate" -> target.setNeuteringDate(source.getNeuteringDate());
+                case "adopted" -> target.setAdopted(source.isAdopted());
+                case "active" -> target.setActive(source.isActive());
+                case "synced" -> target.setSynced(source.isSynced());
+                case "lastModified" -> target.setLastModified(source.getLastModified());
+                case "hlc" -> target.setHlc(source.getHlc());
+                default -> {
+                    // recordNumber is the document id
+                }
+            }
+        }
+        return target;
+    }
+
+    private static boolean isAtOrAfter(String lastModified, String since) {
+        return lastModified != null && lastModified.compareTo(since) >= 0;
+    }
+
+    private void simulateLatency() {
+        if (latencyMillis <= 0) return;
+        try {
+            Thread.sleep(latencyMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Animal copyOf(Animal source) {
+        Animal copy = Animal.fromExistingRecord(source.getRecordNumber());
+        copy.setChipNumber(source.getChipNumber());
+        copy.setBarcode(source.getBarcode());
+        copy.setAdmissionDate(source.getAdmissionDate());
+        copy.setCollectedBy(source.getCollectedBy());
+        copy.setPlaceId(source.getPlaceId());
+        copy.setReasonForRescue(source.getReasonForRescue());
+        copy.setSpecies(source.getSpecies());
+        copy.setApproximateAge(source.getApproximateAge());
+        copy.setSex(source.getSex());
+        copy.setName(source.getName());
+        copy.setAilments(source.getAilments());
+        copy.setNeuteringDate(source.getNeuteringDate());
+        copy.setAdopted(source.isAdopted());
+        copy.setActive(source.isActive());
+        copy.setSynced(source.isSynced());
+        copy.setLastModified(source.getLastModified());
+        copy.setHlc(source.getHlc());
+        return copy;
+    }
+
+    private static Vaccine copyOf(Vaccine source) {
+        Vaccine copy = Vaccine.fromExistingRecord(source.getId());
+        copy.setAnimalRecordNumber(source.getAnimalRecordNumber());
+        copy.setVaccineName(source.getVaccineName());
+        copy.setVaccinationDate(source.getVaccinationDate());
+        copy.setSynced(source.isSynced());
+        copy.setLastModified(source.getLastModified());
+        copy.setHlc(source.getHlc());
+        return copy;
+    }
+}
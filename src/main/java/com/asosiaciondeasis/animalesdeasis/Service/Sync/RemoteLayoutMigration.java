@@ -0,0 +1,94 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Config.FirebaseConfig;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves the remote data from one document layout to the other (vaccines in a subcollection,
+ * {@link FirestoreRemoteStore}, or embedded in the animal, {@link EmbeddedVaccinesRemoteStore}).
+ *
+ * <p>Every animal is rewritten through the target store together with its vaccines, in the
+ * same commit when they fit, and only then are the vaccines removed from the source layout.
+ * A migration that stops halfway can simply be run again. Sync must be stopped on every
+ * device meanwhile, and started afterwards with the new {@code animalesdeasis.sync.layout}.</p>
+ *
+ * <pre>
+ * java -cp ... com.asosiaciondeasis.animalesdeasis.Service.Sync.RemoteLayoutMigration embedded|subcollection
+ * </pre>
+ */
+public class RemoteLayoutMigration {
+
+    private static final int PAGE_SIZE = 500;
+
+    private RemoteLayoutMigration() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean toEmbedded = args.length == 1 && FirestoreRemoteStore.EMBEDDED_LAYOUT.equalsIgnoreCase(args[0]);
+        if (!toEmbedded && (args.length != 1 || !"subcollection".equalsIgnoreCase(args[0]))) {
+            System.out.println("Usage: RemoteLayoutMigration embedded|subcollection");
+            return;
+        }
+        if (!FirebaseConfig.initialize()) {
+            System.out.println("❌ Firebase not available - nothing migrated");
+            return;
+        }
+
+        IRemoteStore subcollections = new FirestoreRemoteStore();
+        IRemoteStore embedded = new EmbeddedVaccinesRemoteStore();
+        int moved = toEmbedded ? migrate(subcollections, embedded) : migrate(embedded, subcollections);
+        System.out.println("✅ " + moved + " vaccines migrated to the " + args[0] + " layout");
+    }
+
+    /**
+     * Copies every animal and vaccine of {@code from} into {@code to}, then deletes the vaccines
+     * from {@code from}.
+     *
+     * @return number of vaccines moved
+     */
+    public static int migrate(IRemoteStore from, IRemoteStore to) throws Exception {
+        Map<String, List<RemoteWrite>> documents = new LinkedHashMap<>();
+        from.fetchAnimals(null, PAGE_SIZE, page -> {
+            for (Animal animal : page) {
+                documents.computeIfAbsent(animal.getRecordNumber(), id -> new ArrayList<>()).add(RemoteWrite.setAnimal(animal));
+            }
+        });
+        List<RemoteWrite> removals = new ArrayList<>();
+        from.fetchVaccines(null, PAGE_SIZE, page -> {
+            for (Vaccine vaccine : page) {
+                documents.computeIfAbsent(vaccine.getAnimalRecordNumber(), id -> new ArrayList<>())
+                        .add(RemoteWrite.setVaccine(vaccine));
+                removals.add(RemoteWrite.deleteVaccine(vaccine.getAnimalRecordNumber(), vaccine.getId()));
+            }
+        });
+
+        // Keep each animal's writes in one commit, so the document is consistent after every commit.
+        List<RemoteWrite> chunk = new ArrayList<>();
+        for (List<RemoteWrite> document : documents.values()) {
+            if (!chunk.isEmpty() && chunk.size() + document.size() > IRemoteStore.MAX_WRITES_PER_COMMIT) {
+                commitAll(to, chunk);
+                chunk.clear();
+            }
+            chunk.addAll(document);
+        }
+        commitAll(to, chunk);
+
+        commitAll(from, removals);
+        return removals.size();
+    }
+
+    /** Commits {@code writes} one batch after another, splitting at the per-commit limit. */
+    private static void commitAll(IRemoteStore store, List<RemoteWrite> writes) throws Exception {
+        for (int from = 0; from < writes.size(); from += IRemoteStore.MAX_WRITES_PER_COMMIT) {
+            store.commit(writes.subList(from, Math.min(from + IRemoteStore.MAX_WRITES_PER_COMMIT, writes.size()))).get();
+        }
+    }
+}
@@ -0,0 +1,313 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Service.SyncService;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when {@link SyncService} runs, and makes sure only one run happens at a time.
+ *
+ * <p>Every run goes through a single background thread, so a periodic sync, a push triggered
+ * by an edit and a "sync now" from the UI can never overlap on the shared writer connection.
+ * At most one run is scheduled ahead; asking again while one is pending reuses it.</p>
+ *
+ * <ul>
+ *   <li><b>Local edits</b> ({@link DataChangeEventManager}) are debounced: a burst of writes
+ *       produces a single run {@code debounceMs} after the last one, but never later than
+ *       {@code maxDelayMs} after the first, so edits reach Firebase within seconds.</li>
+ *   <li><b>Periodic runs</b> pick up changes made on other devices every {@code intervalMs}.</li>
+ *   <li><b>Failures</b> (offline, Firebase errors) are retried with exponential backoff, from
+ *       {@code backoffBaseMs} up to {@code intervalMs}; edits made meanwhile wait for the retry
+ *       instead of hammering an unreachable server.</li>
+ *   <li>{@link #syncNow()} and {@link #reconcileNow()} run as soon as the thread is free and
+ *       return a future completed with the outcome of that run.</li>
+ *   <li><b>Live mode</b> ({@link #startLive()}, opt-in) adds a listener on Firebase: changes
+ *       made on other devices are applied within a second of being written, on the same
+ *       thread as the runs. The periodic runs continue, as the safety net for what a
+ *       listener does not report (deletions, documents it missed while disconnected), and
+ *       each successful one moves the listener to the high-water marks it reached.</li>
+ * </ul>
+ */
+public class SyncCoordinator {
+
+    private static final long DEFAULT_DEBOUNCE_MS = Long.getLong("animalesdeasis.sync.debounceMs", 3_000);
+    private static final long DEFAULT_MAX_DELAY_MS = Long.getLong("animalesdeasis.sync.maxDelayMs", 30_000);
+    /** Periodic pull (24 h); overridable with {@code -Danimalesdeasis.sync.intervalMs=N}. */
+    private static final long DEFAULT_INTERVAL_MS = Long.getLong("animalesdeasis.sync.intervalMs", 24 * 60 * 60 * 1000);
+    private static final long DEFAULT_BACKOFF_BASE_MS = 10_000;
+
+    private final SyncService syncService;
+    private final long debounceMs;
+    private final long maxDelayMs;
+    private final long intervalMs;
+    private final long backoffBaseMs;
+    private final ScheduledExecutorService executor;
+    /** Milliseconds on a monotonic clock; only differences are used. */
+    private final LongSupplier clock;
+    private final Runnable changeListener = this::requestSync;
+
+    // Scheduling state, guarded by this.
+    private ScheduledFuture<?> pending;
+    private long pendingAt;
+    private boolean pendingIsDebounce;
+    private boolean pendingFull;
+    private long burstStartedAt = -1;
+    private int consecutiveFailures;
+    private long backoffUntil;
+    private boolean shutdown;
+    private CompletableFuture<Boolean> nextResult = new CompletableFuture<>();
+    private boolean live;
+
+    /** Running live listener and the marks it listens from; replaced only on the coordinator thread. */
+    private volatile IRemoteStore.Subscription liveSubscription;
+    private SyncService.WatchMarks liveMarks;
+    private final IRemoteStore.ChangeHandler liveHandler = new IRemoteStore.ChangeHandler() {
+        @Override
+        public void onChanges(List<Animal> animals, List<Vaccine> vaccines) {
+            submit(() -> applyLive(animals, vaccines));
+        }
+
+        @Override
+        public void onError(Exception error) {
+            System.out.println("Live sync listener stopped -> " + error.getMessage());
+            submit(() -> {
+                closeLive();
+                // The run catches up on what was missed and attaches a new listener.
+                syncNow();
+            });
+        }
+    };
+
+    public SyncCoordinator(SyncService syncService) {
+        this(syncService, DEFAULT_DEBOUNCE_MS, DEFAULT_MAX_DELAY_MS, DEFAULT_INTERVAL_MS, DEFAULT_BACKOFF_BASE_MS);
+    }
+
+    public SyncCoordinator(SyncService syncService, long debounceMs, long maxDelayMs, long intervalMs, long backoffBaseMs) {
+        this(syncService, debounceMs, maxDelayMs, intervalMs, backoffBaseMs,
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread thread = new Thread(r, "sync-coordinator");
+                    thread.setDaemon(true);
+                    return thread;
+                }),
+                () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()));
+    }
+
+    /**
+     * Runs on the given executor and clock instead of its own thread and {@link System#nanoTime()},
+     * so tests can move time by hand.
+     *
+     * @param executor Must run one task at a time; it is shut down with the coordinator.
+     * @param clock    Current time in milliseconds, consistent with the executor's delays.
+     */
+    public SyncCoordinator(SyncService syncService, long debounceMs, long maxDelayMs, long intervalMs, long backoffBaseMs,
+                           ScheduledExecutorService executor, LongSupplier clock) {
+        this.syncService = syncService;
+        this.debounceMs = debounceMs;
+        this.maxDelayMs = Math.max(debounceMs, maxDelayMs);
+        this.intervalMs = intervalMs;
+        this.backoffBaseMs = Math.min(backoffBaseMs, intervalMs);
+        this.executor = executor;
+        this.clock = clock;
+    }
+
+    /** Starts listening to local edits and schedules the first periodic run. */
+    public synchronized void start() {
+        DataChangeEventManager.addListener(changeListener);
+        if (pending == null) {
+            schedule(now() + intervalMs, false);
+        }
+    }
+
+    /**
+     * Turns on live mode: a listener on Firebase from the current high-water marks. If that
+     * is not possible yet (offline, never synced), it is attached after the next successful run.
+     */
+    public synchronized void startLive() {
+        if (shutdown || live) return;
+        live = true;
+        submit(this::attachLive);
+    }
+
+    /** Stops listening, cancels the pending run and fails any waiting "sync now" future. */
+    public synchronized void shutdown() {
+        shutdown = true;
+        DataChangeEventManager.removeListener(changeListener);
+        IRemoteStore.Subscription subscription = liveSubscription;
+        if (subscription != null) subscription.close();
+        executor.shutdownNow();
+        nextResult.complete(false);
+    }
+
+    /**
+     * Asks for a push of recent local edits. Called on every local write; bursts are
+     * coalesced into one run as described in the class comment.
+     */
+    public synchronized void requestSync() {
+        if (shutdown) return;
+        long now = now();
+        if (burstStartedAt < 0) burstStartedAt = now;
+        long due = Math.min(now + debounceMs, burstStartedAt + maxDelayMs);
+        due = Math.max(due, backoffUntil);
+
+        // A non-debounce run (periodic, retry, sync now) that is due first already covers this edit.
+        if (pending != null && !pendingIsDebounce && pendingAt <= due) return;
+        schedule(due, true);
+    }
+
+    /**
+     * Runs an incremental sync as soon as possible, bypassing debounce and backoff.
+     *
+     * @return completed with {@code true} if that run succeeded, {@code false} otherwise
+     */
+    public synchronized CompletableFuture<Boolean> syncNow() {
+        if (shutdown) return CompletableFuture.completedFuture(false);
+        CompletableFuture<Boolean> result = nextResult;
+        if (pending == null || pendingAt > now()) {
+            schedule(now(), false);
+        }
+        return result;
+    }
+
+    /** Same as {@link #syncNow()} but the run is a {@link SyncService#fullReconcile()}. */
+    public synchronized CompletableFuture<Boolean> reconcileNow() {
+        pendingFull = true;
+        return syncNow();
+    }
+
+    /** Number of failed runs in a row; 0 after a success. */
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /** Runs {@code task} on the coordinator thread unless shut down. */
+    private synchronized void submit(Runnable task) {
+        if (!shutdown) executor.execute(task);
+    }
+
+    /**
+     * Attaches the live listener from the stored marks, or moves it to them if a run has
+     * advanced them since it was attached. A listener left on old marks keeps matching every
+     * document edited since then, and a reconnect would read all of them again.
+     * Coordinator thread.
+     */
+    private void attachLive() {
+        try {
+            SyncService.WatchMarks marks = syncService.watchMarks();
+            if (marks == null || marks.equals(liveMarks)) return;
+            // The new listener's first delivery holds what is at or after the new marks, so
+            // nothing written while switching is missed.
+            closeLive();
+            liveSubscription = syncService.watchRemote(marks, liveHandler);
+            liveMarks = marks;
+            System.out.println("⚡ Sync en vivo activo desde " + marks.animals());
+        } catch (Exception e) {
+            System.out.println("Error starting live sync -> " + e.getMessage());
+        }
+    }
+
+    /** Coordinator thread. */
+    private void closeLive() {
+        if (liveSubscription == null) return;
+        liveSubscription.close();
+        liveSubscription = null;
+        liveMarks = null;
+    }
+
+    /** Coordinator thread. */
+    private void applyLive(List<Animal> animals, List<Vaccine> vaccines) {
+        try {
+            syncService.applyLive(animals, vaccines);
+        } catch (Exception e) {
+            // The next regular pull fetches them again.
+            System.out.println("Error applying live changes -> " + e.getMessage());
+        }
+    }
+
+    private void schedule(long due, boolean debounce) {
+        if (pending != null) pending.cancel(false);
+        pendingAt = due;
+        pendingIsDebounce = debounce;
+        // The run needs its own future to tell whether pending still points at it.
+        AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        pending = executor.schedule(() -> runOnce(self), Math.max(0, due - now()), TimeUnit.MILLISECONDS);
+        self.set(pending);
+    }
+
+    /**
+     * Body of every scheduled run; always executes on the coordinator thread.
+     *
+     * @param self The future of this run, set by {@link #schedule} under the lock.
+     */
+    private void runOnce(AtomicReference<ScheduledFuture<?>> self) {
+        CompletableFuture<Boolean> result;
+        boolean full;
+        synchronized (this) {
+            // A run scheduled after this one started (its cancel came too late) stays pending.
+            if (pending == self.get()) pending = null;
+            burstStartedAt = -1;
+            full = pendingFull;
+            pendingFull = false;
+            result = nextResult;
+            nextResult = new CompletableFuture<>();
+        }
+
+        boolean ok;
+        try {
+            ok = full ? syncService.fullReconcile() : syncService.sync();
+        } catch (RuntimeException e) {
+            System.out.println("Sync process failed -> " + e.getMessage());
+            ok = false;
+        }
+
+        if (ok && isLive()) attachLive();
+
+        synchronized (this) {
+            long now = now();
+            long next;
+            if (ok) {
+                consecutiveFailures = 0;
+                backoffUntil = 0;
+                next = now + intervalMs;
+            } else {
+                consecutiveFailures++;
+                long delay = backoffDelay(consecutiveFailures);
+                backoffUntil = now + delay;
+                next = backoffUntil;
+                System.out.println("⏳ Sync fallido (" + consecutiveFailures + "), reintento en " + delay / 1000 + " s");
+            }
+            // Edits made during the run already scheduled their own push; keep it if it is sooner.
+            if (!shutdown && (pending == null || pendingAt > next)) {
+                schedule(next, false);
+            }
+        }
+        result.complete(ok);
+    }
+
+    private synchronized boolean isLive() {
+        return live;
+    }
+
+    /** {@code backoffBaseMs * 2^(failures-1)}, capped at the periodic interval. */
+    private long backoffDelay(int failures) {
+        long delay = backoffBaseMs;
+        for (int i = 1; i < failures && delay < intervalMs; i++) {
+            delay *= 2;
+        }
+        return Math.min(delay, intervalMs);
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+}
@@ -0,0 +1,94 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects the metrics of a single sync run while it executes. Not thread-safe: a run is
+ * driven by one thread (chunk acknowledgements happen on the pushing thread too).
+ *
+ * <p>Every timed phase is also emitted as a {@link SyncPhaseEvent}, so a JFR recording
+ * shows the phases on the sync thread's timeline.</p>
+ */
+public class SyncMetrics {
+
+    /**
+     * Parts of a run timed separately; a phase timed more than once accumulates. Phases can
+     * nest (a page applied locally while its fetch is being timed): the inner time is counted
+     * in the inner phase only, so the phases add up to the run's duration.
+     */
+    public enum Phase { PROBE, PULL_ANIMALS, PULL_VACCINES, LOCAL, PUSH }
+
+    private final long startedAt = System.currentTimeMillis();
+    private final long startNanos = System.nanoTime();
+    private final boolean fullReconcile;
+    private final int retries;
+    private final Map<Phase, Long> nanos = new EnumMap<>(Phase.class);
+    /** Time spent in phases nested inside the one currently timed. */
+    private long nestedNanos;
+
+    private int docsRead;
+    private int rowsWritten;
+    private int docsPushed;
+    private long bytesRead;
+    private long bytesPushed;
+    private int conflicts;
+
+    public SyncMetrics(boolean fullReconcile, int retries) {
+        this.fullReconcile = fullReconcile;
+        this.retries = retries;
+    }
+
+    /** Runs {@code work}, adding its duration to {@code phase}. */
+    public <T> T time(Phase phase, DatabaseConnection.SqlWork<T> work) throws Exception {
+        SyncPhaseEvent event = new SyncPhaseEvent();
+        event.phase = phase.name();
+        event.begin();
+        long outerNested = nestedNanos;
+        nestedNanos = 0;
+        long start = System.nanoTime();
+        try {
+            return work.run();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            nanos.merge(phase, elapsed - nestedNanos, Long::sum);
+            nestedNanos = outerNested + elapsed;
+            event.commit();
+        }
+    }
+
+    public void read(int documents, long bytes) {
+        docsRead += documents;
+        bytesRead += bytes;
+    }
+
+    public void written(int rows) {
+        rowsWritten += rows;
+    }
+
+    public void pushed(int documents, long bytes) {
+        docsPushed += documents;
+        bytesPushed += bytes;
+    }
+
+    public void conflict() {
+        conflicts++;
+    }
+
+    /** Snapshot of the run as it ends. */
+    public SyncRun finish(boolean success, String error) {
+        return new SyncRun(startedAt, fullReconcile, success, error,
+                millis(Phase.PROBE), millis(Phase.PULL_ANIMALS), millis(Phase.PULL_VACCINES),
+                millis(Phase.LOCAL), millis(Phase.PUSH),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                docsRead, rowsWritten, docsPushed, bytesRead, bytesPushed, conflicts, retries);
+    }
+
+    private long millis(Phase phase) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos.getOrDefault(phase, 0L));
+    }
+}
@@ -0,0 +1,18 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/** JFR event spanning one phase of a sync run (see {@link SyncMetrics.Phase}). */
+@Name("com.asosiaciondeasis.SyncPhase")
+@Label("Sync Phase")
+@Category({"Animales de Asís", "Sync"})
+@Description("One phase of a Firebase sync run")
+class SyncPhaseEvent extends Event {
+
+    @Label("Phase")
+    String phase;
+}
@@ -0,0 +1,89 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/** JFR event with the metrics of a finished sync run ({@link SyncRun}). */
+@Name("com.asosiaciondeasis.SyncRun")
+@Label("Sync Run")
+@Category({"Animales de Asís", "Sync"})
+@Description("Metrics of a finished Firebase sync run")
+class SyncRunEvent extends Event {
+
+    @Label("Full Reconcile")
+    boolean fullReconcile;
+
+    @Label("Success")
+    boolean success;
+
+    @Label("Error")
+    String error;
+
+    @Label("Probe") @Timespan(Timespan.MILLISECONDS)
+    long probe;
+
+    @Label("Pull Animals") @Timespan(Timespan.MILLISECONDS)
+    long pullAnimals;
+
+    @Label("Pull Vaccines") @Timespan(Timespan.MILLISECONDS)
+    long pullVaccines;
+
+    @Label("Local Database") @Timespan(Timespan.MILLISECONDS)
+    long local;
+
+    @Label("Push") @Timespan(Timespan.MILLISECONDS)
+    long push;
+
+    @Label("Total") @Timespan(Timespan.MILLISECONDS)
+    long total;
+
+    @Label("Documents Read")
+    int docsRead;
+
+    @Label("Rows Written")
+    int rowsWritten;
+
+    @Label("Documents Pushed")
+    int docsPushed;
+
+    @Label("Bytes Read") @DataAmount
+    long bytesRead;
+
+    @Label("Bytes Pushed") @DataAmount
+    long bytesPushed;
+
+    @Label("Conflicts")
+    int conflicts;
+
+    @Label("Retries")
+    int retries;
+
+    /** Commits an event for {@code run} if JFR is recording it. */
+    static void emit(SyncRun run) {
+        SyncRunEvent event = new SyncRunEvent();
+        if (!event.isEnabled()) return;
+        event.fullReconcile = run.fullReconcile();
+        event.success = run.success();
+        event.error = run.error();
+        event.probe = run.probeMs();
+        event.pullAnimals = run.pullAnimalsMs();
+        event.pullVaccines = run.pullVaccinesMs();
+        event.local = run.localMs();
+        event.push = run.pushMs();
+        event.total = run.totalMs();
+        event.docsRead = run.docsRead();
+        event.rowsWritten = run.rowsWritten();
+        event.docsPushed = run.docsPushed();
+        event.bytesRead = run.bytesRead();
+        event.bytesPushed = run.bytesPushed();
+        event.conflicts = run.conflicts();
+        event.retries = run.retries();
+        event.commit();
+    }
+}
@@ -0,0 +1,245 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
+import com.asosiaciondeasis.animalesdeasis.Config.FirebaseConfig;
+import com.asosiaciondeasis.animalesdeasis.Config.SQLiteSetup;
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.ChangeLogDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.RemoteVersionDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncStateDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteVersion;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Service.SyncService;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Snapshot of the synced data of one workstation, used to set up a new one without pulling
+ * the whole Firestore collection.
+ *
+ * <p>The file is gzip-compressed NDJSON: a header line with the format version and the
+ * {@code sync_state} high-water marks, then one line per animal and one per vaccine, animals
+ * first. Only rows whose current version is in Firebase are written, with their
+ * {@code lastModified} and {@code hlc}, so the snapshot is exactly what a pull would have
+ * applied up to those marks.</p>
+ *
+ * <p>{@link #restore} loads it into an empty database in a single transaction, with batched
+ * upserts and without queueing anything for push, and records the remote versions and the
+ * marks. The first {@link SyncService#sync()} afterwards is then an ordinary incremental pull
+ * from the marks, and its reconcile re-fetches only the buckets that changed since the export.</p>
+ *
+ * <pre>
+ * java -cp ... com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncSnapshot export|import file.ndjson.gz
+ * </pre>
+ */
+public class SyncSnapshot {
+
+    private static final String FORMAT = "animalesdeasis-snapshot";
+    private static final int VERSION = 1;
+    private static final int BATCH_SIZE = 500;
+    private static final String ANIMALS = "animals";
+    private static final String VACCINES = "vaccines";
+
+    private SyncSnapshot() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2 || !(args[0].equalsIgnoreCase("export") || args[0].equalsIgnoreCase("import"))) {
+            System.out.println("Usage: SyncSnapshot export|import file.ndjson.gz");
+            return;
+        }
+        SQLiteSetup.initializeDatabase();
+        Connection conn = DatabaseConnection.getConnection();
+        Path file = Path.of(args[1]);
+
+        if (args[0].equalsIgnoreCase("export")) {
+            try (OutputStream out = Files.newOutputStream(file)) {
+                int rows = export(conn, out);
+                System.out.println("✅ Snapshot exportado: " + rows + " registros en " + file);
+            }
+            return;
+        }
+
+        try (InputStream in = Files.newInputStream(file)) {
+            int rows = restore(conn, in);
+            System.out.println("✅ Snapshot importado: " + rows + " registros");
+        }
+        if (FirebaseConfig.initialize()) {
+            new SyncService(conn).sync();
+        } else {
+            System.out.println("⚠ Firebase not available - the incremental pull will run on the next sync");
+        }
+    }
+
+    /**
+     * Writes the snapshot of {@code conn} to {@code out}, which is left open.
+     *
+     * @return number of animals and vaccines written
+     * @throws Exception if this database has never completed a pull, or on a read/write error
+     */
+    public static int export(Connection conn, OutputStream out) throws Exception {
+        SyncStateDAO syncStateDAO = new SyncStateDAO(conn);
+        AnimalDAO animalDAO = new AnimalDAO(conn);
+        VaccineDAO vaccineDAO = new VaccineDAO(conn);
+
+        // Marks first: a row changed while exporting is at worst pulled again.
+        String animalsMark = syncStateDAO.getHighWaterMark(ANIMALS);
+        String vaccinesMark = syncStateDAO.getHighWaterMark(VACCINES);
+        if (animalsMark == null || vaccinesMark == null) {
+            throw new Exception("Error exporting snapshot: this database has never been synced");
+        }
+
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8));
+        JSONObject header = new JSONObject()
+                .put("format", FORMAT)
+                .put("version", VERSION)
+                .put("animalsMark", animalsMark)
+                .put("vaccinesMark", vaccinesMark);
+        writeLine(writer, header);
+
+        int rows = 0;
+        List<Animal> animals = animalDAO.getSyncedAnimalsAfter(null, BATCH_SIZE);
+        while (!animals.isEmpty()) {
+            for (Animal animal : animals) {
+                writeLine(writer, new JSONObject(DocumentFields.of(animal)).put("type", "animal"));
+            }
+            rows += animals.size();
+            animals = animalDAO.getSyncedAnimalsAfter(animals.get(animals.size() - 1).getRecordNumber(), BATCH_SIZE);
+        }
+
+        List<Vaccine> vaccines = vaccineDAO.getSyncedVaccinesAfter(null, BATCH_SIZE);
+        while (!vaccines.isEmpty()) {
+            for (Vaccine vaccine : vaccines) {
+                writeLine(writer, toJson(vaccine));
+            }
+            rows += vaccines.size();
+            vaccines = vaccineDAO.getSyncedVaccinesAfter(vaccines.get(vaccines.size() - 1).getId(), BATCH_SIZE);
+        }
+
+        writer.flush();
+        gzip.finish();
+        return rows;
+    }
+
+    /**
+     * Loads a snapshot written by {@link #export} into {@code conn}. Everything is applied in one
+     * transaction: a broken or truncated file leaves the database untouched.
+     *
+     * @return number of animals and vaccines imported
+     * @throws Exception if the database already holds animals or has synced before, if the file
+     *                   is not a supported snapshot, or on a read/write error
+     */
+    public static int restore(Connection conn, InputStream in) throws Exception {
+        AnimalDAO animalDAO = new AnimalDAO(conn);
+        VaccineDAO vaccineDAO = new VaccineDAO(conn);
+        SyncStateDAO syncStateDAO = new SyncStateDAO(conn);
+        ChangeLogDAO changeLogDAO = new ChangeLogDAO(conn);
+        RemoteVersionDAO remoteVersionDAO = new RemoteVersionDAO(conn);
+
+        if (syncStateDAO.getHighWaterMark(ANIMALS) != null || !animalDAO.getSyncIndex().isEmpty()) {
+            throw new Exception("Error importing snapshot: the database is not empty");
+        }
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(in, 64 * 1024), StandardCharsets.UTF_8));
+        JSONObject header = new JSONObject(reader.readLine());
+        if (!FORMAT.equals(header.optString("format")) || header.optInt("version") > VERSION) {
+            throw new Exception("Error importing snapshot: unsupported file");
+        }
+
+        return DatabaseConnection.inTransaction(conn, () -> {
+            // Snapshot rows are already in Firebase: they must not be queued for push.
+            changeLogDAO.setApplyRemote(true);
+            List<Animal> animals = new ArrayList<>(BATCH_SIZE);
+            List<Vaccine> vaccines = new ArrayList<>(BATCH_SIZE);
+            int rows = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                JSONObject json = new JSONObject(line);
+                if ("animal".equals(json.optString("type"))) {
+                    Map<String, Object> fields = json.toMap();
+                    Animal animal = DocumentFields.toAnimal((String) fields.get("recordNumber"), fields);
+                    animal.setSynced(true);
+                    animals.add(animal);
+                    if (animals.size() == BATCH_SIZE) rows += flushAnimals(animals, animalDAO, remoteVersionDAO);
+                } else if ("vaccine".equals(json.optString("type"))) {
+                    // Animals come first in the file, so none are left to write by now.
+                    rows += flushAnimals(animals, animalDAO, remoteVersionDAO);
+                    vaccines.add(toVaccine(json));
+                    if (vaccines.size() == BATCH_SIZE) rows += flushVaccines(vaccines, vaccineDAO, remoteVersionDAO);
+                }
+            }
+            rows += flushAnimals(animals, animalDAO, remoteVersionDAO);
+            rows += flushVaccines(vaccines, vaccineDAO, remoteVersionDAO);
+
+            syncStateDAO.setHighWaterMark(ANIMALS, header.getString("animalsMark"));
+            syncStateDAO.setHighWaterMark(VACCINES, header.getString("vaccinesMark"));
+            changeLogDAO.setApplyRemote(false);
+            return rows;
+        });
+    }
+
+    private static int flushAnimals(List<Animal> animals, AnimalDAO animalDAO, RemoteVersionDAO remoteVersionDAO) throws Exception {
+        if (animals.isEmpty()) return 0;
+        animalDAO.upsertAnimals(animals);
+        remoteVersionDAO.upsertVersions(animals.stream().map(RemoteVersion::of).toList());
+        int written = animals.size();
+        animals.clear();
+        return written;
+    }
+
+    private static int flushVaccines(List<Vaccine> vaccines, VaccineDAO vaccineDAO, RemoteVersionDAO remoteVersionDAO) throws Exception {
+        if (vaccines.isEmpty()) return 0;
+        vaccineDAO.upsertVaccines(vaccines);
+        remoteVersionDAO.upsertVersions(vaccines.stream().map(RemoteVersion::of).toList());
+        int written = vaccines.size();
+        vaccines.clear();
+        return written;
+    }
+
+    private static JSONObject toJson(Vaccine vaccine) {
+        return new JSONObject()
+                .put("type", "vaccine")
+                .put("id", vaccine.getId())
+                .put("animalRecordNumber", vaccine.getAnimalRecordNumber())
+                .put("vaccineName", vaccine.getVaccineName())
+                .put("vaccinationDate", vaccine.getVaccinationDate())
+                .put("lastModified", vaccine.getLastModified())
+                .put("hlc", vaccine.getHlc());
+    }
+
+    private static Vaccine toVaccine(JSONObject json) {
+        Vaccine vaccine = Vaccine.fromExistingRecord(json.getString("id"));
+        vaccine.setAnimalRecordNumber(json.getString("animalRecordNumber"));
+        vaccine.setVaccineName(json.optString("vaccineName", null));
+        vaccine.setVaccinationDate(json.optString("vaccinationDate", null));
+        vaccine.setLastModified(json.getString("lastModified"));
+        vaccine.setHlc(json.optLong("hlc"));
+        vaccine.setSynced(true);
+        return vaccine;
+    }
+
+    private static void writeLine(BufferedWriter writer, JSONObject json) throws Exception {
+        writer.write(json.toString());
+        writer.newLine();
+    }
+}
@@ -0,0 +1,65 @@
+package com.asosiaciondeasis.animalesdeasis.Service.Sync;
+
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * In-memory history of the latest sync runs of this session, shared by every
+ * {@code SyncService} instance. Older runs are evicted once {@link #HISTORY_SIZE} is
+ * reached; the full record lives in the {@code sync_runs} table.
+ */
+public class SyncTelemetry {
+
+    public static final int HISTORY_SIZE = 50;
+
+    private static final Deque<SyncRun> history = new ArrayDeque<>(HISTORY_SIZE);
+
+    private SyncTelemetry() {
+    }
+
+    /** Adds a finished run to the history and emits it as a JFR event. */
+    public static void record(SyncRun run) {
+        synchronized (history) {
+            if (history.size() == HISTORY_SIZE) history.removeFirst();
+            history.addLast(run);
+        }
+        SyncRunEvent.emit(run);
+    }
+
+    /** Runs of this session, oldest first. */
+    public static List<SyncRun> history() {
+        synchronized (history) {
+            return new ArrayList<>(history);
+        }
+    }
+
+    /** Most recent run of this session, or {@code null}. */
+    public static SyncRun last() {
+        synchronized (history) {
+            return history.peekLast();
+        }
+    }
+
+    /** Number of failed runs since the last successful one. */
+    public static int consecutiveFailures() {
+        synchronized (history) {
+            int failures = 0;
+            for (Iterator<SyncRun> it = history.descendingIterator(); it.hasNext() && !it.next().success(); ) {
+                failures++;
+            }
+            return failures;
+        }
+    }
+
+    /** Empties the history (tests). */
+    public static void clear() {
+        synchronized (history) {
+            history.clear();
+        }
+    }
+}
@@ -1,279 +1,883 @@
 package com.asosiaciondeasis.animalesdeasis.Service;
 
-import com.asosiaciondeasis.animalesdeasis.Config.FirebaseConfig;
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Sync.IRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
 import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.ChangeLogDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.RemoteVersionDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncRunDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncStateDAO;
 import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.ChangeEntry;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteVersion;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Model.RowVersion;
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
 import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
-import com.asosiaciondeasis.animalesdeasis.Util.NetworkUtils;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.ChunkedPusher;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.DocumentSize;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.FirestoreRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncMetrics;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncMetrics.Phase;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncTelemetry;
+import com.asosiaciondeasis.animalesdeasis.Util.HybridLogicalClock;
 import com.asosiaciondeasis.animalesdeasis.Util.SyncEventManager;
-import com.google.api.core.ApiFuture;
-import com.google.api.core.ApiFutures;
-import com.google.cloud.firestore.*;
-import com.google.firebase.cloud.FirestoreClient;
 
 import java.sql.Connection;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 
 
 /**
  * Service class responsible for syncing the local SQLite database with Firebase.
+ *
+ * The remote side is reached only through {@link IRemoteStore}, so the same engine runs
+ * against Firestore in the app and against an in-process store in tests and benchmarks.
  */
 public class SyncService {
 
+    private final Connection conn;
+    private final IRemoteStore remote;
     private final AnimalDAO animalDAO;
     private final VaccineDAO vaccineDAO;
-    private static final DateTimeFormatter DB_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private final SyncStateDAO syncStateDAO;
+    private final ChangeLogDAO changeLogDAO;
+    private final SyncRunDAO syncRunDAO;
+    private final RemoteVersionDAO remoteVersionDAO;
+    private static final String ANIMALS = "animals";
+    private static final String VACCINES = "vaccines";
+    /** Documents per page in the pull; each page is applied in its own transaction. */
+    private static final int PULL_PAGE_SIZE = 500;
+    /** Age after which {@link #sync()} also runs the anti-entropy check; {@code -Danimalesdeasis.sync.reconcileDays=N}. */
+    private static final Duration RECONCILE_INTERVAL = Duration.ofDays(Long.getLong("animalesdeasis.sync.reconcileDays", 7));
+    /** Rows kept in {@code sync_runs}. */
+    private static final int SYNC_RUNS_KEPT = 1000;
 
     /**
-     * Constructor initializes DAOs with a DB connection obtained from DatabaseConnection.
-     * Also initializes Firebase once.
+     * Constructor initializes DAOs with a DB connection obtained from DatabaseConnection
+     * and syncs against Firestore, in the configured document layout.
      */
     public SyncService(Connection conn) {
+        this(conn, FirestoreRemoteStore.forConfiguredLayout());
+    }
+
+    public SyncService(Connection conn, IRemoteStore remote) {
 
+        this.conn = conn;
+        this.remote = remote;
         this.animalDAO = new AnimalDAO(conn);
         this.vaccineDAO = new VaccineDAO(conn);
+        this.syncStateDAO = new SyncStateDAO(conn);
+        this.changeLogDAO = new ChangeLogDAO(conn);
+        this.syncRunDAO = new SyncRunDAO(conn);
+        this.remoteVersionDAO = new RemoteVersionDAO(conn);
     }
 
     /**
      * Main synchronization method that orchestrates the entire sync process.
-     * First checks for Firebase availability and internet connectivity.
+     * First checks that the remote store is available (Firebase configured, internet up).
      * Then performs a two-way sync: pulls remote changes first, then pushes local changes.
      * Finally notifies all registered listeners that sync has completed.
+     *
+     * The pull is incremental: only documents changed since the last pull are fetched.
+     * Once a week the run also includes the {@link #fullReconcile()} consistency check.
+     *
+     * @return true if the run completed, false if the remote was unavailable or the run failed
+     */
+    public boolean sync() {
+        return runSync(false);
+    }
+
+    /**
+     * Same as {@link #sync()} followed by an anti-entropy check (see {@link #ReconcileBuckets}):
+     * per-bucket digests are compared with the ones kept in Firebase and only the buckets that
+     * differ are re-fetched, also removing synced vaccines that were deleted in Firebase. It
+     * repairs drift an incremental pull cannot see (remote deletions, documents written by a
+     * device with a skewed clock) without downloading the whole dataset.
+     *
+     * @return true if the run completed, false if the remote was unavailable or the run failed
+     */
+    public boolean fullReconcile() {
+        return runSync(true);
+    }
+
+    /**
+     * Runs pull + push, notifies the {@link SyncEventManager} listeners with the animals the
+     * pull changed locally, and records the run's metrics (see {@link SyncRun}) in the in-memory
+     * {@link SyncTelemetry} history, the {@code sync_runs} table and a JFR event, whether it
+     * succeeded or not.
      */
-    public void sync() {
-        if (!FirebaseConfig.isFirebaseAvailable()) {
-            System.out.println("Firebase not available - skipping sync");
-            return;
+    private boolean runSync(boolean fullReconcile) {
+        boolean reconcile = fullReconcile || isReconcileDue();
+        SyncMetrics metrics = new SyncMetrics(reconcile, SyncTelemetry.consecutiveFailures());
+        Set<String> changed = new TreeSet<>();
+        String error = null;
+        try {
+            if (!metrics.time(Phase.PROBE, remote::isAvailable)) {
+                error = "Remote store unavailable";
+            } else {
+                boolean exhaustive = PullChanges(metrics, changed);
+                metrics.time(Phase.PUSH, () -> {
+                    PushChanges(metrics);
+                    return null;
+                });
+                // After the push, so this run's own changes are already reflected in the digests.
+                if (reconcile && !exhaustive) ReconcileBuckets(metrics, changed);
+            }
+        } catch (Exception e) {
+            System.out.println("Sync process failed -> " + e.getMessage());
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
         }
-        if (!NetworkUtils.isInternetAvailable()) {
-            System.out.println("No internet connection");
-            return;
+
+        SyncRun run = metrics.finish(error == null, error);
+        recordRun(run);
+        if (run.success()) {
+            System.out.println("✔ Sync completado en " + run.totalMs() + " ms (" + run.docsRead() + " leídos, "
+                    + run.rowsWritten() + " escritos, " + run.docsPushed() + " enviados, "
+                    + run.conflicts() + " conflictos)");
+            // A push-only run reports an empty set: nothing local changed, only the synced flags.
+            SyncEventManager.notifyListeners(changed);
         }
+        return run.success();
+    }
+
+    /** Whether the last successful reconcile is older than {@link #RECONCILE_INTERVAL}. */
+    private boolean isReconcileDue() {
         try {
-            PullChanges();
-            PushChanges();
-            SyncEventManager.notifyListeners();
+            SyncRun last = syncRunDAO.getLastSuccessfulReconcile();
+            return last == null || System.currentTimeMillis() - last.finishedAt() >= RECONCILE_INTERVAL.toMillis();
         } catch (Exception e) {
-            System.out.println("Sync process failed -> " + e.getMessage());
+            System.out.println("Error reading sync history -> " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void recordRun(SyncRun run) {
+        SyncTelemetry.record(run);
+        try {
+            syncRunDAO.insertRun(run, SYNC_RUNS_KEPT);
+        } catch (Exception e) {
+            System.out.println("Error saving sync metrics -> " + e.getMessage());
         }
     }
 
     /**
      * Downloads and applies changes from Firebase to the local database.
      *
-     * Process:
-     * 1. Fetches all animals from Firebase "animals" collection
-     * 2. For each animal, compare with a local version using lastModified timestamp
-     * 3. If a Firebase version is newer or animal doesn't exist locally, updates/inserts locally
-     * 4. Simultaneously fetches all vaccines for each animal using batch requests
-     * 5. Applies vaccine changes including deletions (only for previously synced vaccines)
+     * Animals and then vaccines are streamed from the remote store in pages of
+     * {@link #PULL_PAGE_SIZE} (ordered queries with {@code startAfter}, the next page fetched
+     * while the current one is applied). Each page is compared against the local versions of
+     * just its ids and written, with its remote versions, in its own transaction before the
+     * next one is taken, so memory does not grow with the collection. A pull that fails
+     * halfway keeps the pages already applied; the next one starts again from the previous
+     * high-water marks and skips what is already current.
+     *
+     * Incremental mode (default) queries only animals and vaccines whose lastModified is at
+     * or after the collection's high-water mark in {@code sync_state}. The comparison is
+     * inclusive because timestamps have one-second resolution: documents written in the same
+     * second as the last pull are fetched again and simply skipped by the upsert guard.
+     *
+     * Exhaustive mode (first sync, no high-water mark yet) fetches every animal and every
+     * vaccine. The ids seen are recorded in a temporary table, and at the end local synced
+     * vaccines of seen animals that were not seen are deleted, and remote versions that were
+     * not seen are dropped. Since it saw the whole remote, it also rewrites any
+     * {@code sync_digests} bucket that disagrees.
+     *
+     * The new high-water marks are saved last, in the same transaction as those deletions.
      *
-     * This ensures a local database reflects the most recent state from Firebase.
+     * @param changed Receives the record numbers of the animals whose data or vaccines changed.
+     * @return whether the pull was exhaustive
      */
-    private void PullChanges() throws Exception {
-        Firestore db = FirestoreClient.getFirestore();
+    private boolean PullChanges(SyncMetrics metrics, Set<String> changed) throws Exception {
+        String animalsMark = syncStateDAO.getHighWaterMark(ANIMALS);
+        String vaccinesMark = syncStateDAO.getHighWaterMark(VACCINES);
+        boolean full = animalsMark == null || vaccinesMark == null;
 
-        ApiFuture<QuerySnapshot> query = db.collection("animals").get();
-        List<QueryDocumentSnapshot> documents = query.get().getDocuments();
+        // Records deleted locally whose tombstone is not pushed yet must not be resurrected.
+        Set<String> deletedAnimals = metrics.time(Phase.LOCAL, () -> changeLogDAO.pendingDeletes(ChangeEntry.ANIMAL));
+        Set<String> deletedVaccines = metrics.time(Phase.LOCAL, () -> changeLogDAO.pendingDeletes(ChangeEntry.VACCINE));
 
-        System.out.println("📥 Encontrados " + documents.size() + " animales en Firebase");
+        if (full) remoteVersionDAO.beginSweep();
+        try {
+            AnimalPull animalPull = new AnimalPull(animalsMark);
+            metrics.time(Phase.PULL_ANIMALS, () -> {
+                remote.fetchAnimals(full ? null : animalsMark, PULL_PAGE_SIZE,
+                        page -> pullAnimals(page, full, deletedAnimals, animalPull, metrics)
+                                .forEach(animal -> changed.add(animal.getRecordNumber())));
+                return null;
+            });
+
+            VaccinePull vaccinePull = new VaccinePull(vaccinesMark, metrics, null);
+            metrics.time(Phase.PULL_VACCINES, () -> {
+                remote.fetchVaccines(full ? null : vaccinesMark, PULL_PAGE_SIZE,
+                        page -> pullVaccinePage(page, full, deletedVaccines, vaccinePull)
+                                .forEach(vaccine -> changed.add(vaccine.getAnimalRecordNumber())));
+                return null;
+            });
+
+            System.out.println("📥 " + (full ? "Pull completo: " : "Pull incremental: ")
+                    + animalPull.fetched + " animales, " + vaccinePull.fetched + " vacunas en Firebase");
+
+            List<String> vaccineDeletes = full
+                    ? metrics.time(Phase.LOCAL, remoteVersionDAO::getUnseenSyncedVaccines)
+                    : List.of();
+            if (!vaccineDeletes.isEmpty()) {
+                metrics.time(Phase.LOCAL, () -> vaccineDAO.getSyncIndex(vaccineDeletes))
+                        .values().forEach(vaccine -> changed.add(vaccine.parentId()));
+            }
+            String animalsMarkToSave = animalPull.highWaterMark;
+            String vaccinesMarkToSave = vaccinePull.highWaterMark;
+            applyPulled(List.of(), List.of(), vaccineDeletes, () -> {
+                if (full) {
+                    remoteVersionDAO.sweepUnseen(ChangeEntry.ANIMAL);
+                    remoteVersionDAO.sweepUnseen(ChangeEntry.VACCINE);
+                }
+                if (animalsMarkToSave != null) syncStateDAO.setHighWaterMark(ANIMALS, animalsMarkToSave);
+                if (vaccinesMarkToSave != null) syncStateDAO.setHighWaterMark(VACCINES, vaccinesMarkToSave);
+                return null;
+            }, metrics);
+
+            System.out.println("⬇ Pull aplicado: " + animalPull.applied + " animales, "
+                    + vaccinePull.applied + " vacunas, " + vaccineDeletes.size() + " vacunas eliminadas");
+        } finally {
+            if (full) remoteVersionDAO.endSweep();
+        }
 
-        List<ApiFuture<QuerySnapshot>> vaccineFutures = new ArrayList<>();
-        List<String> recordNumbers = new ArrayList<>();
+        if (full) {
+            // remote_versions now mirrors Firebase exactly, so it is the reference for the digests.
+            Map<String, BucketDigest> remoteDigests = metrics.time(Phase.PULL_ANIMALS, remote::fetchDigests);
+            Map<String, BucketDigest> localDigests = metrics.time(Phase.LOCAL, remoteVersionDAO::getDigests);
+            Map<String, BucketDigest> repaired = new TreeMap<>();
+            for (String bucket : driftedBuckets(localDigests, remoteDigests)) {
+                repaired.put(bucket, localDigests.getOrDefault(bucket, BucketDigest.EMPTY));
+            }
+            putDigests(repaired, metrics);
+        }
+        return full;
+    }
+
+    /** Accumulates the outcome of the paged animal pull across pages. */
+    private static final class AnimalPull {
+        String highWaterMark;
+        int fetched;
+        int applied;
 
-        for (QueryDocumentSnapshot doc : documents) {
-            Animal firebaseAnimal = doc.toObject(Animal.class);
+        AnimalPull(String highWaterMark) {
+            this.highWaterMark = highWaterMark;
+        }
+    }
+
+    /**
+     * Applies one page of pulled animals: new or newer ones are written, remote versions not
+     * known yet are recorded and, in exhaustive mode, the ids are marked as seen, all in one
+     * transaction.
+     *
+     * @return the animals written
+     */
+    private List<Animal> pullAnimals(List<Animal> page, boolean full, Set<String> deletedAnimals,
+                             AnimalPull pull, SyncMetrics metrics) throws Exception {
+        List<Animal> remoteAnimals = new ArrayList<>(page.size());
+        List<String> ids = new ArrayList<>(page.size());
+        for (Animal firebaseAnimal : page) {
             String recordNumber = firebaseAnimal.getRecordNumber();
             if (recordNumber == null || recordNumber.trim().isEmpty()) continue;
 
-            Animal localAnimal = animalDAO.findByRecordNumber(recordNumber);
+            remoteAnimals.add(firebaseAnimal);
+            ids.add(recordNumber);
+            pull.fetched++;
+            metrics.read(1, DocumentSize.of(firebaseAnimal));
+            pull.highWaterMark = latest(pull.highWaterMark, firebaseAnimal.getLastModified());
+        }
+
+        Map<String, RowVersion> localVersions = metrics.time(Phase.LOCAL, () -> animalDAO.getSyncIndex(ids));
+        Map<String, String> knownVersions = metrics.time(Phase.LOCAL, () -> remoteVersionDAO.getVersions(ChangeEntry.ANIMAL, ids));
 
-            if (localAnimal == null) {
-                firebaseAnimal.setSynced(true);
-                animalDAO.insertAnimal(firebaseAnimal);
-                System.out.println("⬇ Animal insertado: " + recordNumber);
-            } else if (shouldUpdateFromFirebase(firebaseAnimal, localAnimal)) {
+        List<Animal> animalChanges = new ArrayList<>();
+        List<RemoteVersion> versionChanges = new ArrayList<>();
+        for (Animal firebaseAnimal : remoteAnimals) {
+            if (!Objects.equals(knownVersions.get(firebaseAnimal.getRecordNumber()), firebaseAnimal.getLastModified())) {
+                versionChanges.add(RemoteVersion.of(firebaseAnimal));
+            }
+            if (isAnimalChange(firebaseAnimal, localVersions, deletedAnimals, metrics)) {
                 firebaseAnimal.setSynced(true);
-                animalDAO.updateAnimal(firebaseAnimal, false);
-                System.out.println("🔁 Animal actualizado: " + recordNumber);
+                animalChanges.add(firebaseAnimal);
             }
-
-            vaccineFutures.add(doc.getReference().collection("vaccines").get());
-            recordNumbers.add(recordNumber);
         }
 
-        List<QuerySnapshot> vaccineSnapshots = ApiFutures.allAsList(vaccineFutures).get();
+        applyPulled(animalChanges, List.of(), List.of(), () -> {
+            remoteVersionDAO.upsertVersions(versionChanges);
+            if (full) remoteVersionDAO.markSeen(ChangeEntry.ANIMAL, ids);
+            return null;
+        }, metrics);
+        pull.applied += animalChanges.size();
+        return animalChanges;
+    }
 
-        for (int i = 0; i < vaccineSnapshots.size(); i++) {
-            QuerySnapshot snapshot = vaccineSnapshots.get(i);
-            String recordNumber = recordNumbers.get(i);
-            pullVaccines(snapshot, recordNumber);
+    /**
+     * Applies one page of pulled vaccines like {@link #pullAnimals}. Their animals were pulled
+     * before, so the local table tells which of them can be applied.
+     *
+     * @return the vaccines written
+     */
+    private List<Vaccine> pullVaccinePage(List<Vaccine> page, boolean full, Set<String> deletedVaccines,
+                                 VaccinePull pull) throws Exception {
+        SyncMetrics metrics = pull.metrics;
+        List<String> ids = new ArrayList<>(page.size());
+        Set<String> parentIds = new HashSet<>();
+        for (Vaccine vaccine : page) {
+            ids.add(vaccine.getId());
+            parentIds.add(vaccine.getAnimalRecordNumber());
         }
+        Map<String, RowVersion> localVaccines = metrics.time(Phase.LOCAL, () -> vaccineDAO.getSyncIndex(ids));
+        pull.knownVersions = metrics.time(Phase.LOCAL, () -> remoteVersionDAO.getVersions(ChangeEntry.VACCINE, ids));
+        Set<String> knownAnimals = metrics.time(Phase.LOCAL, () -> animalDAO.getLastModifiedIndex(parentIds)).keySet();
+
+        pullVaccines(page, localVaccines, pull);
+        List<Vaccine> vaccineChanges = applicableVaccines(new ArrayList<>(pull.changes), deletedVaccines, knownAnimals, metrics);
+        List<RemoteVersion> versionChanges = new ArrayList<>(pull.versions);
+        pull.changes.clear();
+        pull.versions.clear();
+        pull.remoteIds.clear();
+
+        applyPulled(List.of(), vaccineChanges, List.of(), () -> {
+            remoteVersionDAO.upsertVersions(versionChanges);
+            if (full) remoteVersionDAO.markSeen(ChangeEntry.VACCINE, ids);
+            return null;
+        }, metrics);
+        pull.applied += vaccineChanges.size();
+        return vaccineChanges;
     }
 
-
+    /** High-water marks a live listener starts from; see {@link #watchMarks()}. */
+    public record WatchMarks(String animals, String vaccines) {
+    }
 
     /**
-     * Uploads local unsynced changes to Firebase using batch operations.
+     * The stored high-water marks, which move forward after every pull that saw newer
+     * documents.
      *
-     * Process:
-     * 1. Retrieve all animals marked as unsynced (synced = false)
-     * 2. Retrieves all vaccines marked as unsynced across all animals
-     * 3. Creates a Firebase batch operation for efficient bulk upload
-     * 4. Uploads animals to "animals" collection
-     * 5. Uploads vaccines to "animals/{recordNumber}/vaccines" subcollections
-     * 6. After successful upload, marks all uploaded records as synced locally
+     * @return the marks, or {@code null} before the first pull (there is no mark to listen
+     * from, and listening to everything would hold the whole collection)
+     */
+    public WatchMarks watchMarks() throws Exception {
+        String animalsMark = syncStateDAO.getHighWaterMark(ANIMALS);
+        String vaccinesMark = syncStateDAO.getHighWaterMark(VACCINES);
+        if (animalsMark == null || vaccinesMark == null) return null;
+        return new WatchMarks(animalsMark, vaccinesMark);
+    }
+
+    /**
+     * Starts listening to Firebase from the given marks (see {@link IRemoteStore#watch}). The
+     * handler is called on a thread of the remote store; it must hand the deliveries to
+     * {@link #applyLive} on the thread that runs the syncs.
      *
-     * Uses batch operations to ensure atomicity and improve performance.
+     * @return the running listener
      */
-    private void PushChanges() throws Exception {
-        Firestore db = FirestoreClient.getFirestore();
-        WriteBatch batch = db.batch();
+    public IRemoteStore.Subscription watchRemote(WatchMarks marks, IRemoteStore.ChangeHandler handler) throws Exception {
+        return remote.watch(marks.animals(), marks.vaccines(), handler);
+    }
 
-        List<Animal> unsyncedAnimals = animalDAO.getUnsyncedAnimals();
-        List<Vaccine> allUnsyncedVaccines = vaccineDAO.getAllUnsyncedVaccines();
+    /**
+     * Applies documents delivered by a live listener through the same path as a pull page:
+     * compared with the local versions, written with their remote versions in one
+     * transaction, locally deleted records left alone. Our own pushes come back this way too
+     * and are skipped as already current.
+     *
+     * The high-water marks are not moved: deliveries come in write order, not lastModified
+     * order, so the next regular pull still starts from its own mark.
+     *
+     * @return record numbers of the animals whose data or vaccines changed; the
+     * {@link SyncEventManager} listeners are notified with them
+     */
+    public Set<String> applyLive(List<Animal> animals, List<Vaccine> vaccines) throws Exception {
+        SyncMetrics metrics = new SyncMetrics(false, 0);
+        Set<String> changed = new TreeSet<>();
+        if (!animals.isEmpty()) {
+            Set<String> deletedAnimals = changeLogDAO.pendingDeletes(ChangeEntry.ANIMAL);
+            for (Animal animal : pullAnimals(animals, false, deletedAnimals, new AnimalPull(null), metrics)) {
+                changed.add(animal.getRecordNumber());
+            }
+        }
+        if (!vaccines.isEmpty()) {
+            Set<String> deletedVaccines = changeLogDAO.pendingDeletes(ChangeEntry.VACCINE);
+            for (Vaccine vaccine : pullVaccinePage(vaccines, false, deletedVaccines, new VaccinePull(null, metrics, null))) {
+                changed.add(vaccine.getAnimalRecordNumber());
+            }
+        }
 
-        for (Animal animal : unsyncedAnimals) {
-            DocumentReference animalDoc = db.collection("animals").document(animal.getRecordNumber());
-            batch.set(animalDoc, animal);
+        if (!changed.isEmpty()) {
+            System.out.println("⚡ Cambios en vivo: " + changed.size() + " animales actualizados");
+            SyncEventManager.notifyListeners(changed);
         }
+        return changed;
+    }
 
-        for (Vaccine vaccine : allUnsyncedVaccines) {
-            DocumentReference vaccineDoc = db.collection("animals")
-                    .document(vaccine.getAnimalRecordNumber())
-                    .collection("vaccines")
-                    .document(vaccine.getId());
-            batch.set(vaccineDoc, vaccine);
+    /**
+     * Anti-entropy check: compares the per-bucket digests of {@code remote_versions} with the
+     * {@code sync_digests} kept in Firebase and re-fetches only the buckets that differ.
+     *
+     * A bucket holds the animals whose record number starts with the same two characters,
+     * plus their vaccines. Reading the digests costs one small document per bucket, so when
+     * nothing drifted a reconcile reads kilobytes instead of the whole dataset. Each drifted
+     * bucket is pulled like an exhaustive pull restricted to it (newer versions applied,
+     * remotely deleted vaccines removed), its remote versions are replaced with what was
+     * fetched, and its Firebase digest is rewritten if that was what had drifted.
+     *
+     * Drift is whatever the digests disagree about: deletions and skewed-clock writes from
+     * other devices, or digest increments that were lost. Writes made outside the app without
+     * updating {@code sync_digests} cannot be detected this way.
+     *
+     * @param changed Receives the record numbers of the animals whose data or vaccines changed.
+     */
+    private void ReconcileBuckets(SyncMetrics metrics, Set<String> changed) throws Exception {
+        Map<String, BucketDigest> remoteDigests = metrics.time(Phase.PULL_ANIMALS, remote::fetchDigests);
+        Map<String, BucketDigest> localDigests = metrics.time(Phase.LOCAL, remoteVersionDAO::getDigests);
+        Set<String> drifted = driftedBuckets(localDigests, remoteDigests);
+
+        System.out.println("🧮 Anti-entropía: " + drifted.size() + " de "
+                + Math.max(localDigests.size(), remoteDigests.size()) + " buckets con diferencias");
+        if (drifted.isEmpty()) return;
+
+        LocalState local = loadLocalState(metrics);
+        Map<String, List<RowVersion>> localVaccinesByBucket = new HashMap<>();
+        for (RowVersion vaccine : local.vaccines.values()) {
+            localVaccinesByBucket.computeIfAbsent(BucketDigest.bucketOf(vaccine.parentId()), b -> new ArrayList<>()).add(vaccine);
         }
 
-        if (!unsyncedAnimals.isEmpty() || !allUnsyncedVaccines.isEmpty()) {
-            batch.commit().get();
+        Map<String, BucketDigest> repaired = new TreeMap<>();
+        for (String bucket : drifted) {
+            BucketDigest actual = reconcileBucket(bucket, local,
+                    localVaccinesByBucket.getOrDefault(bucket, List.of()), changed, metrics);
+            if (!actual.equals(remoteDigests.getOrDefault(bucket, BucketDigest.EMPTY))) {
+                repaired.put(bucket, actual);
+            }
+        }
+        putDigests(repaired, metrics);
+    }
 
-            for (Animal animal : unsyncedAnimals) {
-                animal.setSynced(true);
-                animalDAO.updateAnimal(animal, false);
+    /**
+     * Re-fetches one bucket, applies it locally and replaces its remote versions. The animals
+     * it changed are added to {@code changed}.
+     *
+     * @return the digest of the bucket as it actually is in Firebase
+     */
+    private BucketDigest reconcileBucket(String bucket, LocalState local, List<RowVersion> localVaccines,
+                                         Set<String> changed, SyncMetrics metrics) throws Exception {
+        List<Animal> remoteAnimals = metrics.time(Phase.PULL_ANIMALS, () -> remote.fetchAnimalBucket(bucket));
+        VaccinePull vaccinePull = new VaccinePull(null, metrics, null);
+        metrics.time(Phase.PULL_VACCINES, () -> {
+            pullVaccines(remote.fetchVaccineBucket(bucket), local.vaccines, vaccinePull);
+            return null;
+        });
+
+        List<Animal> animalChanges = new ArrayList<>();
+        List<RemoteVersion> versions = new ArrayList<>(vaccinePull.versions);
+        Set<String> reconciledAnimals = new HashSet<>();
+        for (Animal firebaseAnimal : remoteAnimals) {
+            metrics.read(1, DocumentSize.of(firebaseAnimal));
+            reconciledAnimals.add(firebaseAnimal.getRecordNumber());
+            versions.add(RemoteVersion.of(firebaseAnimal));
+            if (isAnimalChange(firebaseAnimal, local.animals, local.deletedAnimals, metrics)) {
+                firebaseAnimal.setSynced(true);
+                animalChanges.add(firebaseAnimal);
             }
-            for (Vaccine vaccine : allUnsyncedVaccines) {
-                vaccine.setSynced(true);
-                vaccineDAO.updateVaccine(vaccine, false);
+        }
+        Set<String> knownAnimals = new HashSet<>(local.animals.keySet());
+        animalChanges.forEach(animal -> knownAnimals.add(animal.getRecordNumber()));
+        List<Vaccine> vaccineChanges = applicableVaccines(vaccinePull.changes, local.deletedVaccines, knownAnimals, metrics);
+        List<String> vaccineDeletes = remotelyDeletedVaccines(localVaccines, reconciledAnimals, vaccinePull.remoteIds);
+
+        applyPulled(animalChanges, vaccineChanges, vaccineDeletes, () -> {
+            remoteVersionDAO.replaceBucket(bucket, versions);
+            return null;
+        }, metrics);
+        animalChanges.forEach(animal -> changed.add(animal.getRecordNumber()));
+        vaccineChanges.forEach(vaccine -> changed.add(vaccine.getAnimalRecordNumber()));
+        Set<String> deleted = new HashSet<>(vaccineDeletes);
+        for (RowVersion vaccine : localVaccines) {
+            if (deleted.contains(vaccine.id())) changed.add(vaccine.parentId());
+        }
+
+        System.out.println("🔁 Bucket " + bucket + ": " + animalChanges.size() + " animales, "
+                + vaccineChanges.size() + " vacunas, " + vaccineDeletes.size() + " vacunas eliminadas");
+
+        BucketDigest digest = BucketDigest.EMPTY;
+        for (RemoteVersion version : versions) digest = digest.plus(version.digest());
+        return digest;
+    }
+
+    /** Buckets whose digests differ; a bucket missing on one side counts as empty. */
+    private static Set<String> driftedBuckets(Map<String, BucketDigest> local, Map<String, BucketDigest> remote) {
+        Set<String> buckets = new TreeSet<>(local.keySet());
+        buckets.addAll(remote.keySet());
+        buckets.removeIf(bucket -> local.getOrDefault(bucket, BucketDigest.EMPTY)
+                .equals(remote.getOrDefault(bucket, BucketDigest.EMPTY)));
+        return buckets;
+    }
+
+    private void putDigests(Map<String, BucketDigest> digests, SyncMetrics metrics) throws Exception {
+        if (digests.isEmpty()) return;
+        metrics.time(Phase.PUSH, () -> remote.putDigests(digests).get());
+        System.out.println("🧮 Digests reparados: " + digests.size() + " buckets");
+    }
+
+    /** Local versions a pull compares remote documents against, loaded in bulk. */
+    private static final class LocalState {
+        Map<String, RowVersion> animals;
+        Map<String, RowVersion> vaccines;
+        // Records deleted locally whose tombstone is not pushed yet must not be resurrected.
+        Set<String> deletedAnimals;
+        Set<String> deletedVaccines;
+    }
+
+    private LocalState loadLocalState(SyncMetrics metrics) throws Exception {
+        LocalState local = new LocalState();
+        local.animals = metrics.time(Phase.LOCAL, animalDAO::getSyncIndex);
+        local.vaccines = metrics.time(Phase.LOCAL, vaccineDAO::getSyncIndex);
+        local.deletedAnimals = metrics.time(Phase.LOCAL, () -> changeLogDAO.pendingDeletes(ChangeEntry.ANIMAL));
+        local.deletedVaccines = metrics.time(Phase.LOCAL, () -> changeLogDAO.pendingDeletes(ChangeEntry.VACCINE));
+        return local;
+    }
+
+    /** Whether a pulled animal is new or newer than the local copy (and not deleted locally). */
+    private boolean isAnimalChange(Animal firebaseAnimal, Map<String, RowVersion> localVersions,
+                                   Set<String> deletedAnimals, SyncMetrics metrics) {
+        String recordNumber = firebaseAnimal.getRecordNumber();
+        if (deletedAnimals.contains(recordNumber)) {
+            metrics.conflict();
+            return false;
+        }
+        RowVersion local = localVersions.get(recordNumber);
+        if (local == null || isNewerThanLocal(firebaseAnimal.getHlc(), firebaseAnimal.getLastModified(), local)) {
+            return true;
+        }
+        if (!isSameVersion(firebaseAnimal.getHlc(), firebaseAnimal.getLastModified(), local)) metrics.conflict();
+        return false;
+    }
+
+    /**
+     * Drops pulled vaccines that cannot be applied: deleted locally, or belonging to an animal
+     * that is not (or no longer) local, which would violate the foreign key and roll back the
+     * whole transaction (the collection group can return those).
+     */
+    private static List<Vaccine> applicableVaccines(List<Vaccine> vaccines, Set<String> deletedVaccines,
+                                                    Set<String> knownAnimals, SyncMetrics metrics) {
+        vaccines.removeIf(vaccine -> {
+            if (deletedVaccines.contains(vaccine.getId())) {
+                metrics.conflict();
+                return true;
             }
+            return !knownAnimals.contains(vaccine.getAnimalRecordNumber());
+        });
+        return vaccines;
+    }
 
-            System.out.println("⬆ Batch enviado: " + unsyncedAnimals.size() +
-                    " animales, " + allUnsyncedVaccines.size() + " vacunas");
+    /** Local synced vaccines of fully fetched animals that Firebase no longer has. */
+    private static List<String> remotelyDeletedVaccines(Collection<RowVersion> localVaccines,
+                                                        Set<String> reconciledAnimals, Set<String> remoteIds) {
+        List<String> deletes = new ArrayList<>();
+        for (RowVersion local : localVaccines) {
+            if (local.synced() && reconciledAnimals.contains(local.parentId()) && !remoteIds.contains(local.id())) {
+                deletes.add(local.id());
+            }
         }
+        return deletes;
+    }
+
+    /** Writes pulled rows plus the caller's bookkeeping in a single local transaction. */
+    private void applyPulled(List<Animal> animals, List<Vaccine> vaccines, List<String> vaccineDeletes,
+                             DatabaseConnection.SqlWork<Void> bookkeeping, SyncMetrics metrics) throws Exception {
+        metrics.time(Phase.LOCAL, () -> DatabaseConnection.inTransaction(conn, () -> {
+            // Remote deletions applied here must not be queued as tombstones for the next push.
+            changeLogDAO.setApplyRemote(true);
+            animalDAO.upsertAnimals(animals);
+            vaccineDAO.upsertVaccines(vaccines);
+            vaccineDAO.deleteVaccines(vaccineDeletes);
+            changeLogDAO.setApplyRemote(false);
+            return bookkeeping.run();
+        }));
+        metrics.written(animals.size() + vaccines.size() + vaccineDeletes.size());
+    }
+
+    /** Returns the later of two {@code yyyy-MM-dd HH:mm:ss} timestamps, ignoring nulls. */
+    private static String latest(String current, String candidate) {
+        if (candidate == null) return current;
+        if (current == null) return candidate;
+        return candidate.compareTo(current) > 0 ? candidate : current;
     }
 
 
 
     /**
-     * Handles vaccine synchronization for a specific animal.
+     * Uploads local changes to Firebase by streaming the {@code change_log} outbox.
      *
-     * This method performs bidirectional vaccine sync:
-     * - Downloads new vaccines from Firebase and adds them locally
-     * - Identifies vaccines that were deleted in Firebase and removes them locally
-     *   (only removes previously synced vaccines to avoid deleting new local vaccines)
+     * Process:
+     * 1. Reads the log in pages ordered by sequence number, each large enough for every
+     *    concurrent commit of the {@link ChunkedPusher}
+     * 2. Collapses each page to the latest change per record
+     * 3. Loads the referenced rows that are still unsynced (one query per entity type)
+     * 4. Sends upserts as {@code set} and tombstones as {@code delete}; an update of an animal
+     *    already in Firebase only sends the fields its log entries list, with a merge
+     * 5. After each batch is committed, marks its rows as synced (guarded by the pushed
+     *    hlc stamp), records the pushed versions in {@code remote_versions} and removes the
+     *    acknowledged log entries, in one local transaction
+     * 6. Adds the net change of every touched bucket ({@code +pushed -previous}) to the remote
+     *    digests in a single call at the end, which keeps them comparable with
+     *    {@link RemoteVersionDAO#getDigests()} for the next reconcile
      *
-     * @param vaccineSnapshot Firebase query result containing vaccines for an animal
-     * @param recordNumber The animal's record number to associate vaccines with
+     * Cost depends only on how many changes are queued, and deletes made offline are
+     * delivered here like any other change. Writes go through {@link ChunkedPusher}, so
+     * backlogs larger than Firestore's 500-writes-per-batch limit are split; if a batch
+     * fails its entries stay in the log and the next sync resumes from them.
      */
-    private void pullVaccines(QuerySnapshot vaccineSnapshot, String recordNumber) throws Exception {
-        Set<String> firebaseVaccineIds = new HashSet<>();
+    private void PushChanges(SyncMetrics metrics) throws Exception {
+        ChunkedPusher pusher = new ChunkedPusher(remote);
 
-        for (QueryDocumentSnapshot vaccineDoc : vaccineSnapshot.getDocuments()) {
-            Vaccine firebaseVaccine = vaccineDoc.toObject(Vaccine.class);
-            String vaccineId = vaccineDoc.getId();
+        long afterSeq = 0;
+        int upserts = 0;
+        int deletes = 0;
+        List<ChangeEntry> page;
+        Map<String, BucketDigest> digestDeltas = new TreeMap<>();
 
-            firebaseVaccineIds.add(vaccineId);
+        try {
+            // A page fills every concurrent commit of the pusher, not just one batch.
+            while (!(page = changeLogDAO.readAfter(afterSeq, pusher.pageSize())).isEmpty()) {
+                afterSeq = page.get(page.size() - 1).seq();
+
+                Map<String, ChangeEntry> latest = new LinkedHashMap<>();
+                List<String> animalIds = new ArrayList<>();
+                List<String> vaccineIds = new ArrayList<>();
+                List<String> touchedAnimals = new ArrayList<>();
+                List<String> touchedVaccines = new ArrayList<>();
+                for (ChangeEntry entry : page) {
+                    latest.put(entry.entity() + ":" + entry.entityId(), entry);
+                }
+                for (ChangeEntry entry : latest.values()) {
+                    (entry.isAnimal() ? touchedAnimals : touchedVaccines).add(entry.entityId());
+                    if (entry.isDelete()) continue;
+                    (entry.isAnimal() ? animalIds : vaccineIds).add(entry.entityId());
+                }
+                // Versions currently in Firebase, to turn each write into a digest delta.
+                Map<String, String> animalBases = remoteVersionDAO.getVersions(ChangeEntry.ANIMAL, touchedAnimals);
+                Map<String, String> vaccineBases = remoteVersionDAO.getVersions(ChangeEntry.VACCINE, touchedVaccines);
+
+                Map<String, Animal> animals = new HashMap<>();
+                for (Animal animal : animalDAO.getUnsyncedAnimals(animalIds)) {
+                    animals.put(animal.getRecordNumber(), animal);
+                }
+                Map<String, Vaccine> vaccines = new HashMap<>();
+                for (Vaccine vaccine : vaccineDAO.getUnsyncedVaccines(vaccineIds)) {
+                    vaccines.put(vaccine.getId(), vaccine);
+                }
+                Map<String, Set<String>> changedFields = changeLogDAO.pendingFields(ChangeEntry.ANIMAL, animals.keySet());
+
+                List<OutgoingChange> writes = new ArrayList<>();
+                List<ChangeEntry> superseded = new ArrayList<>();
+                for (ChangeEntry entry : latest.values()) {
+                    String base = (entry.isAnimal() ? animalBases : vaccineBases).get(entry.entityId());
+                    if (entry.isDelete()) {
+                        RemoteWrite delete = entry.isAnimal()
+                                ? RemoteWrite.deleteAnimal(entry.entityId())
+                                : RemoteWrite.deleteVaccine(entry.parentId(), entry.entityId());
+                        writes.add(new OutgoingChange(entry, delete, null, 0L, base));
+                    } else if (entry.isAnimal() && animals.containsKey(entry.entityId())) {
+                        Animal animal = animals.get(entry.entityId());
+                        Set<String> fields = changedFields.get(entry.entityId());
+                        // A merge needs the document to exist in Firebase; otherwise send it whole.
+                        RemoteWrite write = fields != null && base != null
+                                ? RemoteWrite.mergeAnimal(animal, fields)
+                                : RemoteWrite.setAnimal(animal);
+                        writes.add(new OutgoingChange(entry, write, animal.getLastModified(), animal.getHlc(), base));
+                    } else if (!entry.isAnimal() && vaccines.containsKey(entry.entityId())) {
+                        Vaccine vaccine = vaccines.get(entry.entityId());
+                        writes.add(new OutgoingChange(entry, RemoteWrite.setVaccine(vaccine), vaccine.getLastModified(), vaccine.getHlc(), base));
+                    } else {
+                        // Row gone or already synced (e.g. overwritten by a newer remote version): nothing to send.
+                        superseded.add(entry);
+                    }
+                }
+                changeLogDAO.acknowledge(superseded);
+
+                pusher.push(writes, OutgoingChange::write, chunk -> {
+                    acknowledgePushed(chunk, digestDeltas);
+                    long bytes = 0;
+                    for (OutgoingChange change : chunk) bytes += DocumentSize.of(change.write());
+                    metrics.pushed(chunk.size(), bytes);
+                });
+
+                for (OutgoingChange change : writes) {
+                    if (change.write().isDelete()) deletes++;
+                    else upserts++;
+                }
+            }
+        } finally {
+            // Also after a failed push: the chunks already committed did change their buckets.
+            flushDigestDeltas(digestDeltas);
+        }
 
-            Vaccine localVaccine = vaccineDAO.existsVaccine(vaccineId);
+        if (upserts > 0 || deletes > 0) {
+            System.out.println("⬆ Push enviado: " + upserts + " cambios, " + deletes + " eliminaciones");
+        }
+    }
 
-            if (localVaccine == null) {
-                firebaseVaccine.setSynced(true);
-                vaccineDAO.insertVaccine(firebaseVaccine);
-                System.out.println("⬇ Vacuna insertada: " + firebaseVaccine.getVaccineName());
-            } else if (shouldUpdateFromFirebaseVaccine(firebaseVaccine, localVaccine)) {
-                firebaseVaccine.setSynced(true);
-                vaccineDAO.updateVaccine(firebaseVaccine, false);
-                System.out.println("🔁 Vacuna actualizada: " + firebaseVaccine.getVaccineName());
-            }
+    /**
+     * A change-log entry with the remote write it becomes, the version being pushed and the
+     * version Firebase held before ({@code null} if the document was not there).
+     */
+    private record OutgoingChange(ChangeEntry entry, RemoteWrite write, String lastModified, long hlc, String baseVersion) {
+
+        RemoteVersion pushedVersion() {
+            return new RemoteVersion(entry.entity(), entry.entityId(),
+                    BucketDigest.bucketOf(write.animalRecordNumber()), lastModified);
+        }
+
+        /** How this write changes its bucket's digest: {@code +pushed -base}. */
+        BucketDigest digestDelta() {
+            BucketDigest delta = write.isDelete() ? BucketDigest.EMPTY : pushedVersion().digest();
+            return baseVersion == null ? delta : delta.minus(BucketDigest.of(entry.entity(), entry.entityId(), baseVersion));
         }
+    }
 
-        List<Vaccine> localVaccines = vaccineDAO.getVaccinesByAnimal(recordNumber);
-        for (Vaccine localVaccine : localVaccines) {
-            if (!firebaseVaccineIds.contains(localVaccine.getId()) && localVaccine.isSynced()) {
-                vaccineDAO.deleteVaccine(localVaccine.getId());
-                System.out.println("🗑 Vacuna eliminada: " + localVaccine.getVaccineName());
+    /**
+     * Marks a committed chunk as synced, records the versions now in Firebase and drops the
+     * chunk's log entries, atomically. The chunk's digest deltas are added to {@code digestDeltas}.
+     */
+    private void acknowledgePushed(List<OutgoingChange> chunk, Map<String, BucketDigest> digestDeltas) throws Exception {
+        Map<String, Long> animalVersions = new LinkedHashMap<>();
+        Map<String, Long> vaccineVersions = new LinkedHashMap<>();
+        List<RemoteVersion> pushedVersions = new ArrayList<>();
+        List<String> deletedAnimals = new ArrayList<>();
+        List<String> deletedVaccines = new ArrayList<>();
+        List<ChangeEntry> entries = new ArrayList<>();
+        for (OutgoingChange change : chunk) {
+            entries.add(change.entry());
+            if (change.baseVersion() != null || !change.write().isDelete()) {
+                digestDeltas.merge(BucketDigest.bucketOf(change.write().animalRecordNumber()),
+                        change.digestDelta(), BucketDigest::plus);
+            }
+            if (change.write().isDelete()) {
+                (change.entry().isAnimal() ? deletedAnimals : deletedVaccines).add(change.entry().entityId());
+                continue;
             }
+            pushedVersions.add(change.pushedVersion());
+            (change.entry().isAnimal() ? animalVersions : vaccineVersions)
+                    .put(change.entry().entityId(), change.hlc());
         }
+
+        DatabaseConnection.inTransaction(conn, () -> {
+            animalDAO.markSynced(animalVersions);
+            vaccineDAO.markSynced(vaccineVersions);
+            remoteVersionDAO.upsertVersions(pushedVersions);
+            remoteVersionDAO.deleteVersions(ChangeEntry.ANIMAL, deletedAnimals);
+            remoteVersionDAO.deleteVersions(ChangeEntry.VACCINE, deletedVaccines);
+            changeLogDAO.acknowledge(entries);
+            return null;
+        });
     }
 
+    /**
+     * Adds the pushed writes' deltas to Firebase's {@code sync_digests} in one call. If that
+     * fails the digests are merely stale: the next reconcile finds those buckets and repairs them.
+     */
+    private void flushDigestDeltas(Map<String, BucketDigest> digestDeltas) {
+        digestDeltas.values().removeIf(BucketDigest::isEmpty);
+        if (digestDeltas.isEmpty()) return;
+        try {
+            remote.addToDigests(digestDeltas).get();
+        } catch (Exception e) {
+            System.out.println("Error updating sync digests -> " + e.getMessage());
+        }
+    }
+
+
 
     /**
-     * Deletes a vaccine from both Firebase and local database in a synchronized manner.
-     *
-     * Process:
-     * 1. If Firebase is available, delete it from Firebase first
-     * 2. Only if Firebase deletion succeeds, deletes it from local database
-     * 3. If Firebase is unavailable, delete it only locally (will sync on the next connection)
+     * Accumulates the outcome of a vaccine pull. The paged pull drains {@code changes},
+     * {@code versions} and {@code remoteIds} after every page; the bucket reconcile reads them
+     * once at the end.
+     */
+    private static final class VaccinePull {
+        final List<Vaccine> changes = new ArrayList<>();
+        final Set<String> remoteIds = new HashSet<>();
+        /** Remote versions to record: those not already known, or every one when nothing is known. */
+        final List<RemoteVersion> versions = new ArrayList<>();
+        final SyncMetrics metrics;
+        Map<String, String> knownVersions;
+        String highWaterMark;
+        int fetched;
+        int applied;
+
+        VaccinePull(String highWaterMark, SyncMetrics metrics, Map<String, String> knownVersions) {
+            this.highWaterMark = highWaterMark;
+            this.metrics = metrics;
+            this.knownVersions = knownVersions;
+        }
+    }
+
+    /**
+     * Compares one page of pulled vaccines against the preloaded local versions.
      *
-     * This ensures data consistency and handles offline scenarios gracefully.
+     * New or newer vaccines are added to the pull's changes; every remote id is recorded so
+     * the caller can detect vaccines deleted in Firebase, remote versions not known yet are
+     * collected, and the high-water mark advances to the newest vaccine seen. Nothing is
+     * written here.
      *
-     * @param vaccine The vaccine object to delete
-     * @throws Exception if Firebase deletion fails
+     * @param page vaccines returned by the remote store
+     * @param localVaccines local versions keyed by vaccine id
+     * @param pull accumulated state of the current pull
      */
-    public void deleteVaccineAndSync(Vaccine vaccine) throws Exception {
-        if (FirebaseConfig.isFirebaseAvailable()) {
-            try {
-                Firestore db = FirestoreClient.getFirestore();
-                DocumentReference vaccineDoc = db.collection("animals")
-                        .document(vaccine.getAnimalRecordNumber())
-                        .collection("vaccines")
-                        .document(vaccine.getId()); // Now using GUID directly
-
-                ApiFuture<WriteResult> deleteFuture = vaccineDoc.delete();
-                deleteFuture.get();
-
-                vaccineDAO.deleteVaccine(vaccine.getId());
-            } catch (Exception e) {
-                System.out.println("Failed to delete from Firebase: " + e.getMessage());
-                throw e;
+    private void pullVaccines(List<Vaccine> page, Map<String, RowVersion> localVaccines, VaccinePull pull) {
+        for (Vaccine firebaseVaccine : page) {
+            String vaccineId = firebaseVaccine.getId();
+            pull.remoteIds.add(vaccineId);
+            pull.fetched++;
+            pull.metrics.read(1, DocumentSize.of(firebaseVaccine));
+            if (pull.knownVersions == null
+                    || !Objects.equals(pull.knownVersions.get(vaccineId), firebaseVaccine.getLastModified())) {
+                pull.versions.add(RemoteVersion.of(firebaseVaccine));
+            }
+
+            RowVersion localVaccine = localVaccines.get(vaccineId);
+            pull.highWaterMark = latest(pull.highWaterMark, firebaseVaccine.getLastModified());
+
+            if (localVaccine == null
+                    || isNewerThanLocal(firebaseVaccine.getHlc(), firebaseVaccine.getLastModified(), localVaccine)) {
+                firebaseVaccine.setSynced(true);
+                pull.changes.add(firebaseVaccine);
+            } else if (!isSameVersion(firebaseVaccine.getHlc(), firebaseVaccine.getLastModified(), localVaccine)) {
+                pull.metrics.conflict();
             }
-        } else {
-            vaccineDAO.deleteVaccine(vaccine.getId());
         }
     }
+
+
     /**
-     * Determines whether the local animal record should be updated with Firebase data.
+     * Determines whether the local record should be updated with Firebase data.
      *
-     * Uses lastModified timestamps to compare versions:
-     * - If either timestamp is null, defaults to updating (safe fallback)
-     * - If a Firebase version has a more recent timestamp, returns true
-     * - If timestamp parsing fails, defaults to updating (safe fallback)
+     * Versions are ordered by their {@link HybridLogicalClock} stamps, so a device whose clock
+     * runs behind cannot lose its edits to an older one; records written before the stamps
+     * existed fall back to comparing lastModified. The DAO upserts apply the same rule, so a
+     * version chosen here is never silently dropped by the write.
      *
      * This prevents overwriting newer local changes with older Firebase data.
      */
-    private boolean shouldUpdateFromFirebaseTimestamp(String fbTime, String localTime) {
-        if (fbTime == null || localTime == null) return true;
-        try {
-            LocalDateTime firebaseModified = LocalDateTime.parse(fbTime, DB_FORMATTER);
-            LocalDateTime localModified = LocalDateTime.parse(localTime, DB_FORMATTER);
-            return firebaseModified.isAfter(localModified);
-        } catch (Exception e) {
-            return true;
-        }
-    }
-
-    private boolean shouldUpdateFromFirebase(Animal firebaseAnimal, Animal localAnimal) {
-        return shouldUpdateFromFirebaseTimestamp(firebaseAnimal.getLastModified(), localAnimal.getLastModified());
+    private static boolean isNewerThanLocal(long remoteHlc, String remoteModified, RowVersion local) {
+        return HybridLogicalClock.isNewer(remoteHlc, remoteModified, local.hlc(), local.lastModified());
     }
 
-    private boolean shouldUpdateFromFirebaseVaccine(Vaccine firebaseVaccine, Vaccine localVaccine) {
-        return shouldUpdateFromFirebaseTimestamp(firebaseVaccine.getLastModified(), localVaccine.getLastModified());
+    private static boolean isSameVersion(long remoteHlc, String remoteModified, RowVersion local) {
+        return remoteHlc == local.hlc() && Objects.equals(remoteModified, local.lastModified());
     }
 }
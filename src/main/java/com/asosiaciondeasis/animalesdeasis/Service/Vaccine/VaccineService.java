@@ -3,8 +3,10 @@ package com.asosiaciondeasis.animalesdeasis.Service.Vaccine;
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Vaccines.IVaccineDAO;
 import com.asosiaciondeasis.animalesdeasis.Abstraccions.Vaccines.IVaccineService;
 import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
 
 import java.util.List;
+import java.util.Set;
 
 public class VaccineService implements IVaccineService {
     private final IVaccineDAO vaccineDAO;
@@ -17,6 +19,7 @@ public class VaccineService implements IVaccineService {
     @Override
     public void registerVaccine(Vaccine vaccine) throws Exception {
         vaccineDAO.insertVaccine(vaccine);
+        DataChangeEventManager.notifyLocalChange(Set.of());
     }
 
     @Override
@@ -27,11 +30,13 @@ public class VaccineService implements IVaccineService {
     @Override
     public void updateVaccine(Vaccine vaccine, boolean timestamp) throws Exception {
         vaccineDAO.updateVaccine(vaccine, true);
+        DataChangeEventManager.notifyLocalChange(Set.of());
     }
 
     @Override
     public void deleteVaccine(String id) throws Exception {
         vaccineDAO.deleteVaccine(id);
+        DataChangeEventManager.notifyLocalChange(Set.of());
     }
 
     @Override
@@ -0,0 +1,88 @@
+package com.asosiaciondeasis.animalesdeasis.Util;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * DataChangeEventManager notifies interested components that the user changed local data
+ * (an animal or vaccine was created, edited or deleted through the services).
+ * The sync coordinator listens to it to push those edits shortly after they happen.
+ * Change listeners also receive the admission years of the animals that were inserted or
+ * moved, so cached statistics can drop just those years.
+ * Listeners run on the thread that made the change, so they must return quickly.
+ */
+public class DataChangeEventManager {
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private static final List<Consumer<Set<Integer>>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Registers a new listener to be notified on local data changes.
+     *
+     * @param listener The Runnable to be executed when local data changes.
+     */
+    public static void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered listener.
+     *
+     * @param listener The Runnable to be removed from the notification list.
+     */
+    public static void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Registers a listener that receives the admission years whose statistics may have
+     * changed, or {@code null} when any year may have.
+     *
+     * @param listener The consumer to be called when local data changes.
+     */
+    public static void addChangeListener(Consumer<Set<Integer>> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered change listener.
+     *
+     * @param listener The consumer to be removed from the notification list.
+     */
+    public static void removeChangeListener(Consumer<Set<Integer>> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Notifies all registered listeners that local data changed, in any admission year.
+     */
+    public static void notifyLocalChange() {
+        notifyLocalChange(null);
+    }
+
+    /**
+     * Notifies all registered listeners that local data changed, and the change listeners
+     * with the admission years it touched (empty when no animal was added or moved, e.g. a
+     * vaccine edit; {@code null} for "any").
+     * If a listener throws an exception, it is caught and logged, allowing other listeners to be notified.
+     *
+     * @param admissionYears Admission years whose statistics may have changed, or null if unknown.
+     */
+    public static void notifyLocalChange(Set<Integer> admissionYears) {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (Exception e) {
+                System.out.println("Error notifying data change listener: " + e.getMessage());
+            }
+        }
+        for (Consumer<Set<Integer>> listener : changeListeners) {
+            try {
+                listener.accept(admissionYears);
+            } catch (Exception e) {
+                System.out.println("Error notifying data change listener: " + e.getMessage());
+            }
+        }
+    }
+}
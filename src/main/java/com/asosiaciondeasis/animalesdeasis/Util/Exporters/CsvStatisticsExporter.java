@@ -1,7 +1,8 @@
 package com.asosiaciondeasis.animalesdeasis.Util.Exporters;
 
 
-import com.asosiaciondeasis.animalesdeasis.DAO.Statistics.StatisticsDAO;
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsService;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
 import javafx.stage.FileChooser;
 import javafx.stage.Window;
 
@@ -25,15 +26,15 @@ import java.util.Map;
  */
 public class CsvStatisticsExporter {
 
-    private final StatisticsDAO statisticsDAO;
+    private final IStatisticsService statisticsService;
 
     /**
-     * Constructor that initializes the exporter with a StatisticsDAO instance.
+     * Constructor that initializes the exporter with a statistics service.
      *
-     * @param statisticsDAO The data access object used to retrieve statistics from the database
+     * @param statisticsService The service used to retrieve statistics, usually the cached one shown on screen
      */
-    public CsvStatisticsExporter(StatisticsDAO statisticsDAO) {
-        this.statisticsDAO = statisticsDAO;
+    public CsvStatisticsExporter(IStatisticsService statisticsService) {
+        this.statisticsService = statisticsService;
     }
 
     /**
@@ -119,9 +120,10 @@ public class CsvStatisticsExporter {
             writer.println();
 
 
-            Map<String, Integer> monthlyAdmissions = statisticsDAO.getMonthlyAdmissions(year);
-            int totalAdmissions = statisticsDAO.getTotalAdmissions(year);
-            double adoptionRate = statisticsDAO.getAdoptionRate(year);
+            DashboardSnapshot dashboard = statisticsService.getDashboard(year);
+            Map<String, Integer> monthlyAdmissions = dashboard.monthlyAdmissions();
+            int totalAdmissions = dashboard.totalAdmissions();
+            double adoptionRate = dashboard.adoptionRate();
 
 
             writer.println("RESUMEN EJECUTIVO");
@@ -131,10 +133,7 @@ public class CsvStatisticsExporter {
             writer.println("Tasa de Adopción (%)," + String.format(Locale.US, "%.2f", adoptionRate));
 
             if (!monthlyAdmissions.isEmpty()) {
-                double monthlyAverage = monthlyAdmissions.values().stream()
-                        .mapToInt(Integer::intValue)
-                        .average()
-                        .orElse(0.0);
+                double monthlyAverage = dashboard.monthlyAverage();
                 writer.println("Promedio Mensual," + String.format(Locale.US, "%.2f", monthlyAverage));
             }
 
@@ -162,8 +161,8 @@ public class CsvStatisticsExporter {
             writer.println("Concepto,Cantidad,Porcentaje");
 
             if (totalAdmissions > 0) {
-                int adoptedAnimals = (int) Math.round(totalAdmissions * adoptionRate / 100.0);
-                int notAdoptedAnimals = totalAdmissions - adoptedAnimals;
+                int adoptedAnimals = dashboard.adoptedAnimals();
+                int notAdoptedAnimals = dashboard.notAdoptedAnimals();
 
                 writer.println("Animales Adoptados," + adoptedAnimals + "," +
                         String.format(Locale.US, "%.2f", adoptionRate));
@@ -180,7 +179,7 @@ public class CsvStatisticsExporter {
             writer.println("ORIGEN DE ANIMALES POR LUGAR");
             writer.println("Lugar - Provincia,Cantidad");
 
-            Map<String, Integer> originsData = statisticsDAO.getAnimalOrigins(year);
+            Map<String, Integer> originsData = dashboard.origins();
 
             if (!originsData.isEmpty()) {
                 originsData.entrySet().stream()
@@ -247,7 +246,7 @@ public class CsvStatisticsExporter {
      */
     public boolean hasDataToExport(int year) {
         try {
-            return statisticsDAO.getTotalAdmissions(year) > 0;
+            return statisticsService.getTotalAdmissions(year) > 0;
         } catch (Exception e) {
             return false;
         }
@@ -0,0 +1,53 @@
+package com.asosiaciondeasis.animalesdeasis.Util;
+
+/**
+ * Hybrid logical clock used to order versions of the same record across devices.
+ *
+ * <p>A stamp is a single {@code long}: the wall-clock milliseconds in the high 48 bits and a
+ * counter in the low 16, so stamps compare as plain integers. A new stamp is always greater
+ * than every stamp this device has issued or {@link #observe observed}: a device whose clock
+ * runs behind still orders its edits after the remote versions it has already seen, instead
+ * of losing them to an older write, and two devices never disagree on which version is newer.</p>
+ *
+ * <p>{@code 0} means "no stamp" (rows and documents written before the clock existed); those
+ * are ordered by {@code last_modified}, see {@link #isNewer}.</p>
+ */
+public class HybridLogicalClock {
+
+    private static final int COUNTER_BITS = 16;
+
+    /** Latest stamp issued or observed by this process. */
+    private static long last;
+
+    private HybridLogicalClock() {
+    }
+
+    /** A stamp for a local write, greater than every stamp issued or observed so far. */
+    public static synchronized long now() {
+        long wall = System.currentTimeMillis() << COUNTER_BITS;
+        last = Math.max(wall, last + 1);
+        return last;
+    }
+
+    /** Takes a stamp received from another device (or read back from disk) into account. */
+    public static synchronized void observe(long stamp) {
+        if (stamp > last) last = stamp;
+    }
+
+    /** Wall-clock milliseconds a stamp was issued at (at least). */
+    public static long physicalMillis(long stamp) {
+        return stamp >>> COUNTER_BITS;
+    }
+
+    /**
+     * Whether version {@code (hlc, lastModified)} is newer than {@code (otherHlc, otherLastModified)}.
+     * Stamps decide when both versions have one; otherwise the {@code yyyy-MM-dd HH:mm:ss}
+     * timestamps are compared as text, a missing one being the oldest. Same rule as the
+     * upsert guards of the DAOs.
+     */
+    public static boolean isNewer(long hlc, String lastModified, long otherHlc, String otherLastModified) {
+        if (hlc > 0 && otherHlc > 0) return hlc > otherHlc;
+        if (lastModified == null) return false;
+        return otherLastModified == null || lastModified.compareTo(otherLastModified) > 0;
+    }
+}
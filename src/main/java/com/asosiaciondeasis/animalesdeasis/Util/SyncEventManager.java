@@ -1,15 +1,22 @@
 package com.asosiaciondeasis.animalesdeasis.Util;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * SyncEventManager is a utility class for managing synchronization event listeners.
  * It allows components to register, remove, and notify listeners when a synchronization event occurs.
  * Listeners are represented as Runnable instances and are executed when notified.
+ * Change listeners also receive the record numbers of the animals that changed (their own
+ * data or their vaccines), so a view can refresh just those rows.
+ * Notifications come from the sync thread while views register from the UI thread, so the
+ * lists are copy-on-write.
  */
 public class SyncEventManager {
-    private static final List<Runnable> listeners = new ArrayList<>();
+    private static final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private static final List<Consumer<Set<String>>> changeListeners = new CopyOnWriteArrayList<>();
 
     /**
      * Registers a new listener to be notified on synchronization events.
@@ -30,10 +37,39 @@ public class SyncEventManager {
     }
 
     /**
-     * Notifies all registered listeners by executing their run() method.
-     * If a listener throws an exception, it is caught and logged, allowing other listeners to be notified.
+     * Registers a listener that receives the changed record numbers (empty when a sync run
+     * only pushed), or {@code null} when any record may have changed.
+     *
+     * @param listener The consumer to be called when a sync event occurs.
+     */
+    public static void addChangeListener(Consumer<Set<String>> listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a previously registered change listener.
+     *
+     * @param listener The consumer to be removed from the notification list.
+     */
+    public static void removeChangeListener(Consumer<Set<String>> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Notifies all registered listeners that any record may have changed.
      */
     public static void notifyListeners() {
+        notifyListeners(null);
+    }
+
+    /**
+     * Notifies all registered listeners by executing their run() method, and the change
+     * listeners with the record numbers that changed ({@code null} for "any").
+     * If a listener throws an exception, it is caught and logged, allowing other listeners to be notified.
+     *
+     * @param changedRecordNumbers Animals whose data or vaccines changed, or null if unknown.
+     */
+    public static void notifyListeners(Set<String> changedRecordNumbers) {
         for (Runnable listener : listeners) {
             try {
                 listener.run();
@@ -41,5 +77,12 @@ public class SyncEventManager {
                 System.out.println("Error notifying sync listener: " + e.getMessage());
             }
         }
+        for (Consumer<Set<String>> listener : changeListeners) {
+            try {
+                listener.accept(changedRecordNumbers);
+            } catch (Exception e) {
+                System.out.println("Error notifying sync listener: " + e.getMessage());
+            }
+        }
     }
 }
@@ -0,0 +1,127 @@
+package com.asosiaciondeasis.animalesdeasis.Config;
+
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The reader pool only makes sense against a real file (an in-memory database is
+ * private to a single connection), so these tests use a temporary WAL database.
+ */
+class DatabaseConnectionTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Connection writer;
+    private Connection reader;
+    private int placeId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String url = "jdbc:sqlite:" + tempDir.resolve("pool.db");
+        writer = DriverManager.getConnection(url);
+        DatabaseConnection.applyPragmas(writer);
+        SQLiteSetup.createSchema(writer);
+        placeId = TestSupport.seedPlace(writer);
+        reader = DatabaseConnection.openReadOnly(url);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        reader.close();
+        writer.close();
+    }
+
+    @Test
+    void readOnlyConnectionRejectsWrites() {
+        assertThrows(SQLException.class, () -> {
+            try (Statement stmt = reader.createStatement()) {
+                stmt.executeUpdate("INSERT INTO provinces (name) VALUES ('Heredia')");
+            }
+        });
+    }
+
+    @Test
+    void readerSharesWalJournalMode() throws Exception {
+        try (Statement stmt = reader.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode")) {
+            assertTrue(rs.next());
+            assertEquals("wal", rs.getString(1).toLowerCase());
+        }
+    }
+
+    @Test
+    void daoWritesThroughWriterAndReadsThroughReader() throws Exception {
+        AnimalDAO dao = new AnimalDAO(writer, reader);
+        Animal animal = TestSupport.newAnimal(placeId);
+
+        assertTrue(dao.insertAnimal(animal));
+
+        Animal found = dao.findByRecordNumber(animal.getRecordNumber());
+        assertNotNull(found, "A committed write must be visible to the read-only connection");
+        assertEquals(1, dao.getAllAnimals().size());
+    }
+
+    @Test
+    void readerIsNotBlockedByAnOpenWriteTransaction() throws Exception {
+        AnimalDAO dao = new AnimalDAO(writer, reader);
+        dao.insertAnimal(TestSupport.newAnimal(placeId));
+
+        writer.setAutoCommit(false);
+        try {
+            dao.insertAnimal(TestSupport.newAnimal(placeId));
+            // Uncommitted row is invisible, but the read itself must not wait for the lock.
+            assertEquals(1, dao.getAllAnimals().size());
+        } finally {
+            writer.rollback();
+            writer.setAutoCommit(true);
+        }
+    }
+
+    @Test
+    void editDuringASyncTransactionIsNotPartOfIt() throws Exception {
+        Connection sync = DatabaseConnection.openSyncWriter("jdbc:sqlite:" + tempDir.resolve("pool.db"));
+        AnimalDAO uiDAO = new AnimalDAO(writer, reader);
+        Animal pulled = TestSupport.newAnimal(placeId);
+        Animal edited = TestSupport.newAnimal(placeId);
+        Thread[] ui = new Thread[1];
+        Exception[] uiError = new Exception[1];
+
+        try {
+            assertThrows(IllegalStateException.class, () -> DatabaseConnection.inTransaction(sync, () -> {
+                new AnimalDAO(sync).insertAnimal(pulled);
+                ui[0] = new Thread(() -> {
+                    try {
+                        uiDAO.insertAnimal(edited);
+                    } catch (Exception e) {
+                        uiError[0] = e;
+                    }
+                });
+                ui[0].start();
+                Thread.sleep(200);
+                throw new IllegalStateException("page failed");
+            }));
+            ui[0].join(5000);
+        } finally {
+            sync.close();
+        }
+
+        assertNull(uiError[0]);
+        assertNull(uiDAO.findByRecordNumber(pulled.getRecordNumber()), "The page was rolled back");
+        assertNotNull(uiDAO.findByRecordNumber(edited.getRecordNumber()), "The edit waited and committed on its own");
+    }
+}
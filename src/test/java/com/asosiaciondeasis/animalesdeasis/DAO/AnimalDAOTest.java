@@ -2,13 +2,18 @@ package com.asosiaciondeasis.animalesdeasis.DAO;
 
 import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.AnimalSummary;
+import com.asosiaciondeasis.animalesdeasis.Model.PageCursor;
 import com.asosiaciondeasis.animalesdeasis.TestSupport;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.sql.Connection;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -131,4 +136,220 @@ class AnimalDAOTest {
         Exception ex = assertThrows(Exception.class, () -> dao.updateAnimal(b, true));
         assertTrue(ex.getMessage().toLowerCase().contains("unique"));
     }
+
+    @Test
+    void findPageWalksListingWithKeysetCursor() throws Exception {
+        for (int day = 1; day <= 5; day++) {
+            Animal animal = TestSupport.newAnimal(placeId);
+            animal.setAdmissionDate("2024-03-0" + day);
+            dao.insertAnimal(animal);
+        }
+        AnimalFilter filter = AnimalFilter.activeOnly();
+
+        List<Animal> first = dao.findPage(filter, null, null, 2);
+        assertEquals(List.of("2024-03-05", "2024-03-04"), admissionDates(first));
+
+        Animal last = first.get(1);
+        List<Animal> second = dao.findPage(filter, last.getAdmissionDate(), last.getRecordNumber(), 2);
+        assertEquals(List.of("2024-03-03", "2024-03-02"), admissionDates(second));
+
+        assertEquals(5, dao.countByFilters(filter));
+    }
+
+    @Test
+    void findPageBreaksTiesOnRecordNumber() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            dao.insertAnimal(TestSupport.newAnimal(placeId)); // same admission date
+        }
+        AnimalFilter filter = AnimalFilter.activeOnly();
+
+        List<Animal> seen = new ArrayList<>(dao.findPage(filter, null, null, 2));
+        Animal last = seen.get(seen.size() - 1);
+        seen.addAll(dao.findPage(filter, last.getAdmissionDate(), last.getRecordNumber(), 2));
+
+        assertEquals(3, seen.stream().map(Animal::getRecordNumber).distinct().count(),
+                "Rows sharing an admission date must be neither skipped nor repeated");
+    }
+
+    @Test
+    void findCursorAtMatchesKeysetPageBoundary() throws Exception {
+        for (int day = 1; day <= 4; day++) {
+            Animal animal = TestSupport.newAnimal(placeId);
+            animal.setAdmissionDate("2024-06-0" + day);
+            dao.insertAnimal(animal);
+        }
+        AnimalFilter filter = AnimalFilter.activeOnly();
+
+        PageCursor cursor = dao.findCursorAt(filter, 1);
+        assertEquals("2024-06-03", cursor.admissionDate());
+        assertNull(dao.findCursorAt(filter, 10));
+    }
+
+    @Test
+    void countByFiltersHonoursSpeciesAndInactiveFlag() throws Exception {
+        Animal dog = TestSupport.newAnimal(placeId);
+        Animal cat = TestSupport.newAnimal(placeId);
+        cat.setSpecies("Gato");
+        Animal inactive = TestSupport.newAnimal(placeId);
+        inactive.setActive(false);
+        dao.insertAnimal(dog);
+        dao.insertAnimal(cat);
+        dao.insertAnimal(inactive);
+
+        assertEquals(1, dao.countByFilters(new AnimalFilter("Gato", null, null, null, false)));
+        assertEquals(1, dao.countByFilters(new AnimalFilter(null, null, null, null, true)));
+    }
+
+    @Test
+    void findSummaryPageProjectsTableColumnsInListingOrder() throws Exception {
+        Animal older = TestSupport.newAnimal(placeId);
+        older.setAdmissionDate("2024-01-01");
+        older.setAilments("x".repeat(10_000));
+        Animal newer = TestSupport.newAnimal(placeId);
+        newer.setAdmissionDate("2024-02-01");
+        newer.setAdopted(true);
+        dao.insertAnimal(older);
+        dao.insertAnimal(newer);
+
+        List<AnimalSummary> page = dao.findSummaryPage(AnimalFilter.activeOnly(), null, null, 20);
+
+        assertEquals(2, page.size());
+        AnimalSummary first = page.get(0);
+        assertEquals(newer.getRecordNumber(), first.recordNumber());
+        assertEquals("Firulais", first.name());
+        assertTrue(first.adopted());
+
+        AnimalSummary next = dao.findSummaryPage(AnimalFilter.activeOnly(),
+                first.toCursor().admissionDate(), first.toCursor().recordNumber(), 20).get(0);
+        assertEquals(older.getRecordNumber(), next.recordNumber());
+    }
+
+    @Test
+    void insertAnimalsReportsPerRowOutcome() throws Exception {
+        Animal existing = TestSupport.newAnimal(placeId);
+        dao.insertAnimal(existing);
+        Animal fresh = TestSupport.newAnimal(placeId);
+
+        int[] outcomes = dao.insertAnimals(List.of(existing, fresh));
+
+        assertArrayEquals(new int[]{0, 1}, outcomes);
+        assertEquals(2, dao.getAllAnimals().size());
+    }
+
+    @Test
+    void lastModifiedIndexCoversEveryAnimal() throws Exception {
+        Animal first = TestSupport.newAnimal(placeId);
+        first.setLastModified("2024-01-01 10:00:00");
+        Animal second = TestSupport.newAnimal(placeId);
+        second.setLastModified("2024-02-01 10:00:00");
+        dao.insertAnimals(List.of(first, second));
+
+        Map<String, String> index = dao.getLastModifiedIndex();
+
+        assertEquals(Map.of(first.getRecordNumber(), "2024-01-01 10:00:00",
+                second.getRecordNumber(), "2024-02-01 10:00:00"), index);
+    }
+
+    @Test
+    void markSyncedSkipsRowsEditedAfterThePushRead() throws Exception {
+        Animal pushed = TestSupport.newAnimal(placeId);
+        pushed.setLastModified("2024-01-01 10:00:00");
+        Animal editedMeanwhile = TestSupport.newAnimal(placeId);
+        editedMeanwhile.setLastModified("2024-01-01 10:00:00");
+        dao.insertAnimals(List.of(pushed, editedMeanwhile));
+        long pushedHlc = dao.findByRecordNumber(pushed.getRecordNumber()).getHlc();
+        long readHlc = dao.findByRecordNumber(editedMeanwhile.getRecordNumber()).getHlc();
+
+        // A user edit lands while the push is in flight, possibly within the same second.
+        editedMeanwhile.setName("Editado");
+        dao.updateAnimal(editedMeanwhile, true);
+
+        int marked = dao.markSynced(Map.of(
+                pushed.getRecordNumber(), pushedHlc,
+                editedMeanwhile.getRecordNumber(), readHlc));
+
+        assertEquals(1, marked);
+        assertTrue(dao.findByRecordNumber(pushed.getRecordNumber()).isSynced());
+        Animal stillPending = dao.findByRecordNumber(editedMeanwhile.getRecordNumber());
+        assertFalse(stillPending.isSynced());
+        assertEquals("Editado", stillPending.getName());
+    }
+
+    @Test
+    void upsertAnimalsOnlyOverwritesOlderRows() throws Exception {
+        Animal stale = TestSupport.newAnimal(placeId);
+        stale.setLastModified("2024-01-01 10:00:00");
+        Animal current = TestSupport.newAnimal(placeId);
+        current.setLastModified("2024-05-01 10:00:00");
+        dao.insertAnimals(List.of(stale, current));
+
+        Animal newerRemote = Animal.fromExistingRecord(stale.getRecordNumber());
+        copyRequired(stale, newerRemote);
+        newerRemote.setName("Remote");
+        newerRemote.setLastModified("2024-02-01 10:00:00");
+        Animal olderRemote = Animal.fromExistingRecord(current.getRecordNumber());
+        copyRequired(current, olderRemote);
+        olderRemote.setName("Remote");
+        olderRemote.setLastModified("2024-04-01 10:00:00");
+        Animal brandNew = TestSupport.newAnimal(placeId);
+
+        int[] outcomes = dao.upsertAnimals(List.of(newerRemote, olderRemote, brandNew));
+
+        assertArrayEquals(new int[]{1, 0, 1}, outcomes);
+        assertEquals("Remote", dao.findByRecordNumber(stale.getRecordNumber()).getName());
+        assertEquals("Firulais", dao.findByRecordNumber(current.getRecordNumber()).getName());
+        assertNotNull(dao.findByRecordNumber(brandNew.getRecordNumber()));
+    }
+
+    @Test
+    void upsertAnimalsOrdersByClockStampsOverWallClockTimes() throws Exception {
+        Animal local = TestSupport.newAnimal(placeId);
+        dao.insertAnimal(local);
+        long localStamp = dao.findByRecordNumber(local.getRecordNumber()).getHlc();
+        assertTrue(localStamp > 0, "Local writes are stamped");
+
+        // Written after seeing the local version, on a device whose clock runs behind.
+        Animal slowClock = Animal.fromExistingRecord(local.getRecordNumber());
+        copyRequired(local, slowClock);
+        slowClock.setName("Slow clock");
+        slowClock.setLastModified("2000-01-01 00:00:00");
+        slowClock.setHlc(localStamp + 1);
+        // Concurrent with it, on a device whose clock runs ahead.
+        Animal fastClock = Animal.fromExistingRecord(local.getRecordNumber());
+        copyRequired(local, fastClock);
+        fastClock.setName("Fast clock");
+        fastClock.setLastModified("2999-01-01 00:00:00");
+        fastClock.setHlc(localStamp);
+
+        assertArrayEquals(new int[]{1}, dao.upsertAnimals(List.of(slowClock)));
+        assertArrayEquals(new int[]{0}, dao.upsertAnimals(List.of(fastClock)));
+        assertEquals("Slow clock", dao.findByRecordNumber(local.getRecordNumber()).getName());
+
+        dao.updateAnimal(dao.findByRecordNumber(local.getRecordNumber()), true);
+        assertTrue(dao.findByRecordNumber(local.getRecordNumber()).getHlc() > localStamp + 1,
+                "A later local edit orders after every stamp it has seen");
+    }
+
+    @Test
+    void batchWriteRollsBackEntirelyOnError() throws Exception {
+        Animal valid = TestSupport.newAnimal(placeId);
+        Animal invalidPlace = TestSupport.newAnimal(9999); // FK violation is not ignorable
+
+        assertThrows(Exception.class, () -> dao.upsertAnimals(List.of(valid, invalidPlace)));
+
+        assertNull(dao.findByRecordNumber(valid.getRecordNumber()));
+        assertTrue(conn.getAutoCommit(), "The connection must be handed back in autocommit mode");
+    }
+
+    private static void copyRequired(Animal from, Animal to) {
+        to.setAdmissionDate(from.getAdmissionDate());
+        to.setPlaceId(from.getPlaceId());
+        to.setSpecies(from.getSpecies());
+        to.setSex(from.getSex());
+        to.setName(from.getName());
+    }
+
+    private static List<String> admissionDates(List<Animal> animals) {
+        return animals.stream().map(Animal::getAdmissionDate).toList();
+    }
 }
@@ -0,0 +1,194 @@
+package com.asosiaciondeasis.animalesdeasis.DAO;
+
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
+import com.asosiaciondeasis.animalesdeasis.Config.SQLiteSetup;
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.ChangeLogDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.ChangeEntry;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The outbox is filled by triggers, so these tests drive it through the regular DAOs.
+ */
+class ChangeLogDAOTest {
+
+    private Connection conn;
+    private ChangeLogDAO changeLog;
+    private AnimalDAO animalDAO;
+    private VaccineDAO vaccineDAO;
+    private int placeId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestSupport.newInMemoryDatabase();
+        placeId = TestSupport.seedPlace(conn);
+        changeLog = new ChangeLogDAO(conn);
+        animalDAO = new AnimalDAO(conn);
+        vaccineDAO = new VaccineDAO(conn);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void localWritesAreLoggedInOrder() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+        animalDAO.deleteAnimal(animal.getRecordNumber()); // soft delete = update
+
+        List<ChangeEntry> entries = changeLog.readAfter(0, 10);
+
+        assertEquals(List.of(ChangeEntry.ANIMAL, ChangeEntry.VACCINE, ChangeEntry.ANIMAL),
+                entries.stream().map(ChangeEntry::entity).toList());
+        assertEquals(animal.getRecordNumber(), entries.get(1).parentId());
+        assertTrue(entries.stream().noneMatch(ChangeEntry::isDelete));
+        assertTrue(entries.get(0).seq() < entries.get(2).seq());
+    }
+
+    @Test
+    void updatesRecordTheFieldsTheyChanged() throws Exception {
+        Animal pulled = TestSupport.newAnimal(placeId);
+        pulled.setSynced(true);
+        animalDAO.upsertAnimals(List.of(pulled));
+        Animal inserted = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(inserted);
+
+        Animal edited = animalDAO.findByRecordNumber(pulled.getRecordNumber());
+        edited.setAdopted(true);
+        edited.setSynced(false);
+        animalDAO.updateAnimal(edited, true);
+        edited.setName("Otro");
+        animalDAO.updateAnimal(edited, true);
+        Animal insertedEdit = animalDAO.findByRecordNumber(inserted.getRecordNumber());
+        insertedEdit.setName("Otro");
+        animalDAO.updateAnimal(insertedEdit, true);
+
+        Map<String, Set<String>> fields = changeLog.pendingFields(ChangeEntry.ANIMAL,
+                List.of(pulled.getRecordNumber(), inserted.getRecordNumber()));
+
+        assertEquals(Map.of(pulled.getRecordNumber(), Set.of("adopted", "name")), fields,
+                "An insert still pending needs the whole document");
+    }
+
+    @Test
+    void syncWritesAreNotLogged() throws Exception {
+        Animal pulled = TestSupport.newAnimal(placeId);
+        pulled.setSynced(true);
+        animalDAO.upsertAnimals(List.of(pulled));
+
+        Animal local = TestSupport.newAnimal(placeId);
+        local.setLastModified("2024-01-01 10:00:00");
+        animalDAO.insertAnimal(local);
+        List<ChangeEntry> queued = changeLog.readAfter(0, 10);
+        changeLog.acknowledge(queued);
+        animalDAO.markSynced(Map.of(local.getRecordNumber(), animalDAO.findByRecordNumber(local.getRecordNumber()).getHlc()));
+
+        assertEquals(1, queued.size());
+        assertTrue(changeLog.readAfter(0, 10).isEmpty());
+    }
+
+    @Test
+    void deleteLeavesTombstoneWithParent() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+
+        vaccineDAO.deleteVaccine(vaccine.getId());
+
+        ChangeEntry tombstone = changeLog.readAfter(0, 10).get(2);
+        assertTrue(tombstone.isDelete());
+        assertEquals(vaccine.getId(), tombstone.entityId());
+        assertEquals(animal.getRecordNumber(), tombstone.parentId());
+        assertEquals(Set.of(vaccine.getId()), changeLog.pendingDeletes(ChangeEntry.VACCINE));
+    }
+
+    @Test
+    void remoteDeletesAreNotLogged() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+
+        changeLog.setApplyRemote(true);
+        vaccineDAO.deleteVaccines(List.of(vaccine.getId()));
+        changeLog.setApplyRemote(false);
+
+        assertTrue(changeLog.pendingDeletes(ChangeEntry.VACCINE).isEmpty());
+    }
+
+    @Test
+    void applyRemoteOnlySilencesItsOwnConnection(@TempDir Path tempDir) throws Exception {
+        String url = "jdbc:sqlite:" + tempDir.resolve("outbox.db");
+        try (Connection ui = DriverManager.getConnection(url);
+             Connection sync = DriverManager.getConnection(url)) {
+            DatabaseConnection.applyPragmas(ui);
+            DatabaseConnection.applyPragmas(sync);
+            SQLiteSetup.createSchema(ui);
+            int place = TestSupport.seedPlace(ui);
+            Animal animal = TestSupport.newAnimal(place);
+            new AnimalDAO(ui).insertAnimal(animal);
+            Vaccine local = TestSupport.newVaccine(animal.getRecordNumber());
+            Vaccine remote = TestSupport.newVaccine(animal.getRecordNumber());
+            new VaccineDAO(ui).insertVaccine(local);
+            new VaccineDAO(ui).insertVaccine(remote);
+
+            ChangeLogDAO syncLog = new ChangeLogDAO(sync);
+            syncLog.setApplyRemote(true);
+            new VaccineDAO(sync).deleteVaccines(List.of(remote.getId()));
+            new VaccineDAO(ui).deleteVaccine(local.getId());
+            syncLog.setApplyRemote(false);
+
+            assertEquals(Set.of(local.getId()), new ChangeLogDAO(ui).pendingDeletes(ChangeEntry.VACCINE));
+        }
+    }
+
+    @Test
+    void acknowledgeKeepsChangesMadeAfterThePushedOne() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        ChangeEntry pushed = changeLog.readAfter(0, 10).get(0);
+
+        animal.setName("Editado");
+        animalDAO.updateAnimal(animal, true);
+        changeLog.acknowledge(List.of(pushed));
+
+        List<ChangeEntry> remaining = changeLog.readAfter(0, 10);
+        assertEquals(1, remaining.size());
+        assertTrue(remaining.get(0).seq() > pushed.seq());
+    }
+
+    @Test
+    void schemaBackfillQueuesRowsPendingBeforeTheOutboxExisted() throws Exception {
+        animalDAO.insertAnimal(TestSupport.newAnimal(placeId));
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("DELETE FROM change_log");
+        }
+
+        SQLiteSetup.createSchema(conn);
+        SQLiteSetup.createSchema(conn);
+
+        assertEquals(1, changeLog.readAfter(0, 10).size());
+    }
+}
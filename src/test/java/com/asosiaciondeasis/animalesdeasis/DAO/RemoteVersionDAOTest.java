@@ -0,0 +1,113 @@
+package com.asosiaciondeasis.animalesdeasis.DAO;
+
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.RemoteVersionDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.ChangeEntry;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteVersion;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RemoteVersionDAOTest {
+
+    private Connection conn;
+    private RemoteVersionDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestSupport.newInMemoryDatabase();
+        dao = new RemoteVersionDAO(conn);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    private static RemoteVersion animal(String recordNumber, String version) {
+        return new RemoteVersion(ChangeEntry.ANIMAL, recordNumber, BucketDigest.bucketOf(recordNumber), version);
+    }
+
+    private static RemoteVersion vaccine(String id, String recordNumber, String version) {
+        return new RemoteVersion(ChangeEntry.VACCINE, id, BucketDigest.bucketOf(recordNumber), version);
+    }
+
+    @Test
+    void upsertReplacesTheKnownVersion() throws Exception {
+        dao.upsertVersions(List.of(animal("AB-1", "2024-01-01 10:00:00"), vaccine("v1", "AB-1", "2024-01-01 10:00:00")));
+        dao.upsertVersions(List.of(animal("AB-1", "2024-02-01 10:00:00")));
+
+        assertEquals(Map.of("AB-1", "2024-02-01 10:00:00"), dao.getVersionIndex(ChangeEntry.ANIMAL));
+        assertEquals(Map.of("v1", "2024-01-01 10:00:00"), dao.getVersions(ChangeEntry.VACCINE, List.of("v1", "v2")));
+        assertEquals(2, dao.getBucket("AB").size());
+    }
+
+    @Test
+    void digestsAreSumsOfTheBucketVersions() throws Exception {
+        RemoteVersion first = animal("AB-1", "2024-01-01 10:00:00");
+        RemoteVersion second = vaccine("v1", "AB-1", "2024-01-01 10:00:00");
+        RemoteVersion other = animal("CD-1", "2024-01-01 10:00:00");
+        dao.upsertVersions(List.of(first, second, other));
+
+        Map<String, BucketDigest> digests = dao.getDigests();
+
+        assertEquals(List.of("AB", "CD"), List.copyOf(digests.keySet()));
+        assertEquals(first.digest().plus(second.digest()), digests.get("AB"));
+        assertEquals(2, digests.get("AB").count());
+
+        dao.deleteVersions(ChangeEntry.VACCINE, List.of("v1"));
+        assertEquals(first.digest(), dao.getDigests().get("AB"));
+    }
+
+    @Test
+    void replaceBucketOnlyTouchesThatBucket() throws Exception {
+        dao.upsertVersions(List.of(animal("AB-1", "2024-01-01 10:00:00"), animal("AB-2", "2024-01-01 10:00:00"),
+                animal("CD-1", "2024-01-01 10:00:00")));
+
+        dao.replaceBucket("AB", List.of(animal("AB-2", "2024-03-01 10:00:00")));
+
+        assertEquals(Map.of("AB-2", "2024-03-01 10:00:00", "CD-1", "2024-01-01 10:00:00"),
+                dao.getVersionIndex(ChangeEntry.ANIMAL));
+    }
+
+    @Test
+    void sweepForgetsWhatThePullDidNotSee() throws Exception {
+        int placeId = TestSupport.seedPlace(conn);
+        Animal animal = TestSupport.newAnimal(placeId);
+        new AnimalDAO(conn).insertAnimal(animal);
+        VaccineDAO vaccineDAO = new VaccineDAO(conn);
+        Vaccine kept = TestSupport.newVaccine(animal.getRecordNumber());
+        Vaccine gone = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(kept);
+        vaccineDAO.insertVaccine(gone);
+        Map<String, Long> stored = new HashMap<>();
+        vaccineDAO.getSyncIndex().forEach((id, row) -> stored.put(id, row.hlc()));
+        vaccineDAO.markSynced(stored);
+        dao.upsertVersions(List.of(animal(animal.getRecordNumber(), "2024-01-01 10:00:00"), animal("ZZ-1", "2024-01-01 10:00:00")));
+
+        dao.beginSweep();
+        dao.markSeen(ChangeEntry.ANIMAL, List.of(animal.getRecordNumber()));
+        dao.markSeen(ChangeEntry.VACCINE, List.of(kept.getId()));
+
+        assertEquals(List.of(gone.getId()), dao.getUnseenSyncedVaccines());
+        assertEquals(1, dao.sweepUnseen(ChangeEntry.ANIMAL));
+        assertEquals(Map.of(animal.getRecordNumber(), "2024-01-01 10:00:00"), dao.getVersionIndex(ChangeEntry.ANIMAL));
+
+        dao.endSweep();
+        dao.beginSweep();
+        assertTrue(dao.getUnseenSyncedVaccines().isEmpty(), "A new sweep starts with nothing seen");
+        dao.endSweep();
+    }
+}
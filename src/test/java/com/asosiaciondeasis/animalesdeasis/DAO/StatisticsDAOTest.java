@@ -0,0 +1,145 @@
+package com.asosiaciondeasis.animalesdeasis.DAO;
+
+import com.asosiaciondeasis.animalesdeasis.Config.SQLiteSetup;
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Statistics.StatisticsDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatisticsDAOTest {
+
+    private Connection conn;
+    private StatisticsDAO dao;
+    private AnimalDAO animalDAO;
+    private int placeId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestSupport.newInMemoryDatabase();
+        placeId = TestSupport.seedPlace(conn);
+        dao = new StatisticsDAO(conn);
+        animalDAO = new AnimalDAO(conn);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void yearlyStatisticsOnlyCountThatYear() throws Exception {
+        admit("2023-12-31T18:00:00", false);
+        admit("2024-01-15T00:00:00", true);
+        admit("2024-01-20T00:00:00", false);
+        admit("2024-03-02", false);
+        admit("2025-01-01T06:00:00", true);
+
+        assertEquals(Map.of("01", 2, "03", 1), dao.getMonthlyAdmissions(2024));
+        assertEquals(List.of("01", "03"), new ArrayList<>(dao.getMonthlyAdmissions(2024).keySet()));
+        assertEquals(3, dao.getTotalAdmissions(2024));
+        assertEquals(100.0 / 3, dao.getAdoptionRate(2024), 1e-9);
+        assertEquals(Map.of("Central, San José", 3), dao.getAnimalOrigins(2024));
+        assertEquals(0.0, dao.getAdoptionRate(2022));
+    }
+
+    @Test
+    void rowsChangedAfterAStampAreReadThroughTheIndex() throws Exception {
+        Animal before = admit("2024-01-15", false);
+        long mark = animalDAO.findByRecordNumber(before.getRecordNumber()).getHlc();
+        Animal after = admit("2024-02-15", false);
+
+        assertEquals(List.of(after.getRecordNumber()),
+                dao.getAnalyticsRowsChangedAfter(mark).stream().map(row -> row.recordNumber()).toList());
+        StringBuilder plan = new StringBuilder();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("EXPLAIN QUERY PLAN SELECT record_number, admission_date, species, sex, place_id, adopted, active, hlc"
+                     + " FROM animals WHERE hlc > 0")) {
+            while (rs.next()) plan.append(rs.getString("detail")).append('\n');
+        }
+        assertTrue(plan.toString().contains("idx_animals_hlc"), plan.toString());
+    }
+
+    @Test
+    void dashboardMatchesTheSeparateQueries() throws Exception {
+        admit("2023-12-31T18:00:00", false);
+        admit("2024-01-15T00:00:00", true);
+        admit("2024-01-20T00:00:00", false);
+        admit("2024-03-02", true);
+        admit("2024-11-30", false);
+
+        DashboardSnapshot dashboard = dao.getDashboard(2024);
+
+        assertEquals(2024, dashboard.year());
+        assertEquals(dao.getMonthlyAdmissions(2024), dashboard.monthlyAdmissions());
+        assertEquals(List.of("01", "03", "11"), new ArrayList<>(dashboard.monthlyAdmissions().keySet()));
+        assertEquals(dao.getAnimalOrigins(2024), dashboard.origins());
+        assertEquals(dao.getTotalAdmissions(2024), dashboard.totalAdmissions());
+        assertEquals(2, dashboard.adoptedAnimals());
+        assertEquals(dao.getAdoptionRate(2024), dashboard.adoptionRate(), 1e-9);
+        assertThrows(UnsupportedOperationException.class, () -> dashboard.origins().clear());
+
+        DashboardSnapshot empty = dao.getDashboard(2020);
+        assertEquals(0, empty.totalAdmissions());
+        assertEquals(0.0, empty.adoptionRate());
+        assertTrue(empty.monthlyAdmissions().isEmpty());
+    }
+
+    @Test
+    void triggersKeepTheRollupsEqualToARebuild() throws Exception {
+        Animal moved = admit("2024-01-15T00:00:00", false);
+        Animal adopted = admit("2024-01-20T00:00:00", false);
+        Animal removed = admit("2024-03-02", false);
+        admit("2025-06-01", true);
+
+        moved.setAdmissionDate("2024-02-10");
+        animalDAO.updateAnimal(moved, true);
+        adopted.setAdopted(true);
+        animalDAO.updateAnimal(adopted, true);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM animals WHERE record_number = '" + removed.getRecordNumber() + "'");
+        }
+
+        assertEquals(Map.of("01", 1, "02", 1), dao.getMonthlyAdmissions(2024));
+        assertEquals(50.0, dao.getAdoptionRate(2024), 1e-9);
+        assertEquals(Map.of("Central, San José", 2), dao.getAnimalOrigins(2024));
+
+        String maintained = rollups();
+        SQLiteSetup.rebuildStatistics(conn);
+        assertEquals(maintained, rollups());
+    }
+
+    private Animal admit(String admissionDate, boolean adopted) throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animal.setAdmissionDate(admissionDate);
+        animal.setAdopted(adopted);
+        animalDAO.insertAnimal(animal);
+        return animal;
+    }
+
+    private String rollups() throws Exception {
+        StringBuilder rows = new StringBuilder();
+        try (Statement stmt = conn.createStatement()) {
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM stats_monthly ORDER BY year, month, species")) {
+                while (rs.next()) rows.append(rs.getInt(1)).append('/').append(rs.getInt(2)).append('/')
+                        .append(rs.getString(3)).append('=').append(rs.getInt(4)).append(',').append(rs.getInt(5)).append('\n');
+            }
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM stats_origin ORDER BY year, place_id")) {
+                while (rs.next()) rows.append(rs.getInt(1)).append('@').append(rs.getInt(2)).append('=').append(rs.getInt(3)).append('\n');
+            }
+        }
+        return rows.toString();
+    }
+}
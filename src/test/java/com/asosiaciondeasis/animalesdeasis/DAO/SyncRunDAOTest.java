@@ -0,0 +1,63 @@
+package com.asosiaciondeasis.animalesdeasis.DAO;
+
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncRunDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncRunDAOTest {
+
+    private Connection conn;
+    private SyncRunDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestSupport.newInMemoryDatabase();
+        dao = new SyncRunDAO(conn);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    private static SyncRun run(long startedAt, boolean success) {
+        return new SyncRun(startedAt, false, success, success ? null : "offline",
+                1, 2, 3, 4, 5, 20, 10, 6, 7, 1024, 512, 1, 0);
+    }
+
+    @Test
+    void storesEveryMetricAndReturnsNewestFirst() throws Exception {
+        dao.insertRun(run(1_000, true), 10);
+        dao.insertRun(run(2_000, false), 10);
+
+        List<SyncRun> runs = dao.getRecentRuns(10);
+
+        assertEquals(List.of(run(2_000, false), run(1_000, true)), runs);
+        assertEquals(run(1_000, true), dao.getLastSuccessfulRun());
+    }
+
+    @Test
+    void keepsOnlyTheLatestRuns() throws Exception {
+        for (int i = 1; i <= 5; i++) dao.insertRun(run(i, true), 3);
+
+        List<SyncRun> runs = dao.getRecentRuns(10);
+
+        assertEquals(3, runs.size());
+        assertEquals(5, runs.get(0).startedAt());
+        assertEquals(3, runs.get(2).startedAt());
+    }
+
+    @Test
+    void noSuccessfulRunYet() throws Exception {
+        dao.insertRun(run(1_000, false), 10);
+        assertNull(dao.getLastSuccessfulRun());
+    }
+}
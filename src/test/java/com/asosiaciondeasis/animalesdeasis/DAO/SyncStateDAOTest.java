@@ -0,0 +1,43 @@
+package com.asosiaciondeasis.animalesdeasis.DAO;
+
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncStateDAO;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncStateDAOTest {
+
+    private Connection conn;
+    private SyncStateDAO dao;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestSupport.newInMemoryDatabase();
+        dao = new SyncStateDAO(conn);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void highWaterMarkIsNullUntilFirstPull() throws Exception {
+        assertNull(dao.getHighWaterMark("animals"));
+    }
+
+    @Test
+    void highWaterMarkIsStoredPerCollectionAndReplaced() throws Exception {
+        dao.setHighWaterMark("animals", "2024-01-01 10:00:00");
+        dao.setHighWaterMark("vaccines", "2024-02-01 10:00:00");
+        dao.setHighWaterMark("animals", "2024-03-01 10:00:00");
+
+        assertEquals("2024-03-01 10:00:00", dao.getHighWaterMark("animals"));
+        assertEquals("2024-02-01 10:00:00", dao.getHighWaterMark("vaccines"));
+    }
+}
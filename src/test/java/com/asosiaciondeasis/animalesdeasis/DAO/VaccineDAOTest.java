@@ -3,6 +3,7 @@ package com.asosiaciondeasis.animalesdeasis.DAO;
 import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
 import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
 import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RowVersion;
 import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
 import com.asosiaciondeasis.animalesdeasis.TestSupport;
 import org.junit.jupiter.api.AfterEach;
@@ -12,6 +13,7 @@ import org.junit.jupiter.api.Test;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -85,6 +87,76 @@ class VaccineDAOTest {
         assertEquals(unsynced.getId(), result.get(0).getId());
     }
 
+    @Test
+    void upsertVaccinesInsertsNewAndKeepsNewerLocalRows() throws Exception {
+        Vaccine local = TestSupport.newVaccine(animal.getRecordNumber());
+        local.setLastModified("2024-03-01 08:00:00");
+        vaccineDAO.insertVaccine(local);
+
+        Vaccine olderRemote = Vaccine.fromExistingRecord(local.getId());
+        olderRemote.setAnimalRecordNumber(animal.getRecordNumber());
+        olderRemote.setVaccineName("Moquillo");
+        olderRemote.setLastModified("2024-02-01 08:00:00");
+        Vaccine fresh = TestSupport.newVaccine(animal.getRecordNumber());
+
+        int[] outcomes = vaccineDAO.upsertVaccines(List.of(olderRemote, fresh));
+
+        assertArrayEquals(new int[]{0, 1}, outcomes);
+        assertEquals("Rabia", vaccineDAO.existsVaccine(local.getId()).getVaccineName());
+        assertNotNull(vaccineDAO.existsVaccine(fresh.getId()));
+    }
+
+    @Test
+    void syncIndexCarriesVersionAndOwnerOfEveryVaccine() throws Exception {
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccine.setSynced(true);
+        vaccine.setLastModified("2024-03-01 08:00:00");
+        vaccineDAO.insertVaccine(vaccine);
+
+        Map<String, RowVersion> index = vaccineDAO.getSyncIndex();
+
+        assertEquals(new RowVersion(vaccine.getId(), animal.getRecordNumber(), "2024-03-01 08:00:00", true, 0L),
+                index.get(vaccine.getId()));
+    }
+
+    @Test
+    void markSyncedFlagsOnlyMatchingVersions() throws Exception {
+        // Both written within the same second; only the hlc tells the versions apart.
+        Vaccine current = TestSupport.newVaccine(animal.getRecordNumber());
+        current.setLastModified("2024-03-01 08:00:00");
+        current.setHlc(1_000L);
+        Vaccine stale = TestSupport.newVaccine(animal.getRecordNumber());
+        stale.setLastModified("2024-03-01 08:00:00");
+        stale.setHlc(1_001L);
+        vaccineDAO.insertVaccine(current);
+        vaccineDAO.insertVaccine(stale);
+
+        int marked = vaccineDAO.markSynced(Map.of(
+                current.getId(), 1_000L,
+                stale.getId(), 1_000L));
+
+        assertEquals(1, marked);
+        assertTrue(vaccineDAO.existsVaccine(current.getId()).isSynced());
+        assertFalse(vaccineDAO.existsVaccine(stale.getId()).isSynced());
+    }
+
+    @Test
+    void deleteVaccinesRemovesOnlyListedIds() throws Exception {
+        Vaccine first = TestSupport.newVaccine(animal.getRecordNumber());
+        Vaccine second = TestSupport.newVaccine(animal.getRecordNumber());
+        Vaccine kept = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(first);
+        vaccineDAO.insertVaccine(second);
+        vaccineDAO.insertVaccine(kept);
+
+        int deleted = vaccineDAO.deleteVaccines(List.of(first.getId(), second.getId(), "missing"));
+
+        assertEquals(2, deleted);
+        List<Vaccine> remaining = vaccineDAO.getVaccinesByAnimal(animal.getRecordNumber());
+        assertEquals(1, remaining.size());
+        assertEquals(kept.getId(), remaining.get(0).getId());
+    }
+
     /**
      * Regression test for the {@code PRAGMA foreign_keys = ON} fix: hard-deleting an
      * animal must cascade to its vaccines. Without the pragma SQLite ignores the
@@ -0,0 +1,142 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Statistics.StatisticsDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsDimension;
+import com.asosiaciondeasis.animalesdeasis.Model.AnalyticsFilter;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Service.Statistics.AnimalAnalytics;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
+import com.asosiaciondeasis.animalesdeasis.Util.SyncEventManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class AnimalAnalyticsTest {
+
+    private Connection conn;
+    private AnimalDAO animalDAO;
+    private StatisticsDAO statisticsDAO;
+    private AnimalAnalytics analytics;
+    private int placeId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestSupport.newInMemoryDatabase();
+        placeId = TestSupport.seedPlace(conn);
+        animalDAO = new AnimalDAO(conn);
+        statisticsDAO = new StatisticsDAO(conn);
+        analytics = new AnimalAnalytics(statisticsDAO);
+        analytics.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        analytics.stop();
+        conn.close();
+    }
+
+    @Test
+    void slicesMatchTheRollups() throws Exception {
+        admit("2023-12-31T18:00:00", "Perro", "Macho", false);
+        admit("2024-01-15T00:00:00", "Gato", "Hembra", true);
+        admit("2024-01-20", "Perro", null, false);
+        admit("2024-03-02", "Perro", "Hembra", true);
+
+        assertEquals(statisticsDAO.getMonthlyAdmissions(2024),
+                analytics.countBy(AnalyticsDimension.MONTH, AnalyticsFilter.ofYear(2024)));
+        assertEquals(statisticsDAO.getTotalAdmissions(2024), analytics.count(AnalyticsFilter.ofYear(2024)));
+        assertEquals(Map.of("2023", 1, "2024", 3), analytics.countBy(AnalyticsDimension.YEAR, AnalyticsFilter.all()));
+        assertEquals(Map.of("San José", 3), analytics.countBy(AnalyticsDimension.PROVINCE, AnalyticsFilter.ofYear(2024)));
+        assertEquals(Map.of("Macho", 1, "Hembra", 2, "Sin especificar", 1),
+                analytics.countBy(AnalyticsDimension.SEX, AnalyticsFilter.all()));
+
+        AnalyticsFilter adoptedDogs = new AnalyticsFilter(2024, "Perro", null, "San José", true, null);
+        assertEquals(1, analytics.count(adoptedDogs));
+        assertEquals(0, analytics.count(new AnalyticsFilter(null, "Loro", null, null, null, null)));
+        assertEquals(0, analytics.count(new AnalyticsFilter(null, null, null, "Limón", null, null)));
+    }
+
+    @Test
+    void followsLocalEditsAndSyncChanges() throws Exception {
+        Animal moved = admit("2024-01-15", "Perro", "Macho", false);
+        Animal gone = admit("2024-02-01", "Gato", "Hembra", false);
+        assertEquals(2, analytics.count(AnalyticsFilter.ofYear(2024)));
+
+        admit("2024-05-05", "Gato", "Macho", true);
+        moved.setAdmissionDate("2025-01-10");
+        animalDAO.updateAnimal(moved, true);
+        animalDAO.deleteAnimal(gone.getRecordNumber());
+        DataChangeEventManager.notifyLocalChange();
+
+        assertEquals(Map.of("02", 1, "05", 1), analytics.countBy(AnalyticsDimension.MONTH, AnalyticsFilter.ofYear(2024)));
+        assertEquals(1, analytics.count(new AnalyticsFilter(null, null, null, null, null, false)));
+
+        // A row the sync removed, reported by record number.
+        try (Statement stmt = conn.createStatement()) {
+            stmt.executeUpdate("DELETE FROM animals WHERE record_number = '" + gone.getRecordNumber() + "'");
+        }
+        SyncEventManager.notifyListeners(Set.of(gone.getRecordNumber()));
+        assertEquals(2, analytics.count(AnalyticsFilter.all()));
+        assertEquals(Map.of("2024", 1, "2025", 1), analytics.countBy(AnalyticsDimension.YEAR, AnalyticsFilter.all()));
+    }
+
+    @Test
+    void localEditIsAppliedWithoutReloading() throws Exception {
+        Animal animal = admit("2024-01-15", "Perro", "Macho", false);
+        StatisticsDAO counted = spy(statisticsDAO);
+        AnimalAnalytics tracked = new AnimalAnalytics(counted);
+        tracked.start();
+        try {
+            assertEquals(1, tracked.count(AnalyticsFilter.ofYear(2024)));
+
+            animal.setAdmissionDate("2025-03-01");
+            animalDAO.updateAnimal(animal, true);
+            DataChangeEventManager.notifyLocalChange();
+
+            assertEquals(0, tracked.count(AnalyticsFilter.ofYear(2024)));
+            assertEquals(1, tracked.count(AnalyticsFilter.ofYear(2025)));
+            verify(counted, times(1)).getAnalyticsRows();
+            verify(counted, times(1)).getAnalyticsRowsChangedAfter(anyLong());
+        } finally {
+            tracked.stop();
+        }
+    }
+
+    @Test
+    void parallelCountsEqualSequentialOnes() throws Exception {
+        String[] species = {"Perro", "Gato"};
+        for (int i = 0; i < 300; i++) {
+            admit(LocalDate.of(2020, 1, 1).plusDays(i * 7L).toString(), species[i % 2], i % 3 == 0 ? null : "Macho", i % 5 == 0);
+        }
+        AnimalAnalytics parallel = new AnimalAnalytics(statisticsDAO, 16);
+
+        for (AnalyticsDimension dimension : AnalyticsDimension.values()) {
+            AnalyticsFilter filter = new AnalyticsFilter(null, "Gato", null, null, null, true);
+            assertEquals(analytics.countBy(dimension, filter), parallel.countBy(dimension, filter), dimension.name());
+        }
+        assertEquals(analytics.count(AnalyticsFilter.ofYear(2021)), parallel.count(AnalyticsFilter.ofYear(2021)));
+        assertEquals(300, parallel.count(AnalyticsFilter.all()));
+    }
+
+    private Animal admit(String admissionDate, String species, String sex, boolean adopted) throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animal.setAdmissionDate(admissionDate);
+        animal.setSpecies(species);
+        animal.setSex(sex);
+        animal.setAdopted(adopted);
+        animalDAO.insertAnimal(animal);
+        return animal;
+    }
+}
@@ -0,0 +1,118 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.Abstraccions.Statistics.IStatisticsService;
+import com.asosiaciondeasis.animalesdeasis.Model.DashboardSnapshot;
+import com.asosiaciondeasis.animalesdeasis.Service.Statistics.CachingStatisticsService;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
+import com.asosiaciondeasis.animalesdeasis.Util.SyncEventManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingStatisticsServiceTest {
+
+    private final IStatisticsService delegate = mock(IStatisticsService.class);
+    private CachingStatisticsService service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        for (int year = 2020; year <= 2026; year++) {
+            when(delegate.getDashboard(year)).thenReturn(
+                    new DashboardSnapshot(year, Map.of("01", 4), Map.of("Central, San José", 4), 4, 1));
+        }
+        service = new CachingStatisticsService(delegate, 3);
+        service.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.stop();
+    }
+
+    @Test
+    void flippingBetweenYearsQueriesEachYearOnce() throws Exception {
+        service.getDashboard(2024);
+        service.getDashboard(2023);
+        service.getDashboard(2024);
+        assertEquals(4, service.getTotalAdmissions(2024));
+        assertEquals(25.0, service.getAdoptionRate(2023), 1e-9);
+        assertEquals(Map.of("01", 4), service.getMonthlyAdmissions(2024));
+
+        verify(delegate, times(1)).getDashboard(2024);
+        verify(delegate, times(1)).getDashboard(2023);
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    void keepsOnlyTheMostRecentlyUsedYears() throws Exception {
+        service.getDashboard(2021);
+        service.getDashboard(2022);
+        service.getDashboard(2023);
+        service.getDashboard(2021);
+        service.getDashboard(2024);
+
+        service.getDashboard(2021);
+        service.getDashboard(2022);
+
+        verify(delegate, times(1)).getDashboard(2021);
+        verify(delegate, times(2)).getDashboard(2022);
+    }
+
+    @Test
+    void localEditsDropOnlyTheYearsTheyTouched() throws Exception {
+        service.getDashboard(2023);
+        service.getDashboard(2024);
+
+        DataChangeEventManager.notifyLocalChange(Set.of(2024));
+        DataChangeEventManager.notifyLocalChange(Set.of());
+        service.getDashboard(2023);
+        service.getDashboard(2024);
+
+        verify(delegate, times(1)).getDashboard(2023);
+        verify(delegate, times(2)).getDashboard(2024);
+    }
+
+    @Test
+    void syncRunDropsEveryYear() throws Exception {
+        service.getDashboard(2023);
+        service.getDashboard(2024);
+
+        SyncEventManager.notifyListeners();
+        service.getDashboard(2023);
+        service.getDashboard(2024);
+
+        verify(delegate, times(2)).getDashboard(2023);
+        verify(delegate, times(2)).getDashboard(2024);
+    }
+
+    @Test
+    void pushOnlySyncKeepsTheCache() throws Exception {
+        service.getDashboard(2024);
+
+        SyncEventManager.notifyListeners(Set.of());
+        service.getDashboard(2024);
+        SyncEventManager.notifyListeners(Set.of("A-1"));
+        service.getDashboard(2024);
+
+        verify(delegate, times(2)).getDashboard(2024);
+    }
+
+    @Test
+    void loadThatRacedAnInvalidationIsNotKept() throws Exception {
+        when(delegate.getDashboard(2024)).thenAnswer(invocation -> {
+            service.invalidate(Set.of(2024));
+            return new DashboardSnapshot(2024, Map.of(), Map.of(), 0, 0);
+        });
+
+        service.getDashboard(2024);
+        service.getDashboard(2024);
+
+        verify(delegate, times(2)).getDashboard(2024);
+    }
+}
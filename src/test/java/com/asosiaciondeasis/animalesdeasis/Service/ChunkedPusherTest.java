@@ -0,0 +1,67 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.RemoteWrite;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.ChunkedPusher;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.InMemoryRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedPusherTest {
+
+    private final InMemoryRemoteStore remote = new InMemoryRemoteStore();
+
+    private static List<Animal> animals(int count) {
+        return IntStream.range(0, count).mapToObj(i -> TestSupport.newAnimal(1)).toList();
+    }
+
+    @Test
+    void splitsBacklogIntoBatchesOfAtMostTheLimit() throws Exception {
+        List<Animal> backlog = animals(1200);
+        List<Animal> acked = new ArrayList<>();
+        List<Integer> chunkSizes = new ArrayList<>();
+
+        int pushed = new ChunkedPusher(remote, 500, 2).push(backlog, RemoteWrite::setAnimal, chunk -> {
+            chunkSizes.add(chunk.size());
+            acked.addAll(chunk);
+        });
+
+        assertEquals(1200, pushed);
+        assertEquals(List.of(500, 500, 200), chunkSizes);
+        assertEquals(backlog, acked, "Chunks must be acknowledged in order");
+        assertEquals(3, remote.commitCount());
+        assertEquals(1200, remote.animalCount());
+    }
+
+    @Test
+    void failedChunkStaysPendingAndStopsFurtherBatches() {
+        List<Animal> backlog = animals(30);
+        List<Animal> acked = new ArrayList<>();
+        remote.failCommit(2);
+
+        ChunkedPusher pusher = new ChunkedPusher(remote, 10, 1);
+        Exception e = assertThrows(Exception.class, () -> pusher.push(backlog, RemoteWrite::setAnimal, acked::addAll));
+
+        assertEquals(backlog.subList(0, 10), acked, "Only the committed chunk may be marked as synced");
+        assertTrue(e.getMessage().contains("10 of 30"));
+        assertEquals(2, remote.commitCount());
+        assertEquals(10, remote.animalCount());
+    }
+
+    @Test
+    void pageSizeFillsEveryConcurrentCommit() {
+        assertEquals(2000, new ChunkedPusher(remote, 500, 4).pageSize());
+        assertEquals(10, new ChunkedPusher(remote, 10, 1).pageSize());
+    }
+
+    @Test
+    void rejectsBatchesLargerThanFirestoreAllows() {
+        assertThrows(IllegalArgumentException.class, () -> new ChunkedPusher(remote, 501, 1));
+    }
+}
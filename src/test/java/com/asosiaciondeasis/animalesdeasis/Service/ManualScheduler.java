@@ -0,0 +1,139 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded scheduler whose clock only moves when a test calls {@link #advance}; due
+ * tasks then run on the caller's thread, in order. Lets timing behaviour be checked without
+ * sleeping.
+ */
+class ManualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final PriorityQueue<Task<?>> queue = new PriorityQueue<>();
+    private long now;
+    private long sequence;
+    private boolean shutdown;
+
+    /** Current time in milliseconds. */
+    synchronized long now() {
+        return now;
+    }
+
+    /** Moves the clock forward, running every task that falls due on the way. */
+    void advance(long millis) {
+        long target;
+        synchronized (this) {
+            target = now + millis;
+        }
+        while (true) {
+            Task<?> next;
+            synchronized (this) {
+                next = queue.peek();
+                if (next == null || next.at > target) {
+                    now = target;
+                    return;
+                }
+                queue.poll();
+                now = Math.max(now, next.at);
+            }
+            next.run();
+        }
+    }
+
+    /** Runs the tasks that are already due. */
+    void runDue() {
+        advance(0);
+    }
+
+    @Override
+    public synchronized ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(Executors.callable(command), delay, unit);
+    }
+
+    @Override
+    public synchronized <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(callable, delay, unit);
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void shutdown() {
+        shutdown = true;
+        queue.clear();
+    }
+
+    @Override
+    public synchronized List<Runnable> shutdownNow() {
+        List<Runnable> pending = new ArrayList<>(queue);
+        shutdown();
+        return pending;
+    }
+
+    @Override
+    public synchronized boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public synchronized boolean isTerminated() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return true;
+    }
+
+    private <V> Task<V> enqueue(Callable<V> callable, long delay, TimeUnit unit) {
+        Task<V> task = new Task<>(callable, now + Math.max(0, unit.toMillis(delay)), sequence++);
+        if (!shutdown) queue.add(task);
+        return task;
+    }
+
+    private final class Task<V> extends FutureTask<V> implements ScheduledFuture<V> {
+        final long at;
+        final long order;
+
+        Task(Callable<V> callable, long at, long order) {
+            super(callable);
+            this.at = at;
+            this.order = order;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(at - now(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task<?> task = (Task<?>) other;
+            int byTime = Long.compare(at, task.at);
+            return byTime != 0 ? byTime : Long.compare(order, task.order);
+        }
+    }
+}
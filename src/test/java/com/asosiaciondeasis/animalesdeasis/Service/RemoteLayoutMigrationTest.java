@@ -0,0 +1,58 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.InMemoryRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.RemoteLayoutMigration;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The migration only uses the {@code IRemoteStore} contract, so two in-process stores stand
+ * in for the two Firestore layouts.
+ */
+class RemoteLayoutMigrationTest {
+
+    private final InMemoryRemoteStore source = new InMemoryRemoteStore();
+    private final InMemoryRemoteStore target = new InMemoryRemoteStore();
+
+    @Test
+    void movesEveryVaccineAndKeepsTheAnimals() throws Exception {
+        for (int i = 0; i < 300; i++) {
+            Animal animal = TestSupport.newAnimal(1);
+            animal.setLastModified("2024-05-01 10:00:00");
+            source.putAnimal(animal);
+            for (int v = 0; v < 2; v++) {
+                Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+                vaccine.setLastModified("2024-05-02 10:00:00");
+                source.putVaccine(vaccine);
+            }
+        }
+
+        int moved = RemoteLayoutMigration.migrate(source, target);
+
+        assertEquals(600, moved);
+        assertEquals(300, target.animalCount());
+        assertEquals(600, target.vaccineCount());
+        assertEquals(300, source.animalCount(), "Animal documents are shared by both layouts");
+        assertEquals(0, source.vaccineCount());
+        assertEquals(2, target.commitCount(), "An animal and its vaccines are never split across commits");
+    }
+
+    @Test
+    void runningItAgainMovesNothing() throws Exception {
+        Animal animal = TestSupport.newAnimal(1);
+        animal.setLastModified("2024-05-01 10:00:00");
+        source.putAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccine.setLastModified("2024-05-02 10:00:00");
+        source.putVaccine(vaccine);
+
+        RemoteLayoutMigration.migrate(source, target);
+
+        assertEquals(0, RemoteLayoutMigration.migrate(source, target));
+        assertEquals(vaccine.getVaccineName(), target.getVaccine(vaccine.getId()).getVaccineName());
+    }
+}
@@ -0,0 +1,97 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.Config.DatabaseConnection;
+import com.asosiaciondeasis.animalesdeasis.Config.SQLiteSetup;
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.InMemoryRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncTelemetry;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Measures sync throughput against {@link InMemoryRemoteStore} on a throw-away file database.
+ * Not a unit test (surefire only runs {@code *Test}); run it from the IDE or with
+ * {@code java -cp target/test-classes:target/classes:<deps> ...SyncBenchmark [records] [latencyMs]}.
+ *
+ * <p>Phases: initial full pull of {@code records} animals with one vaccine each, an
+ * incremental sync with nothing changed, then a push of 10% locally edited animals.</p>
+ */
+public class SyncBenchmark {
+
+    private static final DateTimeFormatter DB_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    public static void main(String[] args) throws Exception {
+        int records = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long latencyMs = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        Path dir = Files.createTempDirectory("sync-benchmark");
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + dir.resolve("bench.db"))) {
+            DatabaseConnection.applyPragmas(conn);
+            SQLiteSetup.createSchema(conn);
+            int placeId = TestSupport.seedPlace(conn);
+
+            InMemoryRemoteStore remote = new InMemoryRemoteStore(latencyMs);
+            LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+            for (int i = 0; i < records; i++) {
+                // Distinct timestamps, as real edits have; identical ones would all sit on the watermark.
+                String lastModified = base.plusSeconds(i).format(DB_FORMATTER);
+                Animal animal = TestSupport.newAnimal(placeId);
+                animal.setLastModified(lastModified);
+                remote.putAnimal(animal);
+                Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+                vaccine.setLastModified(lastModified);
+                remote.putVaccine(vaccine);
+            }
+            SyncService sync = new SyncService(conn, remote);
+
+            measure("Full pull", () -> 2L * records, sync::sync);
+            measure("Incremental, no changes", () -> 0, sync::sync);
+
+            AnimalDAO animalDAO = new AnimalDAO(conn);
+            List<Animal> edited = new ArrayList<>();
+            for (Animal animal : animalDAO.getAllAnimals()) {
+                if (edited.size() == records / 10) break;
+                edited.add(animal);
+            }
+            DatabaseConnection.inTransaction(conn, () -> {
+                for (Animal animal : edited) {
+                    animal.setName("Editado");
+                    // As EditAnimalController does; a synced row is not queued for the push.
+                    animal.setSynced(false);
+                    animalDAO.updateAnimal(animal, true);
+                }
+                return null;
+            });
+            long pushed = measure("Push of local edits", () -> SyncTelemetry.last().docsPushed(), sync::sync);
+            if (pushed != edited.size()) {
+                throw new IllegalStateException("Expected " + edited.size() + " pushed documents, the run sent " + pushed);
+            }
+        }
+    }
+
+    /**
+     * Times {@code work} and prints its throughput.
+     *
+     * @param rows Rows the phase handled, read after it ran.
+     * @return the rows reported
+     */
+    private static long measure(String phase, LongSupplier rows, Runnable work) {
+        long start = System.nanoTime();
+        work.run();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long count = rows.getAsLong();
+        System.out.printf("%-26s %8d rows %8.2f s %10.0f rows/s%n", phase, count, seconds, count == 0 ? 0 : count / seconds);
+        return count;
+    }
+}
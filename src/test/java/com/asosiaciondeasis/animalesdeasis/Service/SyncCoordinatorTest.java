@@ -0,0 +1,165 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.InMemoryRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncCoordinator;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import com.asosiaciondeasis.animalesdeasis.Util.DataChangeEventManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SyncCoordinatorTest {
+
+    private static final long HOUR = 60 * 60 * 1000;
+
+    private final SyncService syncService = mock(SyncService.class);
+    private final ManualScheduler scheduler = new ManualScheduler();
+    private SyncCoordinator coordinator;
+
+    @AfterEach
+    void tearDown() {
+        if (coordinator != null) coordinator.shutdown();
+    }
+
+    /** A coordinator whose time only moves through {@link #scheduler}. */
+    private SyncCoordinator manualCoordinator(long debounceMs, long maxDelayMs, long backoffBaseMs) {
+        return new SyncCoordinator(syncService, debounceMs, maxDelayMs, HOUR, backoffBaseMs, scheduler, scheduler::now);
+    }
+
+    @Test
+    void syncNowCompletesWithTheOutcomeOfTheRun() throws Exception {
+        when(syncService.sync()).thenReturn(true);
+        when(syncService.fullReconcile()).thenReturn(false);
+        coordinator = new SyncCoordinator(syncService, 50, 500, HOUR, 1000);
+
+        assertTrue(coordinator.syncNow().get(2, TimeUnit.SECONDS));
+        assertFalse(coordinator.reconcileNow().get(2, TimeUnit.SECONDS));
+        verify(syncService, times(1)).sync();
+        verify(syncService, times(1)).fullReconcile();
+    }
+
+    @Test
+    void burstOfLocalWritesIsPushedOnce() throws Exception {
+        when(syncService.sync()).thenReturn(true);
+        coordinator = manualCoordinator(100, 5000, 1000);
+        coordinator.start();
+
+        for (int i = 0; i < 10; i++) {
+            DataChangeEventManager.notifyLocalChange();
+            scheduler.advance(10);
+        }
+
+        // The last write was at 90 ms, so the run is due at 190 ms.
+        scheduler.advance(89);
+        verify(syncService, never()).sync();
+        scheduler.advance(1);
+        verify(syncService, times(1)).sync();
+        scheduler.advance(10 * 60 * 1000);
+        verify(syncService, times(1)).sync();
+    }
+
+    @Test
+    void continuousWritesStillSyncWithinTheMaxDelay() throws Exception {
+        when(syncService.sync()).thenReturn(true);
+        coordinator = manualCoordinator(200, 300, 1000);
+
+        for (int i = 0; i < 20; i++) {
+            coordinator.requestSync();
+            scheduler.advance(50);
+        }
+
+        // A write every 50 ms never leaves 200 ms of quiet; each burst is cut at 300 ms.
+        verify(syncService, times(3)).sync();
+    }
+
+    @Test
+    void runsNeverOverlap() throws Exception {
+        AtomicBoolean running = new AtomicBoolean();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        when(syncService.sync()).thenAnswer(invocation -> {
+            if (!running.compareAndSet(false, true)) overlapped.set(true);
+            Thread.sleep(50);
+            running.set(false);
+            return true;
+        });
+        coordinator = new SyncCoordinator(syncService, 10, 20, HOUR, 1000);
+
+        for (int i = 0; i < 5; i++) {
+            coordinator.syncNow();
+            coordinator.requestSync();
+            Thread.sleep(30);
+        }
+        coordinator.syncNow().get(5, TimeUnit.SECONDS);
+
+        assertFalse(overlapped.get());
+    }
+
+    @Test
+    void failuresBackOffBeforeWriteTriggeredRetries() throws Exception {
+        when(syncService.sync()).thenReturn(false);
+        coordinator = manualCoordinator(10, 20, 400);
+
+        CompletableFuture<Boolean> first = coordinator.syncNow();
+        scheduler.runDue();
+        assertFalse(first.getNow(true));
+        assertEquals(1, coordinator.getConsecutiveFailures());
+
+        // An edit right after the failure waits for the backoff instead of retrying at once.
+        coordinator.requestSync();
+        scheduler.advance(399);
+        verify(syncService, times(1)).sync();
+
+        scheduler.advance(1);
+        verify(syncService, times(2)).sync();
+        assertEquals(2, coordinator.getConsecutiveFailures());
+
+        when(syncService.sync()).thenReturn(true);
+        CompletableFuture<Boolean> recovered = coordinator.syncNow();
+        scheduler.runDue();
+        assertTrue(recovered.getNow(false));
+        assertEquals(0, coordinator.getConsecutiveFailures());
+    }
+
+    @Test
+    void liveListenerFollowsTheHighWaterMarks() throws Exception {
+        try (Connection conn = TestSupport.newInMemoryDatabase()) {
+            int placeId = TestSupport.seedPlace(conn);
+            InMemoryRemoteStore remote = new InMemoryRemoteStore();
+            putAnimalWithVaccine(remote, placeId, "2024-05-01 10:00:00");
+            coordinator = new SyncCoordinator(new SyncService(conn, remote), 50, 500, HOUR, 1000);
+
+            assertTrue(coordinator.syncNow().get(5, TimeUnit.SECONDS));
+            coordinator.startLive();
+            assertTrue(coordinator.syncNow().get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("2024-05-01 10:00:00"), remote.watchedAnimalMarks());
+
+            // A run that pulls newer documents moves the listener instead of adding one.
+            putAnimalWithVaccine(remote, placeId, "2024-06-01 10:00:00");
+            assertTrue(coordinator.syncNow().get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("2024-06-01 10:00:00"), remote.watchedAnimalMarks());
+
+            // Nothing new: the listener is left alone.
+            assertTrue(coordinator.syncNow().get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("2024-06-01 10:00:00"), remote.watchedAnimalMarks());
+        }
+    }
+
+    private static void putAnimalWithVaccine(InMemoryRemoteStore remote, int placeId, String lastModified) {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animal.setLastModified(lastModified);
+        remote.putAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccine.setLastModified(lastModified);
+        remote.putVaccine(vaccine);
+    }
+}
@@ -0,0 +1,350 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.ChangeLogDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.RemoteVersionDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncRunDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.BucketDigest;
+import com.asosiaciondeasis.animalesdeasis.Model.ChangeEntry;
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.DocumentSize;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.InMemoryRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncCoordinator;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncTelemetry;
+import com.asosiaciondeasis.animalesdeasis.Service.Vaccine.VaccineService;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import com.asosiaciondeasis.animalesdeasis.Util.SyncEventManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the real sync engine against the in-process remote store.
+ */
+class SyncServiceTest {
+
+    private Connection conn;
+    private InMemoryRemoteStore remote;
+    private SyncService syncService;
+    private AnimalDAO animalDAO;
+    private VaccineDAO vaccineDAO;
+    private VaccineService vaccineService;
+    private int placeId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        conn = TestSupport.newInMemoryDatabase();
+        placeId = TestSupport.seedPlace(conn);
+        remote = new InMemoryRemoteStore();
+        syncService = new SyncService(conn, remote);
+        animalDAO = new AnimalDAO(conn);
+        vaccineDAO = new VaccineDAO(conn);
+        vaccineService = new VaccineService(vaccineDAO);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+    }
+
+    @Test
+    void pushesLocalChangesAndEmptiesTheOutbox() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+
+        syncService.sync();
+
+        assertNotNull(remote.getAnimal(animal.getRecordNumber()));
+        assertNotNull(remote.getVaccine(vaccine.getId()));
+        assertTrue(animalDAO.findByRecordNumber(animal.getRecordNumber()).isSynced());
+        assertTrue(vaccineDAO.existsVaccine(vaccine.getId()).isSynced());
+        assertTrue(new ChangeLogDAO(conn).readAfter(0, 10).isEmpty());
+    }
+
+    @Test
+    void pullsRemoteRecordsWithoutQueueingThemForPush() throws Exception {
+        Animal remoteAnimal = TestSupport.newAnimal(placeId);
+        remoteAnimal.setLastModified("2024-05-01 10:00:00");
+        remote.putAnimal(remoteAnimal);
+        Vaccine remoteVaccine = TestSupport.newVaccine(remoteAnimal.getRecordNumber());
+        remoteVaccine.setLastModified("2024-05-01 10:00:00");
+        remote.putVaccine(remoteVaccine);
+
+        syncService.sync();
+
+        Animal local = animalDAO.findByRecordNumber(remoteAnimal.getRecordNumber());
+        assertNotNull(local);
+        assertTrue(local.isSynced());
+        assertEquals(remoteVaccine.getId(), vaccineDAO.getVaccinesByAnimal(local.getRecordNumber()).get(0).getId());
+        assertEquals(0, remote.commitCount(), "Pulled rows must not be echoed back");
+    }
+
+    @Test
+    void offlineDeleteIsPushedAsTombstone() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+        syncService.sync();
+
+        remote.setAvailable(false);
+        vaccineService.deleteVaccine(vaccine.getId());
+        syncService.sync();
+        assertNotNull(remote.getVaccine(vaccine.getId()), "Nothing can be sent while offline");
+
+        remote.setAvailable(true);
+        syncService.sync();
+
+        assertNull(remote.getVaccine(vaccine.getId()));
+        assertTrue(vaccineDAO.getVaccinesByAnimal(animal.getRecordNumber()).isEmpty(), "Must not be resurrected by the pull");
+    }
+
+    @Test
+    void fullReconcileRemovesVaccinesDeletedRemotely() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+        syncService.sync(); // pushes; the remote was empty, so no watermark yet
+        syncService.sync(); // pulls our own documents back and records the watermarks
+
+        remote.removeVaccine(vaccine.getId());
+        syncService.sync();
+        assertNotNull(vaccineDAO.existsVaccine(vaccine.getId()), "An incremental pull cannot see deletions");
+
+        syncService.fullReconcile();
+
+        assertNull(vaccineDAO.existsVaccine(vaccine.getId()));
+        assertEquals(0, remote.vaccineCount());
+    }
+
+    @Test
+    void pullAppliesEachPageAsItArrives() throws Exception {
+        for (int i = 0; i < 1200; i++) {
+            Animal animal = TestSupport.newAnimal(placeId);
+            animal.setLastModified("2024-05-01 10:00:00");
+            remote.putAnimal(animal);
+            Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+            vaccine.setLastModified("2024-05-01 10:00:00");
+            remote.putVaccine(vaccine);
+        }
+        remote.failPage(3);
+
+        assertFalse(syncService.sync());
+        assertEquals(1000, animalDAO.getLastModifiedIndex().size(), "The pages before the failure stay applied");
+        assertEquals(1000, new RemoteVersionDAO(conn).getVersionIndex(ChangeEntry.ANIMAL).size());
+
+        int pagesBefore = remote.pageCount();
+        assertTrue(syncService.sync());
+        assertEquals(6, remote.pageCount() - pagesBefore, "Three pages of 500 per collection");
+        assertEquals(1200, animalDAO.getLastModifiedIndex().size());
+        assertEquals(1200, vaccineDAO.getSyncIndex().size());
+        assertEquals(1400, SyncTelemetry.last().rowsWritten(), "Only what the failed run had not applied");
+    }
+
+    @Test
+    void syncReportsOnlyTheAnimalsItChanged() throws Exception {
+        Animal pulled = TestSupport.newAnimal(placeId);
+        pulled.setLastModified("2024-05-01 10:00:00");
+        remote.putAnimal(pulled);
+        List<Set<String>> notified = new ArrayList<>();
+        Consumer<Set<String>> listener = notified::add;
+        SyncEventManager.addChangeListener(listener);
+        try {
+            syncService.sync();
+            animalDAO.insertAnimal(TestSupport.newAnimal(placeId));
+            syncService.sync();
+        } finally {
+            SyncEventManager.removeChangeListener(listener);
+        }
+
+        assertEquals(List.of(Set.of(pulled.getRecordNumber()), Set.of()), notified);
+    }
+
+    @Test
+    void liveModeAppliesRemoteWritesAndReportsTheirIds() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animal.setLastModified("2024-05-01 10:00:00");
+        remote.putAnimal(animal);
+        Vaccine first = TestSupport.newVaccine(animal.getRecordNumber());
+        first.setLastModified("2024-05-01 10:00:00");
+        remote.putVaccine(first);
+        SyncCoordinator coordinator = new SyncCoordinator(syncService, 50, 500, 60 * 60 * 1000, 1000);
+        BlockingQueue<Set<String>> notified = new LinkedBlockingQueue<>();
+        Consumer<Set<String>> listener = ids -> {
+            if (ids != null) notified.add(ids);
+        };
+        SyncEventManager.addChangeListener(listener);
+        try {
+            assertTrue(coordinator.syncNow().get(5, TimeUnit.SECONDS));
+            coordinator.startLive();
+
+            Animal edited = remote.getAnimal(animal.getRecordNumber());
+            edited.setName("En vivo");
+            edited.setLastModified("2024-05-02 10:00:00");
+            remote.putAnimal(edited);
+            Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+            vaccine.setLastModified("2024-05-02 10:00:00");
+            remote.putVaccine(vaccine);
+
+            // One or two deliveries, depending on whether the listener was attached before the writes.
+            assertEquals(Set.of(animal.getRecordNumber()), notified.poll(5, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (vaccineDAO.existsVaccine(vaccine.getId()) == null && System.currentTimeMillis() < deadline) {
+                Set<String> ids = notified.poll(100, TimeUnit.MILLISECONDS);
+                if (ids != null) assertEquals(Set.of(animal.getRecordNumber()), ids);
+            }
+            assertEquals("En vivo", animalDAO.findByRecordNumber(animal.getRecordNumber()).getName());
+            assertNotNull(vaccineDAO.existsVaccine(vaccine.getId()));
+            assertTrue(new ChangeLogDAO(conn).readAfter(0, 10).isEmpty(), "Applied changes must not be pushed back");
+        } finally {
+            SyncEventManager.removeChangeListener(listener);
+            coordinator.shutdown();
+        }
+    }
+
+    @Test
+    void incrementalPullOnlyAppliesNewerRemoteVersions() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animal.setLastModified("2024-05-01 10:00:00");
+        remote.putAnimal(animal);
+        syncService.sync();
+
+        Animal edited = remote.getAnimal(animal.getRecordNumber());
+        edited.setName("Remoto");
+        edited.setLastModified("2024-06-01 10:00:00");
+        remote.putAnimal(edited);
+        syncService.sync();
+
+        assertEquals("Remoto", animalDAO.findByRecordNumber(animal.getRecordNumber()).getName());
+    }
+
+    @Test
+    void recordsMetricsOfEveryRun() throws Exception {
+        SyncTelemetry.clear();
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        vaccineDAO.insertVaccine(TestSupport.newVaccine(animal.getRecordNumber()));
+
+        assertTrue(syncService.sync());
+        remote.setAvailable(false);
+        assertFalse(syncService.sync());
+
+        SyncRun pushed = SyncTelemetry.history().get(0);
+        assertTrue(pushed.success());
+        assertEquals(2, pushed.docsPushed());
+        assertTrue(pushed.bytesPushed() > 0);
+        assertEquals(0, pushed.retries());
+
+        SyncRun offline = SyncTelemetry.last();
+        assertFalse(offline.success());
+        assertNotNull(offline.error());
+        assertEquals(0, offline.docsRead());
+
+        assertEquals(List.of(offline, pushed), new SyncRunDAO(conn).getRecentRuns(10));
+    }
+
+    @Test
+    void pushKeepsRemoteDigestsInStepWithLocalVersions() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+        syncService.sync();
+
+        Animal edited = animalDAO.findByRecordNumber(animal.getRecordNumber());
+        edited.setName("Editado");
+        edited.setSynced(false);
+        animalDAO.updateAnimal(edited, true);
+        vaccineService.deleteVaccine(vaccine.getId());
+        syncService.sync();
+
+        String bucket = BucketDigest.bucketOf(animal.getRecordNumber());
+        BucketDigest local = new RemoteVersionDAO(conn).getDigests().get(bucket);
+        assertEquals(1, local.count());
+        assertEquals(local, remote.getDigest(bucket));
+    }
+
+    @Test
+    void reconcileOnlyRefetchesBucketsThatDrifted() throws Exception {
+        Animal first = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(first);
+        Animal second;
+        do {
+            second = TestSupport.newAnimal(placeId);
+        } while (BucketDigest.bucketOf(second.getRecordNumber()).equals(BucketDigest.bucketOf(first.getRecordNumber())));
+        animalDAO.insertAnimal(second);
+        Vaccine vaccine = TestSupport.newVaccine(second.getRecordNumber());
+        vaccineDAO.insertVaccine(vaccine);
+        syncService.sync();
+        syncService.sync();
+
+        remote.removeVaccine(vaccine.getId());
+        syncService.fullReconcile();
+
+        assertEquals(1, remote.bucketFetchCount());
+        assertNull(vaccineDAO.existsVaccine(vaccine.getId()));
+        assertNotNull(animalDAO.findByRecordNumber(first.getRecordNumber()));
+
+        syncService.fullReconcile();
+        assertEquals(1, remote.bucketFetchCount(), "Digests match again, nothing to re-fetch");
+    }
+
+    @Test
+    void reconcileRepairsACorruptedRemoteDigest() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animalDAO.insertAnimal(animal);
+        syncService.sync();
+        syncService.sync();
+
+        String bucket = BucketDigest.bucketOf(animal.getRecordNumber());
+        remote.putDigests(Map.of(bucket, new BucketDigest(7, 42))).get();
+        syncService.fullReconcile();
+
+        assertEquals(new RemoteVersionDAO(conn).getDigests().get(bucket), remote.getDigest(bucket));
+        assertNotNull(animalDAO.findByRecordNumber(animal.getRecordNumber()));
+    }
+
+    @Test
+    void updatesOnlySendTheChangedFields() throws Exception {
+        SyncTelemetry.clear();
+        Animal animal = TestSupport.newAnimal(placeId);
+        animal.setLastModified("2024-05-01 10:00:00");
+        remote.putAnimal(animal);
+        syncService.sync();
+
+        // Another device edits a different field without moving the version past ours.
+        Animal remoteEdit = remote.getAnimal(animal.getRecordNumber());
+        remoteEdit.setAilments("Otitis");
+        remote.putAnimal(remoteEdit);
+
+        Animal local = animalDAO.findByRecordNumber(animal.getRecordNumber());
+        local.setAdopted(true);
+        local.setSynced(false);
+        animalDAO.updateAnimal(local, true);
+        syncService.sync();
+
+        Animal merged = remote.getAnimal(animal.getRecordNumber());
+        assertTrue(merged.isAdopted());
+        assertEquals("Otitis", merged.getAilments(), "The merge must not overwrite untouched fields");
+        assertEquals(animalDAO.findByRecordNumber(animal.getRecordNumber()).getLastModified(), merged.getLastModified());
+        assertTrue(SyncTelemetry.last().bytesPushed() < DocumentSize.of(local));
+    }
+}
@@ -0,0 +1,100 @@
+package com.asosiaciondeasis.animalesdeasis.Service;
+
+import com.asosiaciondeasis.animalesdeasis.DAO.Animals.AnimalDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.ChangeLogDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.RemoteVersionDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Sync.SyncStateDAO;
+import com.asosiaciondeasis.animalesdeasis.DAO.Vaccine.VaccineDAO;
+import com.asosiaciondeasis.animalesdeasis.Model.Animal;
+import com.asosiaciondeasis.animalesdeasis.Model.SyncRun;
+import com.asosiaciondeasis.animalesdeasis.Model.Vaccine;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.InMemoryRemoteStore;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncSnapshot;
+import com.asosiaciondeasis.animalesdeasis.Service.Sync.SyncTelemetry;
+import com.asosiaciondeasis.animalesdeasis.TestSupport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.sql.Connection;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyncSnapshotTest {
+
+    private Connection source;
+    private Connection target;
+    private InMemoryRemoteStore remote;
+    private int placeId;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        source = TestSupport.newInMemoryDatabase();
+        target = TestSupport.newInMemoryDatabase();
+        placeId = TestSupport.seedPlace(source);
+        TestSupport.seedPlace(target);
+        remote = new InMemoryRemoteStore();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        source.close();
+        target.close();
+    }
+
+    @Test
+    void restoredWorkstationOnlyPullsWhatChangedAfterTheExport() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            Animal animal = TestSupport.newAnimal(placeId);
+            animal.setLastModified("2024-05-0" + (i + 1) + " 10:00:00");
+            remote.putAnimal(animal);
+            Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+            vaccine.setLastModified("2024-05-0" + (i + 1) + " 10:00:00");
+            remote.putVaccine(vaccine);
+        }
+        assertTrue(new SyncService(source, remote).sync());
+        Animal unpushed = TestSupport.newAnimal(placeId);
+        new AnimalDAO(source).insertAnimal(unpushed);
+
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        assertEquals(6, SyncSnapshot.export(source, snapshot));
+        assertEquals(6, SyncSnapshot.restore(target, new ByteArrayInputStream(snapshot.toByteArray())));
+
+        assertNull(new AnimalDAO(target).findByRecordNumber(unpushed.getRecordNumber()), "Unsynced rows stay out");
+        assertTrue(new ChangeLogDAO(target).readAfter(0, 10).isEmpty(), "Restored rows are not pushed back");
+        assertEquals(new SyncStateDAO(source).getHighWaterMark("animals"), new SyncStateDAO(target).getHighWaterMark("animals"));
+        assertEquals(new RemoteVersionDAO(source).getDigests(), new RemoteVersionDAO(target).getDigests());
+        for (Animal animal : new AnimalDAO(target).getAllAnimals()) {
+            assertTrue(animal.isSynced());
+            assertEquals(1, new VaccineDAO(target).getVaccinesByAnimal(animal.getRecordNumber()).size());
+        }
+
+        SyncTelemetry.clear();
+        assertTrue(new SyncService(target, remote).sync());
+        SyncRun run = SyncTelemetry.last();
+        assertEquals(2, run.docsRead(), "Only the documents of the last second before the marks are read again");
+        assertEquals(0, run.rowsWritten());
+    }
+
+    @Test
+    void refusesToOverwriteADatabaseInUse() throws Exception {
+        Animal animal = TestSupport.newAnimal(placeId);
+        animal.setLastModified("2024-05-01 10:00:00");
+        remote.putAnimal(animal);
+        Vaccine vaccine = TestSupport.newVaccine(animal.getRecordNumber());
+        vaccine.setLastModified("2024-05-01 10:00:00");
+        remote.putVaccine(vaccine);
+        new SyncService(source, remote).sync();
+        ByteArrayOutputStream snapshot = new ByteArrayOutputStream();
+        SyncSnapshot.export(source, snapshot);
+
+        assertThrows(Exception.class, () -> SyncSnapshot.restore(source, new ByteArrayInputStream(snapshot.toByteArray())));
+
+        byte[] truncated = Arrays.copyOf(snapshot.toByteArray(), snapshot.size() / 2);
+        assertThrows(Exception.class, () -> SyncSnapshot.restore(target, new ByteArrayInputStream(truncated)));
+        assertTrue(new AnimalDAO(target).getAllAnimals().isEmpty());
+    }
+}
@@ -0,0 +1,28 @@
+package com.asosiaciondeasis.animalesdeasis.Util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HybridLogicalClockTest {
+
+    @Test
+    void stampsIncreaseAndFollowObservedOnes() {
+        long first = HybridLogicalClock.now();
+        assertTrue(HybridLogicalClock.now() > first);
+
+        long fromTheFuture = (System.currentTimeMillis() + 60_000) << 16;
+        HybridLogicalClock.observe(fromTheFuture);
+        assertTrue(HybridLogicalClock.now() > fromTheFuture);
+        assertTrue(HybridLogicalClock.physicalMillis(first) <= System.currentTimeMillis());
+    }
+
+    @Test
+    void unstampedVersionsFallBackToLastModified() {
+        assertTrue(HybridLogicalClock.isNewer(2, "2024-01-01 00:00:00", 1, "2024-06-01 00:00:00"));
+        assertFalse(HybridLogicalClock.isNewer(0, "2024-01-01 00:00:00", 1, "2024-06-01 00:00:00"));
+        assertTrue(HybridLogicalClock.isNewer(0, "2024-06-01 00:00:00", 1, "2024-01-01 00:00:00"));
+        assertTrue(HybridLogicalClock.isNewer(0, "2024-01-01 00:00:00", 0, null));
+        assertFalse(HybridLogicalClock.isNewer(0, null, 0, "2024-01-01 00:00:00"));
+    }
+}